@@ -0,0 +1,48 @@
+-- Планы запросов остатков до и после индексов V1_1..V1_3.
+-- Запуск на базе из docker-compose:
+--   psql -h localhost -U root -d socks_db -f benchmarks/explain_stock_queries.sql
+-- Скрипт работает на отдельной таблице socks_bench и удаляет ее в конце.
+
+\timing on
+
+drop table if exists socks_bench;
+
+create table socks_bench (
+    id serial primary key,
+    color varchar(50) not null,
+    cotton_percentage decimal not null,
+    amount integer not null
+);
+
+-- 200 цветов x 1001 значение хлопка (0.0 .. 100.0 с шагом 0.1) = 200 200 артикулов.
+insert into socks_bench (color, cotton_percentage, amount)
+select 'color-' || c, p / 10.0, (random() * 1000)::int
+from generate_series(1, 200) c, generate_series(0, 1000) p;
+
+vacuum analyze socks_bench;
+
+\echo '=== До: только первичный ключ ==='
+
+explain (analyze, buffers) select sum(amount) from socks_bench where color = 'color-42' and cotton_percentage > 30;
+explain (analyze, buffers) select sum(amount) from socks_bench where color = 'color-42' and cotton_percentage = 55.5;
+explain (analyze, buffers) select * from socks_bench where color = 'color-42' and cotton_percentage = 55.5;
+explain (analyze, buffers) select * from socks_bench where cotton_percentage between 40 and 60
+    order by cotton_percentage, id limit 11;
+explain (analyze, buffers) select * from socks_bench where cotton_percentage >= 99.5 and (cotton_percentage > 99.5 or id > 100000)
+    order by cotton_percentage, id limit 11;
+
+alter table socks_bench add constraint uq_socks_bench_color_cotton unique (color, cotton_percentage) include (amount);
+create index ix_socks_bench_cotton_id on socks_bench (cotton_percentage, id);
+vacuum analyze socks_bench;
+
+\echo '=== После: уникальный покрывающий ключ артикула и индекс по хлопку ==='
+
+explain (analyze, buffers) select sum(amount) from socks_bench where color = 'color-42' and cotton_percentage > 30;
+explain (analyze, buffers) select sum(amount) from socks_bench where color = 'color-42' and cotton_percentage = 55.5;
+explain (analyze, buffers) select * from socks_bench where color = 'color-42' and cotton_percentage = 55.5;
+explain (analyze, buffers) select * from socks_bench where cotton_percentage between 40 and 60
+    order by cotton_percentage, id limit 11;
+explain (analyze, buffers) select * from socks_bench where cotton_percentage >= 99.5 and (cotton_percentage > 99.5 or id > 100000)
+    order by cotton_percentage, id limit 11;
+
+drop table socks_bench;
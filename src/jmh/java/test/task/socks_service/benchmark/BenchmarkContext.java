@@ -0,0 +1,107 @@
+package test.task.socks_service.benchmark;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import test.task.socks_service.SocksServiceApplication;
+import test.task.socks_service.service.color.ColorDictionary;
+import test.task.socks_service.service.stock.StockIndex;
+
+/**
+ * Приложение без веб-сервера поверх встроенного PostgreSQL: приход и отпуск пишутся
+ * upsert-ами и update ... returning, которых нет в H2, поэтому бенчмарки идут на той же
+ * СУБД, что и прод. Схема создается миграциями Flyway при старте контекста.
+ */
+final class BenchmarkContext implements AutoCloseable {
+
+    private static final int SEED_BATCH_SIZE = 5000;
+
+    private final EmbeddedPostgres postgres;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkContext(EmbeddedPostgres postgres, ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.context = context;
+    }
+
+    static BenchmarkContext start(String... properties) throws IOException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.start();
+        List<String> all = new ArrayList<>(Arrays.asList(
+            "spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true",
+            "spring.datasource.username=postgres",
+            "spring.datasource.password=",
+            "logging.level.test.task.socks_service=warn"));
+        all.addAll(Arrays.asList(properties));
+        try {
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(SocksServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(all.toArray(new String[0]))
+                .run();
+            return new BenchmarkContext(postgres, context);
+        } catch (RuntimeException e) {
+            postgres.close();
+            throw e;
+        }
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Заполняет склад артикулами набора и перестраивает индекс остатков, который
+     * строится при старте контекста по пустой БД.
+     */
+    void seed(SockDataset dataset) {
+        ColorDictionary colors = getBean(ColorDictionary.class);
+        short[] colorIds = new short[SockDataset.COLORS];
+        for (int i = 0; i < SockDataset.COLORS; i++) {
+            colorIds[i] = colors.intern(SockDataset.color(i));
+        }
+        JdbcTemplate jdbcTemplate = getBean(JdbcTemplate.class);
+        for (int from = 0; from < dataset.rows(); from += SEED_BATCH_SIZE) {
+            int start = from;
+            int size = Math.min(SEED_BATCH_SIZE, dataset.rows() - from);
+            jdbcTemplate.batchUpdate("insert into socks (color_id, cotton_basis_points, amount) values (?, ?, ?) "
+                    + "on conflict (color_id, cotton_basis_points) do nothing", new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setShort(1, colorIds[(start + i) % SockDataset.COLORS]);
+                    ps.setInt(2, dataset.cottonBasisPoints(start + i));
+                    ps.setInt(3, SockDataset.INITIAL_AMOUNT);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+        jdbcTemplate.execute("analyze socks");
+        StockIndex stockIndex = getBean(StockIndex.class);
+        if (stockIndex.isReady()) {
+            stockIndex.rebuild();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            context.close();
+        } finally {
+            postgres.close();
+        }
+    }
+
+}
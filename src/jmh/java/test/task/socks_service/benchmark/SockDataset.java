@@ -0,0 +1,75 @@
+package test.task.socks_service.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
+import test.task.socks_service.entity.CottonPercentage;
+import test.task.socks_service.service.exporter.CsvSockWriter;
+import test.task.socks_service.service.exporter.SockRowWriter;
+import test.task.socks_service.service.exporter.XlsxSockWriter;
+
+/**
+ * Детерминированный набор артикулов для бенчмарков: COLORS цветов, проценты хлопка
+ * равномерно по 0..100%, у каждого артикула большой остаток, чтобы отпуск не упирался в ноль.
+ */
+final class SockDataset {
+
+    static final int COLORS = 100;
+    static final int INITIAL_AMOUNT = 1_000_000;
+
+    private final int rows;
+    private final int step;
+
+    SockDataset(int rows) {
+        if (rows > COLORS * (CottonPercentage.MAX_BASIS_POINTS + 1)) {
+            throw new IllegalArgumentException("Не больше " + COLORS * (CottonPercentage.MAX_BASIS_POINTS + 1) + " артикулов");
+        }
+        this.rows = rows;
+        int perColor = (rows + COLORS - 1) / COLORS;
+        this.step = Math.max(1, CottonPercentage.MAX_BASIS_POINTS / Math.max(1, perColor - 1));
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    static String color(int index) {
+        return "color-" + index % COLORS;
+    }
+
+    int cottonBasisPoints(int index) {
+        return Math.min(CottonPercentage.MAX_BASIS_POINTS, index / COLORS * step);
+    }
+
+    int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(rows);
+    }
+
+    Path writeCsv() throws IOException {
+        Path file = Files.createTempFile("socks-benchmark-", ".csv");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(new CsvSockWriter(out));
+        }
+        return file;
+    }
+
+    Path writeXlsx() throws IOException {
+        Path file = Files.createTempFile("socks-benchmark-", ".xlsx");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(new XlsxSockWriter(out, 100));
+        }
+        return file;
+    }
+
+    private void write(SockRowWriter writer) throws IOException {
+        try (SockRowWriter rowWriter = writer) {
+            for (int i = 0; i < rows; i++) {
+                rowWriter.onRow(color(i), cottonBasisPoints(i), INITIAL_AMOUNT);
+            }
+        }
+    }
+
+}
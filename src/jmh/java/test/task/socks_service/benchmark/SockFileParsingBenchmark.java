@@ -0,0 +1,64 @@
+package test.task.socks_service.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import test.task.socks_service.config.ImportProperties;
+import test.task.socks_service.service.importer.CsvSockReader;
+import test.task.socks_service.service.importer.XlsxSockReader;
+
+/**
+ * Разбор файлов загрузки без записи в БД: сколько стоит чтение rows строк CSV и .xlsx.
+ * Файлы генерируются один раз на прогон писателями выгрузки.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SockFileParsingBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    private final CsvSockReader csvSockReader = new CsvSockReader(new ImportProperties());
+    private final XlsxSockReader xlsxSockReader = new XlsxSockReader();
+    private Path csv;
+    private Path xlsx;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SockDataset dataset = new SockDataset(rows);
+        csv = dataset.writeCsv();
+        xlsx = dataset.writeXlsx();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(xlsx);
+    }
+
+    @Benchmark
+    public void parseCsv(Blackhole blackhole) throws IOException {
+        csvSockReader.read(csv, (color, cottonBasisPoints, amount) -> blackhole.consume(amount));
+    }
+
+    @Benchmark
+    public void parseXlsx(Blackhole blackhole) throws IOException {
+        xlsxSockReader.read(xlsx, (color, cottonBasisPoints, amount) -> blackhole.consume(amount));
+    }
+
+}
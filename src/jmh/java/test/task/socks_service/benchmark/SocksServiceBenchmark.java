@@ -0,0 +1,105 @@
+package test.task.socks_service.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.domain.Page;
+
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.entity.dto.SocksSliceResponse;
+import test.task.socks_service.exception.InvalidCursorException;
+import test.task.socks_service.exception.NoSocksFoundException;
+import test.task.socks_service.service.SocksService;
+
+/**
+ * Горячие пути сервиса на наборе из rows артикулов. countSource переключает подсчет
+ * количества между индексом остатков в памяти и запросом к БД без кэша сумм.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SocksServiceBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"index", "database"})
+    public String countSource;
+
+    private BenchmarkContext context;
+    private SocksService socksService;
+    private SockDataset dataset;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        boolean index = "index".equals(countSource);
+        context = BenchmarkContext.start(
+            "socks.stock.index.enabled=" + index,
+            "socks.stock.cache.enabled=false");
+        dataset = new SockDataset(rows);
+        context.seed(dataset);
+        socksService = context.getBean(SocksService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    @Benchmark
+    public Sock incomeSock() {
+        return socksService.incomeSock(randomSock());
+    }
+
+    @Benchmark
+    public Sock outcomeSock() throws Exception {
+        return socksService.outcomeSock(randomSock());
+    }
+
+    @Benchmark
+    public Integer getAmountOfSocks() {
+        int index = dataset.randomIndex();
+        try {
+            return socksService.getAmountOfSocks(SockDataset.color(index), dataset.cottonBasisPoints(index), "moreThan");
+        } catch (NoSocksFoundException e) {
+            return 0;
+        }
+    }
+
+    @Benchmark
+    public Page<Sock> getFilteredAndSortedSocks() {
+        int index = dataset.randomIndex();
+        int minCotton = dataset.cottonBasisPoints(index);
+        return socksService.getFilteredAndSortedSocks(minCotton, minCotton + 2000, SockDataset.color(index),
+            ThreadLocalRandom.current().nextInt(5), 10, "cottonPercentage", "asc");
+    }
+
+    @Benchmark
+    public SocksSliceResponse getFilteredAndSortedSocksByCursor() throws InvalidCursorException {
+        int index = dataset.randomIndex();
+        int minCotton = dataset.cottonBasisPoints(index);
+        return socksService.getFilteredAndSortedSocks(minCotton, minCotton + 2000, SockDataset.color(index),
+            "", 10, "cottonPercentage", "asc");
+    }
+
+    private Sock randomSock() {
+        int index = dataset.randomIndex();
+        return Sock.builder()
+        .color(SockDataset.color(index))
+        .cottonBasisPoints(dataset.cottonBasisPoints(index))
+        .amount(1)
+        .build();
+    }
+
+}
@@ -0,0 +1,39 @@
+package test.task.socks_service.loadtest;
+
+/**
+ * Виды запросов нагрузочного теста, имя - ключ в смеси mix=income=30,outcome=20,...
+ */
+enum Endpoint {
+
+    INCOME("income", "POST /api/socks/income"),
+    OUTCOME("outcome", "POST /api/socks/outcome"),
+    AMOUNT("amount", "GET /api/socks"),
+    FILTER("filter", "GET /api/socks/filter"),
+    BATCH("batch", "POST /api/socks/batch");
+
+    private final String key;
+    private final String title;
+
+    Endpoint(String key, String title) {
+        this.key = key;
+        this.title = title;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    String getTitle() {
+        return title;
+    }
+
+    static Endpoint ofKey(String key) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.key.equals(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный вид запроса в смеси: " + key);
+    }
+
+}
@@ -0,0 +1,83 @@
+package test.task.socks_service.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Итоги одного вида запросов. Задержка считается от запланированного момента отправки,
+ * а не от фактического, поэтому очередь перед перегруженным сервисом попадает в
+ * гистограмму, а не прячется (coordinated omission). В гистограмму идут только ответы 2xx,
+ * остальные ответы и сбои соединения считаются ошибками по статусу или типу исключения.
+ */
+final class EndpointStats {
+
+    private final Endpoint endpoint;
+    private final Recorder recorder = new Recorder(3);
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    EndpointStats(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void sent() {
+        sent.increment();
+    }
+
+    void dropped() {
+        dropped.increment();
+    }
+
+    void completed(int status, long latencyNanos) {
+        if (status >= 200 && status < 300) {
+            recorder.recordValue(latencyNanos);
+        } else {
+            error("HTTP " + status);
+        }
+    }
+
+    void failed(Throwable error) {
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        error(cause.getClass().getSimpleName());
+    }
+
+    private void error(String kind) {
+        errors.computeIfAbsent(kind, k -> new LongAdder()).increment();
+    }
+
+    Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    long getSent() {
+        return sent.sum();
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    Map<String, Long> getErrors() {
+        Map<String, Long> counts = new TreeMap<>();
+        errors.forEach((kind, count) -> counts.put(kind, count.sum()));
+        return counts;
+    }
+
+    long getErrorCount() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * Гистограмма задержек успешных ответов в наносекундах. Вызывается один раз после прогона.
+     */
+    Histogram histogram() {
+        return recorder.getIntervalHistogram();
+    }
+
+}
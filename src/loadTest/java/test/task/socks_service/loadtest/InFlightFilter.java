@@ -0,0 +1,39 @@
+package test.task.socks_service.loadtest;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+/**
+ * Считает запросы, которые сервер обрабатывает прямо сейчас, и запоминает пик. В отличие
+ * от запросов без ответа на стороне генератора, сюда не попадают соединения, ждущие
+ * свободного потока Tomcat, поэтому пик показывает предел одновременной обработки.
+ */
+final class InFlightFilter implements Filter {
+
+    private final AtomicInteger current = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        peak.accumulateAndGet(current.incrementAndGet(), Math::max);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            current.decrementAndGet();
+        }
+    }
+
+    /**
+     * Возвращает пик с прошлого сброса и начинает отсчет заново.
+     */
+    int resetPeak() {
+        return peak.getAndSet(current.get());
+    }
+
+}
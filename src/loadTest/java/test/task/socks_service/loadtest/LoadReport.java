@@ -0,0 +1,70 @@
+package test.task.socks_service.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Отчет прогона: сводная таблица по видам запросов в консоль и в summary.txt,
+ * полные распределения задержек в формате .hgrm (в миллисекундах) по каждому виду.
+ */
+final class LoadReport {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final String ROW = "%-26s %9s %9s %9s %9s %9s %9s %9s %9s %9s%n";
+
+    private final LoadTestSettings settings;
+    private final Map<Endpoint, EndpointStats> stats;
+    private final int peakInFlight;
+    private final ResourceSampler resources;
+
+    LoadReport(LoadTestSettings settings, Map<Endpoint, EndpointStats> stats, int peakInFlight, ResourceSampler resources) {
+        this.settings = settings;
+        this.stats = stats;
+        this.peakInFlight = peakInFlight;
+        this.resources = resources;
+    }
+
+    void write() throws IOException {
+        Files.createDirectories(settings.getReport());
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format(Locale.ROOT, "Интенсивность %d запросов/с, длительность %d с, режим записи %s, артикулов %d, потоки %s%n",
+            settings.getRate(), settings.getDuration().getSeconds(), settings.getWriteMode(), settings.getRows(),
+            settings.isVirtualThreads() ? "виртуальные" : "платформенные"));
+        summary.append(String.format(Locale.ROOT, "Пик запросов в обработке %d, пик потоков JVM %d, пик занятой кучи %d МБ%n%n",
+            peakInFlight, resources.getPeakThreads(), resources.getPeakHeapBytes() / (1024 * 1024)));
+        summary.append(String.format(Locale.ROOT, ROW, "endpoint", "sent", "ok", "errors", "dropped", "ok/s",
+            "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        StringBuilder errors = new StringBuilder();
+        for (EndpointStats endpointStats : stats.values()) {
+            Histogram histogram = endpointStats.histogram();
+            summary.append(String.format(Locale.ROOT, ROW, endpointStats.getEndpoint().getTitle(),
+                endpointStats.getSent(), histogram.getTotalCount(), endpointStats.getErrorCount(), endpointStats.getDropped(),
+                String.format(Locale.ROOT, "%.1f", histogram.getTotalCount() / (double) settings.getDuration().getSeconds()),
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue())));
+            endpointStats.getErrors().forEach((kind, count) -> errors.append(String.format(Locale.ROOT, "  %s: %s - %d%n",
+                endpointStats.getEndpoint().getTitle(), kind, count)));
+            try (PrintStream out = new PrintStream(
+                    Files.newOutputStream(settings.getReport().resolve(endpointStats.getEndpoint().getKey() + ".hgrm")), false, "UTF-8")) {
+                histogram.outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+        }
+        if (errors.length() > 0) {
+            summary.append(String.format("%nОшибки:%n")).append(errors);
+        }
+        Files.write(settings.getReport().resolve("summary.txt"), summary.toString().getBytes(StandardCharsets.UTF_8));
+        System.out.print(summary);
+        System.out.println("Отчет записан в " + settings.getReport().toAbsolutePath());
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / NANOS_PER_MILLI);
+    }
+
+}
@@ -0,0 +1,77 @@
+package test.task.socks_service.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import test.task.socks_service.SocksServiceApplication;
+
+/**
+ * Нагрузочный тест REST API: поднимает встроенный PostgreSQL и приложение на случайном
+ * порту, заполняет склад, прогревает сервис и гоняет смесь запросов с постоянной
+ * интенсивностью. Внешние сервисы не нужны. Запуск: ./gradlew loadTest, параметры
+ * описаны в {@link LoadTestSettings}.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.parse(args);
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "load-test-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start();
+                ConfigurableApplicationContext context = start(postgres, settings)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+            Workload workload = new Workload(URI.create("http://localhost:" + port), settings);
+            workload.seed(client);
+            OpenLoadGenerator generator = new OpenLoadGenerator(client, workload, settings);
+            if (!settings.getWarmup().isZero()) {
+                generator.run(settings.getWarmup());
+            }
+            InFlightFilter inFlight = context.getBean(InFlightFilter.class);
+            inFlight.resetPeak();
+            Map<Endpoint, EndpointStats> stats;
+            ResourceSampler sampler = new ResourceSampler();
+            try {
+                stats = generator.run(settings.getDuration());
+            } finally {
+                sampler.close();
+            }
+            new LoadReport(settings, stats, inFlight.resetPeak(), sampler).write();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ConfigurableApplicationContext start(EmbeddedPostgres postgres, LoadTestSettings settings) {
+        return new SpringApplicationBuilder(SocksServiceApplication.class)
+            .properties(
+                "server.port=0",
+                "spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true",
+                "spring.datasource.username=postgres",
+                "spring.datasource.password=",
+                "logging.level.test.task.socks_service=warn",
+                "socks.stock.write-mode=" + settings.getWriteMode(),
+                "socks.threads.virtual=" + settings.isVirtualThreads())
+            .initializers(context -> context.getBeanFactory().registerSingleton("inFlightFilter", new InFlightFilter()))
+            .run();
+    }
+
+}
@@ -0,0 +1,149 @@
+package test.task.socks_service.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Параметры нагрузочного теста из аргументов вида ключ=значение.
+ * rate - запросов в секунду по всем видам вместе, duration и warmup - в секундах,
+ * mix - веса видов запросов, rows - число артикулов на складе, batchRows - строк
+ * в файле для /batch, maxInFlight - предел одновременных запросов, сверх которого
+ * запрос не отправляется и считается отброшенным, threads - platform или virtual
+ * (socks.threads.virtual, нужен запуск на Java 21).
+ */
+final class LoadTestSettings {
+
+    private int rate = 200;
+    private Duration duration = Duration.ofSeconds(60);
+    private Duration warmup = Duration.ofSeconds(10);
+    private Map<Endpoint, Integer> mix = parseMix("income=30,outcome=20,amount=30,filter=15,batch=5");
+    private int rows = 1000;
+    private int batchRows = 1000;
+    private int maxInFlight = 1000;
+    private String writeMode = "direct";
+    private String threads = "platform";
+    private Path report = Paths.get("build", "reports", "loadtest");
+
+    static LoadTestSettings parse(String[] args) {
+        LoadTestSettings settings = new LoadTestSettings();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Ожидался параметр вида ключ=значение: " + arg);
+            }
+            String value = arg.substring(separator + 1);
+            switch (arg.substring(0, separator)) {
+                case "rate":
+                    settings.rate = positive("rate", value);
+                    break;
+                case "duration":
+                    settings.duration = Duration.ofSeconds(positive("duration", value));
+                    break;
+                case "warmup":
+                    settings.warmup = Duration.ofSeconds(Integer.parseInt(value));
+                    break;
+                case "mix":
+                    settings.mix = parseMix(value);
+                    break;
+                case "rows":
+                    settings.rows = positive("rows", value);
+                    break;
+                case "batchRows":
+                    settings.batchRows = positive("batchRows", value);
+                    break;
+                case "maxInFlight":
+                    settings.maxInFlight = positive("maxInFlight", value);
+                    break;
+                case "writeMode":
+                    settings.writeMode = value;
+                    break;
+                case "threads":
+                    if (!"platform".equals(value) && !"virtual".equals(value)) {
+                        throw new IllegalArgumentException("Параметр threads принимает platform или virtual: " + value);
+                    }
+                    settings.threads = value;
+                    break;
+                case "report":
+                    settings.report = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Неизвестный параметр: " + arg);
+            }
+        }
+        return settings;
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String value) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String part : value.split(",")) {
+            String[] weight = part.trim().split("=");
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("Ожидался вес вида income=30: " + part);
+            }
+            int share = Integer.parseInt(weight[1].trim());
+            if (share < 0) {
+                throw new IllegalArgumentException("Вес не может быть отрицательным: " + part);
+            }
+            if (share > 0) {
+                mix.put(Endpoint.ofKey(weight[0].trim()), share);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("В смеси нет ни одного вида запросов: " + value);
+        }
+        return Collections.unmodifiableMap(mix);
+    }
+
+    private static int positive(String name, String value) {
+        int parsed = Integer.parseInt(value);
+        if (parsed <= 0) {
+            throw new IllegalArgumentException("Параметр " + name + " должен быть положительным: " + value);
+        }
+        return parsed;
+    }
+
+    int getRate() {
+        return rate;
+    }
+
+    Duration getDuration() {
+        return duration;
+    }
+
+    Duration getWarmup() {
+        return warmup;
+    }
+
+    Map<Endpoint, Integer> getMix() {
+        return mix;
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    int getBatchRows() {
+        return batchRows;
+    }
+
+    int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    String getWriteMode() {
+        return writeMode;
+    }
+
+    boolean isVirtualThreads() {
+        return "virtual".equals(threads);
+    }
+
+    Path getReport() {
+        return report;
+    }
+
+}
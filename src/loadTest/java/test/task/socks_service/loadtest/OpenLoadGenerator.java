@@ -0,0 +1,95 @@
+package test.task.socks_service.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Открытая модель нагрузки: запросы отправляются с постоянной интенсивностью rate
+ * независимо от того, успел ли сервис ответить на предыдущие. Вид каждого запроса
+ * выбирается случайно по весам смеси. Если без ответа уже maxInFlight запросов, новый
+ * запрос не отправляется и считается отброшенным, чтобы генератор не копил очередь у себя.
+ */
+final class OpenLoadGenerator {
+
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final HttpClient client;
+    private final Workload workload;
+    private final LoadTestSettings settings;
+    private final Endpoint[] endpoints;
+    private final int[] cumulativeWeights;
+
+    OpenLoadGenerator(HttpClient client, Workload workload, LoadTestSettings settings) {
+        this.client = client;
+        this.workload = workload;
+        this.settings = settings;
+        Map<Endpoint, Integer> mix = settings.getMix();
+        this.endpoints = mix.keySet().toArray(new Endpoint[0]);
+        this.cumulativeWeights = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += mix.get(endpoints[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    Map<Endpoint, EndpointStats> run(Duration duration) throws InterruptedException {
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : endpoints) {
+            stats.put(endpoint, new EndpointStats(endpoint));
+        }
+        AtomicInteger inFlight = new AtomicInteger();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long intended = start + i * TimeUnit.SECONDS.toNanos(1) / settings.getRate();
+            if (intended >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            EndpointStats endpointStats = stats.get(next());
+            if (inFlight.get() >= settings.getMaxInFlight()) {
+                endpointStats.dropped();
+                continue;
+            }
+            inFlight.incrementAndGet();
+            endpointStats.sent();
+            client.sendAsync(workload.request(endpointStats.getEndpoint()), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    long latency = System.nanoTime() - intended;
+                    if (error != null) {
+                        endpointStats.failed(error);
+                    } else {
+                        endpointStats.completed(response.statusCode(), latency);
+                    }
+                    inFlight.decrementAndGet();
+                });
+        }
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return stats;
+    }
+
+    private Endpoint next() {
+        int point = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (point < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        return endpoints[endpoints.length - 1];
+    }
+
+}
@@ -0,0 +1,55 @@
+package test.task.socks_service.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Раз в SAMPLE_INTERVAL_MILLIS запоминает пик занятой кучи и числа живых потоков JVM.
+ * Виртуальные потоки ThreadMXBean не считает, поэтому в режиме виртуальных потоков пик
+ * потоков показывает, сколько потоков ОС на самом деле понадобилось. Генератор нагрузки
+ * работает в той же JVM, его доля одинакова в обоих режимах.
+ */
+final class ResourceSampler implements AutoCloseable {
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 50;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final Thread sampler;
+    private volatile long peakHeapBytes;
+    private volatile int peakThreads;
+
+    ResourceSampler() {
+        sampler = new Thread(this::sample, "load-test-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    private void sample() {
+        while (!Thread.currentThread().isInterrupted()) {
+            peakHeapBytes = Math.max(peakHeapBytes, memory.getHeapMemoryUsage().getUsed());
+            peakThreads = Math.max(peakThreads, threads.getThreadCount());
+            try {
+                Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    int getPeakThreads() {
+        return peakThreads;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        sampler.interrupt();
+        sampler.join();
+    }
+
+}
@@ -0,0 +1,122 @@
+package test.task.socks_service.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+
+import test.task.socks_service.service.exporter.CsvSockWriter;
+
+/**
+ * Запросы нагрузочного теста по rows артикулам склада: COLORS цветов, целые проценты
+ * хлопка. Склад заполняется через /income/bulk с большим остатком, чтобы отпуск за
+ * время теста не упирался в ноль и ошибки в отчете были ошибками сервиса, а не данных.
+ */
+final class Workload {
+
+    private static final int COLORS = 50;
+    private static final int INITIAL_AMOUNT = 1_000_000;
+    private static final int SEED_CHUNK_SIZE = 1000;
+    private static final String BOUNDARY = "socks-load-test-boundary";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI base;
+    private final int rows;
+    private final byte[] batchBody;
+
+    Workload(URI base, LoadTestSettings settings) throws IOException {
+        this.base = base;
+        this.rows = settings.getRows();
+        this.batchBody = multipart(settings.getBatchRows());
+    }
+
+    void seed(HttpClient client) throws IOException, InterruptedException {
+        for (int from = 0; from < rows; from += SEED_CHUNK_SIZE) {
+            StringJoiner body = new StringJoiner(",", "[", "]");
+            for (int i = from; i < Math.min(rows, from + SEED_CHUNK_SIZE); i++) {
+                body.add(sock(i, INITIAL_AMOUNT));
+            }
+            HttpResponse<String> response = client.send(json("/api/socks/income/bulk", body.toString()),
+                HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("Не удалось заполнить склад: HTTP " + response.statusCode() + " " + response.body());
+            }
+        }
+    }
+
+    HttpRequest request(Endpoint endpoint) {
+        int index = ThreadLocalRandom.current().nextInt(rows);
+        switch (endpoint) {
+            case INCOME:
+                return json("/api/socks/income", sock(index, 1));
+            case OUTCOME:
+                return json("/api/socks/outcome", sock(index, 1));
+            case AMOUNT:
+                return get("/api/socks?color=" + color(index) + "&cottonPercentage=" + cottonPercentage(index) + "&operator=moreThan");
+            case FILTER:
+                return get("/api/socks/filter?color=" + color(index) + "&minCotton=" + cottonPercentage(index)
+                    + "&maxCotton=" + Math.min(100, cottonPercentage(index) + 20) + "&size=10");
+            case BATCH:
+                return HttpRequest.newBuilder(base.resolve("/api/socks/batch"))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(batchBody))
+                    .build();
+            default:
+                throw new IllegalArgumentException("Неизвестный вид запроса: " + endpoint);
+        }
+    }
+
+    private static String color(int index) {
+        return "color-" + index % COLORS;
+    }
+
+    private static int cottonPercentage(int index) {
+        return index / COLORS % 101;
+    }
+
+    private static String sock(int index, int amount) {
+        return String.format(Locale.ROOT, "{\"color\":\"%s\",\"cottonPercentage\":%d,\"amount\":%d}",
+            color(index), cottonPercentage(index), amount);
+    }
+
+    private HttpRequest json(String path, String body) {
+        return HttpRequest.newBuilder(base.resolve(path))
+            .timeout(REQUEST_TIMEOUT)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(base.resolve(path))
+            .timeout(REQUEST_TIMEOUT)
+            .GET()
+            .build();
+    }
+
+    /**
+     * Тело multipart/form-data с CSV файлом из batchRows строк по уже заведенным артикулам.
+     */
+    private byte[] multipart(int batchRows) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(("--" + BOUNDARY + "\r\n"
+            + "Content-Disposition: form-data; name=\"file\"; filename=\"load-test.csv\"\r\n"
+            + "Content-Type: text/csv\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        try (CsvSockWriter writer = new CsvSockWriter(body)) {
+            for (int i = 0; i < batchRows; i++) {
+                writer.onRow(color(i % rows), cottonPercentage(i % rows) * 100, 1);
+            }
+        }
+        body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return body.toByteArray();
+    }
+
+}
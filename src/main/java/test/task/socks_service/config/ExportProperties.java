@@ -0,0 +1,23 @@
+package test.task.socks_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.export")
+public class ExportProperties {
+
+    /**
+     * Сколько строк драйвер БД забирает за одно обращение к курсору при выгрузке.
+     */
+    private int fetchSize = 1000;
+
+    /**
+     * Сколько строк листа .xlsx держится в памяти, остальные сбрасываются во временный файл.
+     */
+    private int xlsxWindowSize = 100;
+
+}
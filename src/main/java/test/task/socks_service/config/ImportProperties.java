@@ -0,0 +1,51 @@
+package test.task.socks_service.config;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.import")
+public class ImportProperties {
+
+    /**
+     * Сколько артикулов записываем в БД одной транзакцией.
+     */
+    private int batchSize = 5000;
+
+    /**
+     * Число потоков, обрабатывающих задачи импорта.
+     */
+    private int threads = 2;
+
+    /**
+     * Сколько задач может ждать свободного потока, остальные отклоняются.
+     */
+    private int queueCapacity = 10;
+
+    /**
+     * Число потоков разбора CSV.
+     */
+    private int parseThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Размер диапазона CSV файла в байтах, который разбирается одной задачей.
+     */
+    private int csvRangeSize = 8 * 1024 * 1024;
+
+    /**
+     * Каталог, куда сохраняются загруженные файлы до обработки.
+     */
+    private Path spoolDir = Paths.get(System.getProperty("java.io.tmpdir"), "socks-import");
+
+    /**
+     * Сколько завершенных задач хранить для запросов статуса.
+     */
+    private int maxRetainedJobs = 100;
+
+}
@@ -0,0 +1,41 @@
+package test.task.socks_service.config;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Записывает число SQL-запросов каждого HTTP-запроса в socks.http.queries с теми же
+ * тегами method и uri, что у http.server.requests, чтобы запросы с N+1 было видно по эндпоинту.
+ */
+@RequiredArgsConstructor
+public class QueryCountInterceptor implements HandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryCountingDataSource.start();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        long queries = QueryCountingDataSource.stop();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("socks.http.queries")
+            .description("Число SQL-запросов на HTTP-запрос")
+            .baseUnit("queries")
+            .tag("method", request.getMethod())
+            .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+            .register(this.meterRegistry)
+            .record(queries);
+    }
+
+}
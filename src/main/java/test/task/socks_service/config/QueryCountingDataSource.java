@@ -0,0 +1,77 @@
+package test.task.socks_service.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Считает SQL-запросы текущего потока: соединения оборачиваются прокси, которая увеличивает
+ * счетчик при каждом создании Statement, PreparedStatement и CallableStatement, поэтому
+ * запрос Hibernate и пакет batchUpdate считаются одним запросом каждый. Считаются только
+ * запросы между {@link #start()} и {@link #stop()} в одном потоке, то есть внутри
+ * HTTP-запроса: фоновые импорты и сжатие журнала в счет не попадают.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+    private static final ThreadLocal<long[]> COUNTER = new ThreadLocal<>();
+
+    public QueryCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    static void start() {
+        COUNTER.set(new long[1]);
+    }
+
+    /**
+     * Останавливает счет в текущем потоке и возвращает число запросов с {@link #start()}.
+     */
+    static long stop() {
+        long[] counter = COUNTER.get();
+        COUNTER.remove();
+        return counter == null ? 0 : counter[0];
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    private static Connection counting(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(),
+            new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "prepareStatement":
+                    case "prepareCall":
+                    case "createStatement":
+                        long[] counter = COUNTER.get();
+                        if (counter != null) {
+                            counter[0]++;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+
+}
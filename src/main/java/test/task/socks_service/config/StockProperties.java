@@ -0,0 +1,96 @@
+package test.task.socks_service.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.stock")
+public class StockProperties {
+
+    /**
+     * Способ записи прихода и отпуска: direct - сразу в БД, write-behind - на счетчиках
+     * в памяти с периодической записью в БД, ledger - журналом движений с периодическим
+     * сжатием в снимок остатков.
+     */
+    private String writeMode = "direct";
+
+    private final Index index = new Index();
+
+    private final WriteBehind writeBehind = new WriteBehind();
+
+    private final Cache cache = new Cache();
+
+    private final Ledger ledger = new Ledger();
+
+    public boolean isLedger() {
+        return "ledger".equals(writeMode);
+    }
+
+    @Getter
+    @Setter
+    public static class Index {
+
+        /**
+         * Отвечать на запросы количества из памяти. Индекс строится из БД при старте
+         * и обновляется только записями этого экземпляра приложения, поэтому включать
+         * его можно, только если приложение - единственный, кто пишет в таблицу socks:
+         * один экземпляр, без импорта и правок в обход приложения. По умолчанию выключен.
+         */
+        private boolean enabled;
+
+    }
+
+    @Getter
+    @Setter
+    public static class WriteBehind {
+
+        /**
+         * Интервал записи накопленных изменений в БД, мс.
+         */
+        private long flushInterval = 200;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        /**
+         * Кэшировать суммы остатков из БД, когда индекс остатков выключен.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Максимальное число закэшированных сумм.
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * Время жизни суммы. Ограничивает отставание от записей других экземпляров приложения.
+         */
+        private Duration expireAfterWrite = Duration.ofSeconds(5);
+
+    }
+
+    @Getter
+    @Setter
+    public static class Ledger {
+
+        /**
+         * Интервал сжатия журнала движений в снимок остатков, мс.
+         */
+        private long compactInterval = 1000;
+
+        /**
+         * Сколько движений сворачивается в снимок одной транзакцией.
+         */
+        private int compactBatchSize = 50_000;
+
+    }
+
+}
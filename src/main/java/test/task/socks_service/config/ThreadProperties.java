@@ -0,0 +1,20 @@
+package test.task.socks_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.threads")
+public class ThreadProperties {
+
+    /**
+     * Обрабатывать HTTP-запросы Tomcat и задачи импорта в виртуальных потоках, нужна Java 21.
+     * Число одновременных обращений к БД по-прежнему ограничено пулом соединений
+     * (spring.datasource.hikari.maximum-pool-size), остальные запросы ждут соединение.
+     */
+    private boolean virtual = false;
+
+}
@@ -0,0 +1,54 @@
+package test.task.socks_service.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Виртуальные потоки Java 21 через отражение: сервис собирается под Java 17, а режим
+ * socks.threads.virtual=true работает только при запуске на Java 21 и новее.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    /**
+     * Фабрика виртуальных потоков с именами prefix0, prefix1, ...
+     */
+    public static ThreadFactory factory(String prefix) {
+        checkSupported();
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Не удалось создать фабрику виртуальных потоков", e);
+        }
+    }
+
+    /**
+     * Исполнитель, который запускает каждую задачу в новом виртуальном потоке.
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        ThreadFactory factory = factory(prefix);
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Не удалось создать исполнитель на виртуальных потоках", e);
+        }
+    }
+
+    private static void checkSupported() {
+        if (!isSupported()) {
+            throw new IllegalStateException("Виртуальные потоки (socks.threads.virtual=true) доступны только на Java 21 и новее, текущая версия "
+                + Runtime.version().feature());
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package test.task.socks_service.config;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tomcat обрабатывает каждый запрос в новом виртуальном потоке вместо пула из
+ * server.tomcat.threads.max платформенных потоков: поток, ждущий JDBC, не держит
+ * поток ОС. Одновременных запросов становится столько, сколько принял Tomcat
+ * (server.tomcat.max-connections), а в БД одновременно ходят не больше размера пула
+ * соединений. Включается свойством socks.threads.virtual=true.
+ * Драйвер PostgreSQL закреплен на 42.6+ (build.gradle): более ранние версии
+ * держат synchronized на время обмена с сокетом, и виртуальный поток, ждущий БД,
+ * занимает поток-носитель. Тот же эффект дают synchronized-блоки с вводом-выводом
+ * в остальных библиотеках, например в Hibernate, поэтому режим стоит проверять нагрузкой
+ * с -Djdk.tracePinnedThreads=short.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "socks.threads", name = "virtual", havingValue = "true")
+public class VirtualThreadsConfig implements DisposableBean {
+
+    private volatile ExecutorService httpExecutor;
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadsProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            httpExecutor = VirtualThreads.newThreadPerTaskExecutor("http-virtual-");
+            protocolHandler.setExecutor(httpExecutor);
+        };
+    }
+
+    /**
+     * Внешний исполнитель Tomcat не останавливает. Отдельным бином он не объявляется:
+     * бин типа Executor отключил бы applicationTaskExecutor Spring Boot.
+     */
+    @Override
+    public void destroy() {
+        if (httpExecutor != null) {
+            httpExecutor.shutdown();
+        }
+    }
+
+}
@@ -8,24 +8,52 @@ import org.springframework.web.multipart.MultipartFile;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import test.task.socks_service.entity.CottonPercentage;
 import test.task.socks_service.entity.Sock;
+import test.task.socks_service.entity.dto.BulkMovementResult;
+import test.task.socks_service.entity.dto.ImportJobResponse;
+import test.task.socks_service.entity.dto.SocksCountRequest;
+import test.task.socks_service.entity.dto.SocksCountResult;
 import test.task.socks_service.entity.dto.SocksPostRequest;
+import test.task.socks_service.entity.dto.SocksSliceResponse;
+import test.task.socks_service.entity.dto.SocksStatsResponse;
 import test.task.socks_service.entity.dto.SocksUpdateRequest;
+import test.task.socks_service.exception.InvalidCursorException;
+import test.task.socks_service.exception.InvalidSortException;
+import test.task.socks_service.exception.NoImportJobFoundException;
 import test.task.socks_service.exception.NoSocksFoundException;
+import test.task.socks_service.exception.StockHistoryException;
+import test.task.socks_service.service.ImportJobService;
 import test.task.socks_service.service.SocksService;
+import test.task.socks_service.service.exporter.SockExport;
+import test.task.socks_service.service.importer.ImportJob;
+import test.task.socks_service.service.importer.SockFileFormat;
 
 import java.io.IOException;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.List;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -33,13 +61,24 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
 @RestController
+@Validated
 @RequiredArgsConstructor
 @RequestMapping("/api/socks")
 @Tag(name = "Носки")
 public class SocksController {
 
     private static final Logger logger = LoggerFactory.getLogger(SocksController.class);
+    /**
+     * Наибольшее число позиций в одном списочном запросе: весь список обрабатывается
+     * в одной транзакции и держится в памяти вместе с ответом.
+     */
+    static final int MAX_LIST_SIZE = 1000;
+    /**
+     * Наибольший размер страницы /filter: страница читается из БД и отдается целиком.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
     private final SocksService socksService;
+    private final ImportJobService importJobService;
     
     @Operation(description = "Регистрация прихода носков")
     @PostMapping("/income")
@@ -48,7 +87,7 @@ public class SocksController {
         Sock sock = Sock.builder()
         .amount(request.getAmount())
         .color(request.getColor())
-        .cottonPercentage(request.getCottonPercentage())
+        .cottonBasisPoints(request.getCottonBasisPoints())
         .build();
         return ResponseEntity.status(HttpStatus.CREATED).body(this.socksService.incomeSock(sock));
     }
@@ -60,42 +99,108 @@ public class SocksController {
         Sock sock = Sock.builder()
         .amount(request.getAmount())
         .color(request.getColor())
-        .cottonPercentage(request.getCottonPercentage())
+        .cottonBasisPoints(request.getCottonBasisPoints())
         .build();
         return ResponseEntity.status(HttpStatus.CREATED).body(this.socksService.outcomeSock(sock));
     }
 
+    @Operation(description = "Регистрация прихода носков списком позиций в одной транзакции")
+    @PostMapping("/income/bulk")
+    public ResponseEntity<List<BulkMovementResult>> incomeSocksBulk(
+            @RequestBody @NotNull @Size(max = MAX_LIST_SIZE, message = "В списке может быть не больше {max} позиций")
+            List<@NotNull(message = "Позиция списка не может быть пустой") SocksPostRequest> requests) {
+        logger.info("Запрос на приход носков списком: {} позиций", requests.size());
+        return ResponseEntity.ok(this.socksService.incomeSocks(requests));
+    }
+
+    @Operation(description = "Регистрация отпуска носков списком позиций в одной транзакции")
+    @PostMapping("/outcome/bulk")
+    public ResponseEntity<List<BulkMovementResult>> outcomeSocksBulk(
+            @RequestBody @NotNull @Size(max = MAX_LIST_SIZE, message = "В списке может быть не больше {max} позиций")
+            List<@NotNull(message = "Позиция списка не может быть пустой") SocksPostRequest> requests) {
+        logger.info("Запрос на уход носков списком: {} позиций", requests.size());
+        return ResponseEntity.ok(this.socksService.outcomeSocks(requests));
+    }
+
     @Operation(description = "Обновление данных носков")
     @PutMapping("/{id}")
     public ResponseEntity<Sock> updateSocks(@PathVariable Long id,
      @RequestBody @Valid SocksUpdateRequest request) throws NoSocksFoundException{
         logger.info("Запрос на обновление носков с ID: {}", id);
         return ResponseEntity.status(HttpStatus.OK).body(this.socksService.updateSock(
-            request.getColor(), request.getCottonPercentage(), id));
+            request.getColor(), request.getCottonBasisPoints(), id));
     }
 
-    @Operation(description = "Получение общего количества носков с фильтрацией")
+    @Operation(description = "Получение общего количества носков с фильтрацией. "
+            + "С параметром asOf - количество на указанный момент, только в режиме ledger")
     @GetMapping
     public ResponseEntity<Integer> getAmountOfSocks(
             @RequestParam String color,
             @RequestParam @PositiveOrZero(message = "Содержание хлопка не может быть отрицательным")
             @Max(value = 100, message = "Содержание хлопка не может быть больше 100%") Double cottonPercentage,
-            @RequestParam @Nullable String operator) throws NoSocksFoundException{
-        Integer amount = this.socksService.getAmountOfSocks(color, cottonPercentage, operator);
+            @RequestParam @Nullable @Pattern(regexp = "moreThan|lessThan|equal", message = "Оператор сравнения должен быть moreThan, lessThan или equal") String operator,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) throws NoSocksFoundException, StockHistoryException {
+        Integer amount = this.socksService.getAmountOfSocks(color, CottonPercentage.toBasisPoints(cottonPercentage), operator, asOf);
         logger.info("Запрос на получение количества носков с фильтрацией: {}", amount);
         return ResponseEntity.ok(amount);
     }
 
+    @Operation(description = "Остатки носков по цветам и диапазонам процента хлопка шириной bucketWidth одним запросом")
+    @GetMapping("/stats")
+    public ResponseEntity<SocksStatsResponse> getStats(
+            @RequestParam(required = false) Double minCotton,
+            @RequestParam(required = false) Double maxCotton,
+            @RequestParam(required = false) String color,
+            @RequestParam(defaultValue = "10")
+            @DecimalMin(value = "0.01", message = "Ширина диапазона процента хлопка должна быть от 0.01 до 100")
+            @DecimalMax(value = "100", message = "Ширина диапазона процента хлопка должна быть от 0.01 до 100") Double bucketWidth) {
+        logger.info("Запрос статистики остатков носков, ширина диапазона {}%", bucketWidth);
+        return ResponseEntity.ok(this.socksService.getStats(CottonPercentage.toBasisPoints(minCotton), CottonPercentage.toBasisPoints(maxCotton), color, CottonPercentage.toBasisPoints(bucketWidth)));
+    }
+
+    @Operation(description = "Выгрузка носков в CSV или Excel с фильтрацией и сортировкой как в /filter. "
+            + "Строки пишутся в ответ по мере чтения из БД")
+    @GetMapping("/export")
+    public void exportSocks(
+            @RequestParam(required = false) Double minCotton,
+            @RequestParam(required = false) Double maxCotton,
+            @RequestParam(required = false) String color,
+            @RequestParam(defaultValue = "cottonPercentage") String sortField,
+            @RequestParam(defaultValue = "asc") String sortDirection,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException, InvalidSortException {
+        logger.info("Запрос на выгрузку носков в формате {}", format);
+        SockFileFormat fileFormat = SockFileFormat.ofName(format);
+        SockExport export = this.socksService.exportSocks(CottonPercentage.toBasisPoints(minCotton), CottonPercentage.toBasisPoints(maxCotton), color, sortField, sortDirection, fileFormat);
+        response.setContentType(fileFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"socks" + fileFormat.getExtension() + "\"");
+        export.writeTo(response.getOutputStream());
+    }
+
+    @Operation(description = "Количество носков по списку условий (цвет, оператор, процент хлопка) одним запросом. "
+            + "Отсутствие носков возвращается как 0")
+    @PostMapping("/count")
+    public ResponseEntity<List<SocksCountResult>> countSocks(
+            @RequestBody @NotNull @Size(max = MAX_LIST_SIZE, message = "В списке может быть не больше {max} условий")
+            List<@NotNull(message = "Условие списка не может быть пустым") SocksCountRequest> requests) {
+        logger.info("Запрос на получение количества носков по списку условий: {} условий", requests.size());
+        return ResponseEntity.ok(this.socksService.countSocks(requests));
+    }
+
     @Operation(description = "Загрузка партий носков из Excel или CSV файла")
     @PostMapping("/batch")
-    public ResponseEntity<String> batchSocks(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<ImportJobResponse> batchSocks(@RequestParam("file") MultipartFile file) throws IOException {
         logger.info("Запрос на загрузку партии носков из файла: {}", file.getOriginalFilename());
-        try {
-            this.socksService.processSocksFile(file);
-            return ResponseEntity.status(HttpStatus.CREATED).body("Партия носков успешно загружена.");
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Ошибка при загрузке файла: " + e.getMessage());
-        }
+        ImportJob job = this.importJobService.submit(file);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+        .location(URI.create("/api/socks/batch/" + job.getId()))
+        .body(ImportJobResponse.of(job));
+    }
+
+    @Operation(description = "Получение состояния загрузки партии носков")
+    @GetMapping("/batch/{jobId}")
+    public ResponseEntity<ImportJobResponse> batchStatus(@PathVariable String jobId) throws NoImportJobFoundException {
+        return ResponseEntity.ok(ImportJobResponse.of(this.importJobService.getJob(jobId)));
     }
 
     @Operation(description = "Запрос на получение количества носков с дополнительной возможностью фильтрации")
@@ -104,12 +209,31 @@ public class SocksController {
             @RequestParam(required = false) Double minCotton,
             @RequestParam(required = false) Double maxCotton,
             @RequestParam(required = false) String color,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "0") @PositiveOrZero(message = "Номер страницы не может быть отрицательным") int page,
+            @RequestParam(defaultValue = "10") @Min(value = 1, message = "Размер страницы должен быть не меньше 1")
+            @Max(value = MAX_PAGE_SIZE, message = "Размер страницы должен быть не больше {value}") int size,
             @RequestParam(defaultValue = "cottonPercentage") String sortField,
-            @RequestParam(defaultValue = "asc") String sortDirection) {
+            @RequestParam(defaultValue = "asc") String sortDirection,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) throws StockHistoryException {
         
-        return socksService.getFilteredAndSortedSocks(minCotton, maxCotton, color, page, size, sortField, sortDirection);
+        return socksService.getFilteredAndSortedSocks(CottonPercentage.toBasisPoints(minCotton), CottonPercentage.toBasisPoints(maxCotton), color, page, size, sortField, sortDirection, asOf);
     }
-    
+
+    @Operation(description = "Чтение носков с фильтрацией по курсору, без подсчета общего количества. "
+            + "Первая порция запрашивается с пустым cursor, следующие - с nextCursor из ответа")
+    @GetMapping(value = "/filter", params = "cursor")
+    public SocksSliceResponse filterSocksByCursor(
+            @RequestParam(required = false) Double minCotton,
+            @RequestParam(required = false) Double maxCotton,
+            @RequestParam(required = false) String color,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") @Min(value = 1, message = "Размер страницы должен быть не меньше 1")
+            @Max(value = MAX_PAGE_SIZE, message = "Размер страницы должен быть не больше {value}") int size,
+            @RequestParam(defaultValue = "cottonPercentage") String sortField,
+            @RequestParam(defaultValue = "asc") String sortDirection,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) throws InvalidCursorException, StockHistoryException {
+
+        return socksService.getFilteredAndSortedSocks(CottonPercentage.toBasisPoints(minCotton), CottonPercentage.toBasisPoints(maxCotton), color, cursor, size, sortField, sortDirection, asOf);
+    }
+
 }
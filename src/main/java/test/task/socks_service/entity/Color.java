@@ -0,0 +1,28 @@
+package test.task.socks_service.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Строка справочника colors. Только для чтения: справочник пополняет
+ * {@link test.task.socks_service.service.color.ColorDictionary}.
+ */
+@NoArgsConstructor
+@Getter
+@Table(name = "colors")
+@Entity
+public class Color {
+
+    @Id
+    @Column(name = "id", insertable = false, updatable = false)
+    private Short id;
+
+    @Column(name = "name", insertable = false, updatable = false)
+    private String name;
+
+}
@@ -0,0 +1,39 @@
+package test.task.socks_service.entity;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import test.task.socks_service.service.color.ColorDictionary;
+
+/**
+ * Хранит цвет носков как id из справочника colors. Цвета, которого нет в справочнике,
+ * не существует ни в одной записи, поэтому для него подставляется id, не совпадающий
+ * ни с одной строкой: фильтр по такому цвету просто ничего не находит. Новые цвета
+ * нужно добавить в справочник до записи носков.
+ */
+@Component
+@Converter
+@RequiredArgsConstructor
+public class ColorConverter implements AttributeConverter<String, Short> {
+
+    private static final short UNKNOWN = -1;
+    private final ColorDictionary colorDictionary;
+
+    @Override
+    public Short convertToDatabaseColumn(String color) {
+        if (color == null) {
+            return null;
+        }
+        Short id = colorDictionary.idOf(color);
+        return id != null ? id : UNKNOWN;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short id) {
+        return id == null ? null : colorDictionary.nameOf(id);
+    }
+
+}
@@ -0,0 +1,89 @@
+package test.task.socks_service.entity;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+
+import test.task.socks_service.exception.InvalidCottonPercentageException;
+
+/**
+ * Процент хлопка с фиксированной точкой: внутри приложения и в БД хранится целое число
+ * сотых долей процента (75.5% = 7550), в API и файлах импорта - привычные проценты.
+ * Значения с более чем двумя знаками после запятой не округляются, а отклоняются.
+ */
+public final class CottonPercentage {
+
+    public static final int MAX_BASIS_POINTS = 10_000;
+
+    private CottonPercentage() {
+    }
+
+    public static int toBasisPoints(double percent) {
+        return toBasisPoints(BigDecimal.valueOf(percent));
+    }
+
+    public static Integer toBasisPoints(Double percent) {
+        return percent == null ? null : toBasisPoints(percent.doubleValue());
+    }
+
+    public static int parse(String percent) {
+        return toBasisPoints(new BigDecimal(percent.trim()));
+    }
+
+    public static int toBasisPoints(BigDecimal percent) {
+        try {
+            return percent.movePointRight(2).intValueExact();
+        } catch (ArithmeticException e) {
+            throw new InvalidCottonPercentageException("Процент хлопка указывается не более чем с двумя знаками после запятой: "
+                    + percent.toPlainString(), e);
+        }
+    }
+
+    public static double toPercent(int basisPoints) {
+        return basisPoints / 100.0;
+    }
+
+    /**
+     * Процент в виде строки без лишних нулей: 7550 -> "75.5", 8000 -> "80", 5 -> "0.05".
+     */
+    public static String format(int basisPoints) {
+        int whole = basisPoints / 100;
+        int fraction = basisPoints % 100;
+        if (fraction == 0) {
+            return Integer.toString(whole);
+        }
+        if (fraction % 10 == 0) {
+            return whole + "." + fraction / 10;
+        }
+        return whole + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    public static class Serializer extends JsonSerializer<Integer> {
+
+        @Override
+        public void serialize(Integer basisPoints, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeNumber(toPercent(basisPoints));
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<Integer> {
+
+        @Override
+        public Integer deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            BigDecimal percent = parser.getDecimalValue();
+            try {
+                return toBasisPoints(percent);
+            } catch (InvalidCottonPercentageException e) {
+                throw InvalidFormatException.from(parser, e.getMessage(), percent, Integer.class);
+            }
+        }
+    }
+
+}
@@ -1,25 +1,32 @@
 package test.task.socks_service.entity;
 
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
 
 
-@AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
-@Builder
-@Table(name = "socks")
+@Table(name = "socks", uniqueConstraints = @UniqueConstraint(name = "uq_socks_color_cotton", columnNames = {"color_id", "cotton_basis_points"}))
 @Entity
 public class Sock {
 
@@ -27,13 +34,37 @@ public class Sock {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "color", nullable = false)
+    @Convert(converter = ColorConverter.class)
+    @Column(name = "color_id", nullable = false)
     private String color;
 
-    @Column(name = "cotton_percentage")
-    private Double cottonPercentage;
+    /**
+     * Процент хлопка в сотых долях процента, см. {@link CottonPercentage}.
+     */
+    @JsonProperty("cottonPercentage")
+    @JsonSerialize(using = CottonPercentage.Serializer.class)
+    @JsonDeserialize(using = CottonPercentage.Deserializer.class)
+    @Column(name = "cotton_basis_points", nullable = false)
+    private int cottonBasisPoints;
 
     @Column(name = "amount")
     private Integer amount;
 
+    /**
+     * Запись справочника для цвета: по ней сортировка по цвету идет по названию,
+     * а не по id цвета. Цвет задается только через {@link #color}.
+     */
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "color_id", insertable = false, updatable = false)
+    private Color colorEntry;
+
+    @Builder
+    public Sock(Long id, String color, int cottonBasisPoints, Integer amount) {
+        this.id = id;
+        this.color = color;
+        this.cottonBasisPoints = cottonBasisPoints;
+        this.amount = amount;
+    }
+
 }
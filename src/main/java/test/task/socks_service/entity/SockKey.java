@@ -0,0 +1,24 @@
+package test.task.socks_service.entity;
+
+import lombok.Value;
+
+/**
+ * Артикул носков: пара (цвет, процент хлопка), по которой ведется остаток.
+ */
+@Value
+public class SockKey implements Comparable<SockKey> {
+
+    String color;
+    int cottonBasisPoints;
+
+    public static SockKey of(Sock sock) {
+        return new SockKey(sock.getColor(), sock.getCottonBasisPoints());
+    }
+
+    @Override
+    public int compareTo(SockKey other) {
+        int result = color.compareTo(other.color);
+        return result != 0 ? result : Integer.compare(cottonBasisPoints, other.cottonBasisPoints);
+    }
+
+}
@@ -0,0 +1,80 @@
+package test.task.socks_service.entity.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import test.task.socks_service.entity.CottonPercentage;
+import test.task.socks_service.entity.Sock;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder(toBuilder = true)
+@Schema(name = "Результат обработки позиции списка прихода/ухода носков")
+public class BulkMovementResult {
+
+    public enum Status {
+        APPLIED,
+        REJECTED
+    }
+
+    @Schema(description = "Номер позиции в запросе, начиная с 0", example = "0")
+    private int index;
+
+    @Schema(description = "Цвет носков", example = "Красный")
+    private String color;
+
+    @Schema(description = "Процент хлопка в носках", example = "75.0", type = "number")
+    @JsonProperty("cottonPercentage")
+    @JsonSerialize(using = CottonPercentage.Serializer.class)
+    private Integer cottonBasisPoints;
+
+    @Schema(description = "Количество носков", example = "100")
+    private Integer amount;
+
+    @Schema(description = "Статус позиции", example = "APPLIED")
+    private Status status;
+
+    @Schema(description = "Причина отказа")
+    private String error;
+
+    public static BulkMovementResult applied(int index, Sock sock) {
+        return of(index, sock, Status.APPLIED, null);
+    }
+
+    public static BulkMovementResult rejected(int index, Sock sock, String error) {
+        return of(index, sock, Status.REJECTED, error);
+    }
+
+    /**
+     * Позиция отклонена до записи: поля возвращаются как пришли в запросе и могут быть не заполнены.
+     */
+    public static BulkMovementResult rejected(int index, SocksPostRequest request, String error) {
+        return BulkMovementResult.builder()
+        .index(index)
+        .color(request.getColor())
+        .cottonBasisPoints(request.getCottonBasisPoints())
+        .amount(request.getAmount())
+        .status(Status.REJECTED)
+        .error(error)
+        .build();
+    }
+
+    private static BulkMovementResult of(int index, Sock sock, Status status, String error) {
+        return BulkMovementResult.builder()
+        .index(index)
+        .color(sock.getColor())
+        .cottonBasisPoints(sock.getCottonBasisPoints())
+        .amount(sock.getAmount())
+        .status(status)
+        .error(error)
+        .build();
+    }
+}
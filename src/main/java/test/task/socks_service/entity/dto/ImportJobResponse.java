@@ -0,0 +1,66 @@
+package test.task.socks_service.entity.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import test.task.socks_service.service.importer.ImportJob;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@Schema(name = "Состояние задачи загрузки партии носков")
+public class ImportJobResponse {
+
+    @Schema(description = "Идентификатор задачи")
+    private String jobId;
+
+    @Schema(description = "Имя загруженного файла", example = "socks.csv")
+    private String fileName;
+
+    @Schema(description = "Статус задачи", example = "RUNNING")
+    private ImportJob.Status status;
+
+    @Schema(description = "Прочитано строк файла", example = "150000")
+    private long rowsParsed;
+
+    @Schema(description = "Записано в БД строк файла", example = "100000")
+    private long rowsCommitted;
+
+    @Schema(description = "Скорость обработки, строк в секунду", example = "52000.0")
+    private double rowsPerSecond;
+
+    @Schema(description = "Ошибки обработки")
+    private List<String> errors;
+
+    @Schema(description = "Время создания задачи")
+    private Instant createdAt;
+
+    @Schema(description = "Время начала обработки")
+    private Instant startedAt;
+
+    @Schema(description = "Время окончания обработки")
+    private Instant finishedAt;
+
+    public static ImportJobResponse of(ImportJob job) {
+        return ImportJobResponse.builder()
+        .jobId(job.getId())
+        .fileName(job.getFileName())
+        .status(job.getStatus())
+        .rowsParsed(job.getRowsParsed())
+        .rowsCommitted(job.getRowsCommitted())
+        .rowsPerSecond(job.getRowsPerSecond())
+        .errors(List.copyOf(job.getErrors()))
+        .createdAt(job.getCreatedAt())
+        .startedAt(job.getStartedAt())
+        .finishedAt(job.getFinishedAt())
+        .build();
+    }
+}
@@ -0,0 +1,34 @@
+package test.task.socks_service.entity.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import test.task.socks_service.entity.CottonPercentage;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@Schema(name = "Условие подсчета носков")
+public class SocksCountRequest {
+
+    @Schema(description = "Цвет носков", example = "Красный")
+    private String color;
+
+    @Schema(description = "Оператор сравнения процента хлопка: moreThan, lessThan или equal", example = "moreThan")
+    private String operator;
+
+    @Schema(description = "Порог процента хлопка, не более двух знаков после запятой", example = "75.0", type = "number")
+    @JsonProperty("cottonPercentage")
+    @JsonSerialize(using = CottonPercentage.Serializer.class)
+    @JsonDeserialize(using = CottonPercentage.Deserializer.class)
+    private Integer cottonBasisPoints;
+}
@@ -0,0 +1,63 @@
+package test.task.socks_service.entity.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import test.task.socks_service.entity.CottonPercentage;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@Schema(name = "Результат подсчета носков по условию")
+public class SocksCountResult {
+
+    @Schema(description = "Номер условия в запросе, начиная с 0", example = "0")
+    private int index;
+
+    @Schema(description = "Цвет носков", example = "Красный")
+    private String color;
+
+    @Schema(description = "Оператор сравнения процента хлопка", example = "moreThan")
+    private String operator;
+
+    @Schema(description = "Порог процента хлопка", example = "75.0", type = "number")
+    @JsonProperty("cottonPercentage")
+    @JsonSerialize(using = CottonPercentage.Serializer.class)
+    private Integer cottonBasisPoints;
+
+    @Schema(description = "Количество носков, 0 если по условию ничего нет", example = "100")
+    private Long amount;
+
+    @Schema(description = "Причина, по которой условие не посчитано")
+    private String error;
+
+    public static SocksCountResult counted(int index, SocksCountRequest request, long amount) {
+        return of(index, request, amount, null);
+    }
+
+    /**
+     * Условие не посчитано: поля возвращаются как пришли в запросе и могут быть не заполнены.
+     */
+    public static SocksCountResult rejected(int index, SocksCountRequest request, String error) {
+        return of(index, request, null, error);
+    }
+
+    private static SocksCountResult of(int index, SocksCountRequest request, Long amount, String error) {
+        return SocksCountResult.builder()
+        .index(index)
+        .color(request.getColor())
+        .operator(request.getOperator())
+        .cottonBasisPoints(request.getCottonBasisPoints())
+        .amount(amount)
+        .error(error)
+        .build();
+    }
+}
@@ -1,15 +1,22 @@
 package test.task.socks_service.entity.dto;
 
 import javax.validation.constraints.Max;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import test.task.socks_service.entity.CottonPercentage;
 
 @AllArgsConstructor
 @NoArgsConstructor
@@ -20,14 +27,20 @@ import lombok.Setter;
 public class SocksPostRequest {
 
     @Schema(description = "Цвет носков", example = "Красный")
+    @NotBlank(message = "Цвет носков должен быть указан")
     private String color;
 
-    @Schema(description = "Процент хлопка в носках", example = "75.0")
-    @Max(value = 100, message = "Процент хлопка не может быть  больше 100")
+    @Schema(description = "Процент хлопка в носках, не более двух знаков после запятой", example = "75.0", type = "number")
+    @JsonProperty("cottonPercentage")
+    @JsonSerialize(using = CottonPercentage.Serializer.class)
+    @JsonDeserialize(using = CottonPercentage.Deserializer.class)
+    @Max(value = CottonPercentage.MAX_BASIS_POINTS, message = "Процент хлопка не может быть  больше 100")
     @PositiveOrZero(message = "Процент хлопка не может быть отрицательным числом")
-    private Double cottonPercentage;
+    @NotNull(message = "Процент хлопка должен быть указан")
+    private Integer cottonBasisPoints;
 
     @Schema(description = "Количество носков", example = "100")
     @Positive(message = "Количество носков должно быть положительным числом")
+    @NotNull(message = "Количество носков должно быть указано")
     private Integer amount;
 }
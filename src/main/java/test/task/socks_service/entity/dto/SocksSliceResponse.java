@@ -0,0 +1,32 @@
+package test.task.socks_service.entity.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import test.task.socks_service.entity.Sock;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@Schema(name = "Порция носков при чтении по курсору")
+public class SocksSliceResponse {
+
+    @Schema(description = "Носки порции")
+    private List<Sock> content;
+
+    @Schema(description = "Размер порции", example = "10")
+    private int size;
+
+    @Schema(description = "Есть ли следующая порция")
+    private boolean hasNext;
+
+    @Schema(description = "Курсор следующей порции, передается в параметре cursor")
+    private String nextCursor;
+}
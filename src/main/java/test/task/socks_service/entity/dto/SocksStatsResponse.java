@@ -0,0 +1,69 @@
+package test.task.socks_service.entity.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import test.task.socks_service.entity.CottonPercentage;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@Schema(name = "Остатки носков по цветам и диапазонам процента хлопка")
+public class SocksStatsResponse {
+
+    @JsonProperty("bucketWidth")
+    @JsonSerialize(using = CottonPercentage.Serializer.class)
+    @Schema(description = "Ширина диапазона процента хлопка", example = "10")
+    private Integer bucketWidthBasisPoints;
+
+    @Schema(description = "Всего носков по фильтру", example = "1500")
+    private long totalAmount;
+
+    @Schema(description = "Остатки по цветам в алфавитном порядке")
+    private List<ColorStats> colors;
+
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    @Schema(name = "Остатки носков одного цвета")
+    public static class ColorStats {
+
+        @Schema(description = "Цвет", example = "red")
+        private String color;
+
+        @Schema(description = "Всего носков цвета", example = "700")
+        private long amount;
+
+        @Schema(description = "Остатки по диапазонам процента хлопка, только непустые")
+        private List<CottonBucket> buckets;
+    }
+
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Getter
+    @Setter
+    @Builder
+    @Schema(name = "Остаток носков в диапазоне процента хлопка")
+    public static class CottonBucket {
+
+        @JsonProperty("cottonFrom")
+        @JsonSerialize(using = CottonPercentage.Serializer.class)
+        @Schema(description = "Начало диапазона, включительно. Диапазон заканчивается перед cottonFrom + bucketWidth", example = "70")
+        private Integer cottonFromBasisPoints;
+
+        @Schema(description = "Носков в диапазоне", example = "300")
+        private long amount;
+    }
+}
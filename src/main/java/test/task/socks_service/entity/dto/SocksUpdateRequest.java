@@ -1,14 +1,21 @@
 package test.task.socks_service.entity.dto;
 
 import javax.validation.constraints.Max;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
 import javax.validation.constraints.PositiveOrZero;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import test.task.socks_service.entity.CottonPercentage;
 
 @AllArgsConstructor
 @NoArgsConstructor
@@ -19,11 +26,16 @@ import lombok.Setter;
 public class SocksUpdateRequest {
 
     @Schema(description = "Цвет носков", example = "Красный")
+    @NotBlank(message = "Цвет носков должен быть указан")
     private String color;
 
-    @Schema(description = "Процент хлопка в носках", example = "75.0")
+    @Schema(description = "Процент хлопка в носках, не более двух знаков после запятой", example = "75.0", type = "number")
+    @JsonProperty("cottonPercentage")
+    @JsonSerialize(using = CottonPercentage.Serializer.class)
+    @JsonDeserialize(using = CottonPercentage.Deserializer.class)
+    @Max(value = CottonPercentage.MAX_BASIS_POINTS, message = "Процент хлопка не может быть  больше 100")
     @PositiveOrZero(message = "Процент хлопка не может быть отрицательным числом")
-    @Max(value = 100, message = "Процент хлопка не может быть  больше 100")
-    private Double cottonPercentage;
+    @NotNull(message = "Процент хлопка должен быть указан")
+    private Integer cottonBasisPoints;
 
 }
@@ -0,0 +1,12 @@
+package test.task.socks_service.exception;
+
+/**
+ * Процент хлопка, который нельзя перевести в сотые доли процента без округления.
+ */
+public class InvalidCottonPercentageException extends IllegalArgumentException {
+
+    public InvalidCottonPercentageException(String errorMessage, Throwable cause) {
+        super(errorMessage, cause);
+    }
+
+}
@@ -0,0 +1,7 @@
+package test.task.socks_service.exception;
+
+public class InvalidCursorException extends Exception {
+    public InvalidCursorException(String errorMessage) {
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,7 @@
+package test.task.socks_service.exception;
+
+public class InvalidSortException extends Exception {
+    public InvalidSortException(String errorMessage) {
+        super(errorMessage);
+    }
+}
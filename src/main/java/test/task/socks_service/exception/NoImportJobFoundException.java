@@ -0,0 +1,7 @@
+package test.task.socks_service.exception;
+
+public class NoImportJobFoundException extends Exception {
+    public NoImportJobFoundException(String errorMessage) {
+        super(errorMessage);
+    }
+}
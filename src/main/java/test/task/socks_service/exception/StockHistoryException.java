@@ -0,0 +1,9 @@
+package test.task.socks_service.exception;
+
+public class StockHistoryException extends Exception {
+
+    public StockHistoryException(String errorMessage) {
+        super(errorMessage);
+    }
+
+}
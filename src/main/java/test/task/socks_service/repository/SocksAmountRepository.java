@@ -0,0 +1,28 @@
+package test.task.socks_service.repository;
+
+import java.util.Optional;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import test.task.socks_service.entity.Sock;
+
+/**
+ * Изменение остатка одним запросом с возвратом измененной строки. Такие запросы нельзя
+ * объявить через @Query: @Modifying допускает только void или int, а без него update
+ * выполняется как обычный select, мимо сброса и очистки контекста сохранения.
+ */
+public interface SocksAmountRepository {
+
+    /**
+     * Добавляет amount к остатку артикула, создает строку, если ее еще нет.
+     */
+    @Transactional
+    Sock increaseAmount(Short colorId, int cottonBasisPoints, Integer amount);
+
+    /**
+     * Списывает amount с остатка артикула. Пусто, если артикула нет или остатка не хватает.
+     */
+    @Transactional
+    Optional<Sock> decreaseAmount(Short colorId, int cottonBasisPoints, Integer amount);
+
+}
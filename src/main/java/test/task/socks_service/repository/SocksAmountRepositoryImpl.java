@@ -0,0 +1,47 @@
+package test.task.socks_service.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import test.task.socks_service.entity.Sock;
+
+public class SocksAmountRepositoryImpl implements SocksAmountRepository {
+
+    private static final String INCREASE_SQL = "insert into socks (color_id, cotton_basis_points, amount) values (:colorId, :cottonBasisPoints, :amount) "
+            + "on conflict (color_id, cotton_basis_points) do update set amount = socks.amount + excluded.amount returning *";
+    private static final String DECREASE_SQL = "update socks set amount = amount - :amount "
+            + "where color_id = :colorId and cotton_basis_points = :cottonBasisPoints and amount >= :amount returning *";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Sock increaseAmount(Short colorId, int cottonBasisPoints, Integer amount) {
+        return changeAmount(INCREASE_SQL, colorId, cottonBasisPoints, amount).get(0);
+    }
+
+    @Override
+    public Optional<Sock> decreaseAmount(Short colorId, int cottonBasisPoints, Integer amount) {
+        return changeAmount(DECREASE_SQL, colorId, cottonBasisPoints, amount).stream().findFirst();
+    }
+
+    /**
+     * То же, что @Modifying(flushAutomatically = true, clearAutomatically = true): несохраненные
+     * изменения уходят в БД до запроса, а загруженные ранее носки не подменяют собой
+     * возвращенную запросом строку со старым остатком.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Sock> changeAmount(String sql, Short colorId, int cottonBasisPoints, Integer amount) {
+        entityManager.flush();
+        entityManager.clear();
+        return entityManager.createNativeQuery(sql, Sock.class)
+            .setParameter("colorId", colorId)
+            .setParameter("cottonBasisPoints", cottonBasisPoints)
+            .setParameter("amount", amount)
+            .getResultList();
+    }
+
+}
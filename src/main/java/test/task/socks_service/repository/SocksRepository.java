@@ -10,19 +10,29 @@ import org.springframework.stereotype.Repository;
 
 import test.task.socks_service.entity.Sock;
 
+/**
+ * Суммы остатков считаются по снимку socks и несвернутому хвосту журнала stock_movements,
+ * который пишется только в режиме socks.stock.write-mode=ledger.
+ */
 @Repository
-public interface SocksRepository extends JpaRepository<Sock, Long>, JpaSpecificationExecutor<Sock> {
+public interface SocksRepository extends JpaRepository<Sock, Long>, JpaSpecificationExecutor<Sock>, SocksSliceRepository,
+        SocksAmountRepository {
 
-    @Query(value = "select * from socks where color = :color and cotton_percentage = :cottonPercentage", nativeQuery = true)
-    Optional<Sock> findByColorAndCottonPercentage(@Param("color") String color, @Param("cottonPercentage") Double cottonPercentage);
+    @Query(value = "select * from socks where color_id = :colorId and cotton_basis_points = :cottonBasisPoints", nativeQuery = true)
+    Optional<Sock> findByColorIdAndCottonBasisPoints(@Param("colorId") Short colorId, @Param("cottonBasisPoints") int cottonBasisPoints);
 
-    @Query(value = "select sum(amount) from socks where color = :color and cotton_percentage > :cottonPercentage", nativeQuery = true)
-    Integer countSocksByColorAndCottonPercentageGreaterThan(@Param("color") String color, @Param("cottonPercentage") Double cottonPercentage);
+    boolean existsByColorAndCottonBasisPoints(String color, int cottonBasisPoints);
 
-    @Query(value = "select sum(amount) from socks where color = :color and cotton_percentage < :cottonPercentage", nativeQuery = true)
-    Integer countSocksByColorAndCottonPercentageLessThan(@Param("color") String color, @Param("cottonPercentage") Double cottonPercentage);
+    @Query(value = "select sum(amount) from (select amount from socks where color_id = :colorId and cotton_basis_points > :cottonBasisPoints "
+            + "union all select delta from stock_movements where not folded and color_id = :colorId and cotton_basis_points > :cottonBasisPoints) stock", nativeQuery = true)
+    Integer countSocksByColorIdAndCottonBasisPointsGreaterThan(@Param("colorId") Short colorId, @Param("cottonBasisPoints") int cottonBasisPoints);
 
-    @Query(value = "select sum(amount) from socks where color = :color and cotton_percentage = :cottonPercentage", nativeQuery = true)
-    Integer countSocksByColorAndCottonPercentageEqual(@Param("color") String color, @Param("cottonPercentage") Double cottonPercentage);
+    @Query(value = "select sum(amount) from (select amount from socks where color_id = :colorId and cotton_basis_points < :cottonBasisPoints "
+            + "union all select delta from stock_movements where not folded and color_id = :colorId and cotton_basis_points < :cottonBasisPoints) stock", nativeQuery = true)
+    Integer countSocksByColorIdAndCottonBasisPointsLessThan(@Param("colorId") Short colorId, @Param("cottonBasisPoints") int cottonBasisPoints);
+
+    @Query(value = "select sum(amount) from (select amount from socks where color_id = :colorId and cotton_basis_points = :cottonBasisPoints "
+            + "union all select delta from stock_movements where not folded and color_id = :colorId and cotton_basis_points = :cottonBasisPoints) stock", nativeQuery = true)
+    Integer countSocksByColorIdAndCottonBasisPointsEqual(@Param("colorId") Short colorId, @Param("cottonBasisPoints") int cottonBasisPoints);
 
 }
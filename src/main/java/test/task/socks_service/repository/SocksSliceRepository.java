@@ -0,0 +1,16 @@
+package test.task.socks_service.repository;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import test.task.socks_service.entity.Sock;
+
+public interface SocksSliceRepository {
+
+    /**
+     * Первые size записей по спецификации без запроса общего количества.
+     */
+    Slice<Sock> findSlice(Specification<Sock> spec, Sort sort, int size);
+
+}
@@ -1,32 +1,66 @@
 package test.task.socks_service.service;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
-import javax.transaction.Transactional;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import test.task.socks_service.entity.CottonPercentage;
 import test.task.socks_service.entity.Sock;
-import test.task.socks_service.exception.NoEnoughSocksException;
+import test.task.socks_service.entity.SockKey;
+import test.task.socks_service.entity.dto.BulkMovementResult;
+import test.task.socks_service.entity.dto.SocksCountRequest;
+import test.task.socks_service.entity.dto.SocksCountResult;
+import test.task.socks_service.entity.dto.SocksPostRequest;
+import test.task.socks_service.entity.dto.SocksSliceResponse;
+import test.task.socks_service.entity.dto.SocksStatsResponse;
+import test.task.socks_service.exception.InvalidCursorException;
+import test.task.socks_service.exception.InvalidSortException;
 import test.task.socks_service.exception.NoSocksFoundException;
+import test.task.socks_service.exception.StockHistoryException;
 import test.task.socks_service.repository.SocksRepository;
+import test.task.socks_service.service.color.ColorDictionary;
+import test.task.socks_service.service.exporter.SockExport;
+import test.task.socks_service.service.exporter.SockExporter;
+import test.task.socks_service.service.importer.CsvSockReader;
+import test.task.socks_service.service.importer.ImportProgressListener;
+import test.task.socks_service.service.importer.SockFileFormat;
+import test.task.socks_service.service.importer.SockImportBatch;
+import test.task.socks_service.service.importer.SockImportWriter;
+import test.task.socks_service.service.importer.XlsxSockReader;
+import test.task.socks_service.service.stock.StockCountCache;
+import test.task.socks_service.service.stock.StockHistory;
+import test.task.socks_service.service.stock.StockIndex;
+import test.task.socks_service.service.stock.StockStatistics;
+import test.task.socks_service.service.stock.StockWriter;
+import test.task.socks_service.specification.SockCursor;
 import test.task.socks_service.specification.SockSpecification;
 
 @Service
@@ -34,53 +68,119 @@ import test.task.socks_service.specification.SockSpecification;
 public class CustomSockService implements SocksService {
     
     private static final Logger logger = LoggerFactory.getLogger(CustomSockService.class);
+    private static final String SERVICE_TIMER = "socks.service";
+    private static final String IMPORT_STAGE_TIMER = "socks.import.stage";
     private final SocksRepository socksRepository;
+    private final XlsxSockReader xlsxSockReader;
+    private final CsvSockReader csvSockReader;
+    private final SockImportWriter sockImportWriter;
+    private final StockIndex stockIndex;
+    private final StockCountCache stockCountCache;
+    private final ColorDictionary colorDictionary;
+    private final StockWriter stockWriter;
+    private final StockHistory stockHistory;
+    private final SockExporter sockExporter;
+    private final StockStatistics stockStatistics;
+    private final Validator validator;
+    private final MeterRegistry meterRegistry;
 
     @Override
-    @Transactional
+    @Timed(SERVICE_TIMER)
     public Sock incomeSock(Sock sock) {
         logger.info("Приход носков: {}", sock);
-        Optional<Sock> sockOptional = this.socksRepository.findByColorAndCottonPercentage(sock.getColor(), sock.getCottonPercentage());
-        if (sockOptional.isPresent()) {
-            sockOptional.get().setAmount(sockOptional.get().getAmount() + sock.getAmount());
-            return sockOptional.get();
-        } else {
-            return this.socksRepository.save(sock);
-        }
-        
+        sock.setColor(ColorDictionary.normalize(sock.getColor()));
+        return this.stockWriter.income(sock);
     }
 
     @Override
-    @Transactional
+    @Timed(SERVICE_TIMER)
     public Sock outcomeSock(Sock sock) throws Exception {
         logger.info("Отпуск носков: {}", sock);
-        Optional<Sock> sockOptional = this.socksRepository.findByColorAndCottonPercentage(sock.getColor(), sock.getCottonPercentage());
-        if (!sockOptional.isPresent()) {
-            throw new NoSocksFoundException("На складе не найдено носков данного типа");
-        } else if (sockOptional.get().getAmount() < sock.getAmount()) {
-            throw new NoEnoughSocksException("На складе недостаточно носков данного типа");
-        } else {
-            sockOptional.get().setAmount(sockOptional.get().getAmount() - sock.getAmount());
-            return sockOptional.get();
+        sock.setColor(ColorDictionary.normalize(sock.getColor()));
+        return this.stockWriter.outcome(sock);
+    }
+
+    @Override
+    @Timed(SERVICE_TIMER)
+    public List<BulkMovementResult> incomeSocks(List<SocksPostRequest> requests) {
+        logger.info("Приход носков списком: {} позиций", requests.size());
+        return applyAll(requests, this.stockWriter::incomeAll);
+    }
+
+    @Override
+    @Timed(SERVICE_TIMER)
+    public List<BulkMovementResult> outcomeSocks(List<SocksPostRequest> requests) {
+        logger.info("Отпуск носков списком: {} позиций", requests.size());
+        return applyAll(requests, this.stockWriter::outcomeAll);
+    }
+
+    /**
+     * Некорректные позиции отклоняются сразу, остальные передаются писателю одним списком.
+     */
+    private List<BulkMovementResult> applyAll(List<SocksPostRequest> requests,
+            Function<List<Sock>, List<BulkMovementResult>> writer) {
+        BulkMovementResult[] results = new BulkMovementResult[requests.size()];
+        List<Sock> socks = new ArrayList<>(requests.size());
+        List<Integer> indexes = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            SocksPostRequest request = requests.get(i);
+            String error = validate(request);
+            if (error != null) {
+                results[i] = BulkMovementResult.rejected(i, request, error);
+            } else {
+                socks.add(Sock.builder()
+                .amount(request.getAmount())
+                .color(ColorDictionary.normalize(request.getColor()))
+                .cottonBasisPoints(request.getCottonBasisPoints())
+                .build());
+                indexes.add(i);
+            }
+        }
+
+        if (!socks.isEmpty()) {
+            List<BulkMovementResult> applied = writer.apply(socks);
+            for (int j = 0; j < applied.size(); j++) {
+                int index = indexes.get(j);
+                results[index] = applied.get(j).toBuilder().index(index).build();
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private String validate(SocksPostRequest request) {
+        if (request.getColor() == null || request.getCottonBasisPoints() == null || request.getAmount() == null) {
+            return "Не заполнены цвет, процент хлопка или количество носков";
+        }
+        Set<ConstraintViolation<SocksPostRequest>> violations = this.validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
         }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
     }
 
     @Override
-    public Integer getAmountOfSocks(String color, Double cottonPercentage, String operator) throws NoSocksFoundException {
-    Integer amount;
+    @Timed(SERVICE_TIMER)
+    public Integer getAmountOfSocks(String color, int cottonBasisPoints, String operator) throws NoSocksFoundException {
+    color = ColorDictionary.normalize(color);
+    if (this.stockIndex.isReady()) {
+        return getIndexedAmountOfSocks(color, cottonBasisPoints, operator);
+    }
+    Short colorId = this.colorDictionary.idOf(color);
+    Supplier<Integer> query;
     switch (operator) {
         case "moreThan":
-            amount = this.socksRepository.countSocksByColorAndCottonPercentageGreaterThan(color, cottonPercentage);
+            query = () -> colorId == null ? null : this.socksRepository.countSocksByColorIdAndCottonBasisPointsGreaterThan(colorId, cottonBasisPoints);
             break;
         case "lessThan":
-            amount = this.socksRepository.countSocksByColorAndCottonPercentageLessThan(color, cottonPercentage);
+            query = () -> colorId == null ? null : this.socksRepository.countSocksByColorIdAndCottonBasisPointsLessThan(colorId, cottonBasisPoints);
             break;
         case "equal":
-            amount = this.socksRepository.countSocksByColorAndCottonPercentageEqual(color, cottonPercentage);
+            query = () -> colorId == null ? null : this.socksRepository.countSocksByColorIdAndCottonBasisPointsEqual(colorId, cottonBasisPoints);
             break;
         default:
             throw new IllegalArgumentException("Неверный оператор сравнения: " + operator);
     }
+    Integer amount = this.stockCountCache.get(operator, color, cottonBasisPoints, query);
     if (amount == null) {
         amount = 0;
     }
@@ -93,87 +193,281 @@ public class CustomSockService implements SocksService {
 }
 
     @Override
-    @Transactional
-    public Sock updateSock(String color, Double cottonPercentage, Long id) throws NoSocksFoundException {
-        logger.info("Обновление носков с ID: {}", id);
-        Optional<Sock> sockOptional = this.socksRepository.findById(id);
+    @Timed(SERVICE_TIMER)
+    public Integer getAmountOfSocks(String color, int cottonBasisPoints, String operator, LocalDateTime asOf) throws NoSocksFoundException, StockHistoryException {
+        if (asOf == null) {
+            return getAmountOfSocks(color, cottonBasisPoints, operator);
+        }
+        long amount = this.stockHistory.amountAsOf(ColorDictionary.normalize(color), cottonBasisPoints, operator, asOf);
+        if (amount == 0) {
+            throw new NoSocksFoundException("На складе не найдено носков по вашему фильтру");
+        }
+        return Math.toIntExact(amount);
+    }
 
-        if (sockOptional.isPresent()) {
-            sockOptional.get().setColor(color);
-            sockOptional.get().setCottonPercentage(cottonPercentage);
-            return sockOptional.get();
-        } else {
-            throw new NoSocksFoundException("На складе не найдено носков с ID: " + id);
+    private Integer getIndexedAmountOfSocks(String color, int cottonBasisPoints, String operator) throws NoSocksFoundException {
+        long amount = indexedAmount(color, cottonBasisPoints, operator);
+        if (amount == 0) {
+            throw new NoSocksFoundException("На складе не найдено носков по вашему фильтру");
         }
+        return Math.toIntExact(amount);
     }
 
-    @Override
-    public void processSocksFile(MultipartFile file) throws IOException {
-        logger.info("Начата обработка файла: {}", file.getOriginalFilename());
-        String fileName = file.getOriginalFilename();
-        if (fileName != null && fileName.endsWith(".xlsx")) {
-            processExcelFile(file);
-        } else if (fileName != null && fileName.endsWith(".csv")) {
-            processCsvFile(file);
-        } else {
-            logger.error("Неподдерживаемый формат файла: {}", fileName);
-            throw new IOException("Неподдерживаемый формат файла. Поддерживаются только .xlsx и .csv");
+    private long indexedAmount(String color, int cottonBasisPoints, String operator) {
+        switch (operator) {
+            case "moreThan":
+                return this.stockIndex.moreThan(color, cottonBasisPoints);
+            case "lessThan":
+                return this.stockIndex.lessThan(color, cottonBasisPoints);
+            case "equal":
+                return this.stockIndex.equal(color, cottonBasisPoints);
+            default:
+                throw new IllegalArgumentException("Неверный оператор сравнения: " + operator);
         }
-        logger.info("Обработка файла завершена: {}", file.getOriginalFilename());
     }
 
-    @Transactional
-    private void processExcelFile(MultipartFile file) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-            List<Sock> socks = new ArrayList<>();
+    /**
+     * Некорректные условия отклоняются по отдельности, остальные считаются по индексу остатков
+     * или, если он выключен, одним запросом. Нулевое количество - обычный результат.
+     */
+    @Override
+    @Timed(SERVICE_TIMER)
+    public List<SocksCountResult> countSocks(List<SocksCountRequest> requests) {
+        SocksCountResult[] results = new SocksCountResult[requests.size()];
+        List<SocksCountRequest> predicates = new ArrayList<>(requests.size());
+        List<Integer> indexes = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            SocksCountRequest request = requests.get(i);
+            String error = validate(request);
+            if (error != null) {
+                results[i] = SocksCountResult.rejected(i, request, error);
+            } else {
+                predicates.add(SocksCountRequest.builder()
+                .color(ColorDictionary.normalize(request.getColor()))
+                .operator(request.getOperator())
+                .cottonBasisPoints(request.getCottonBasisPoints())
+                .build());
+                indexes.add(i);
+            }
+        }
 
-            for (Row row : sheet) {
-                if (row.getRowNum() == 0) continue;
-                Sock sock = new Sock();
-                sock.setColor(row.getCell(0).getStringCellValue());
-                sock.setCottonPercentage(row.getCell(1).getNumericCellValue());
-                sock.setAmount((int) row.getCell(2).getNumericCellValue());
-                socks.add(sock);
+        long[] amounts;
+        if (this.stockIndex.isReady()) {
+            amounts = new long[predicates.size()];
+            for (int j = 0; j < predicates.size(); j++) {
+                SocksCountRequest predicate = predicates.get(j);
+                amounts[j] = indexedAmount(predicate.getColor(), predicate.getCottonBasisPoints(), predicate.getOperator());
             }
+        } else {
+            amounts = this.stockStatistics.countAll(predicates);
+        }
+        for (int j = 0; j < predicates.size(); j++) {
+            int index = indexes.get(j);
+            results[index] = SocksCountResult.counted(index, requests.get(index), amounts[j]);
+        }
+        return Arrays.asList(results);
+    }
 
-            socksRepository.saveAll(socks);
+    private String validate(SocksCountRequest request) {
+        if (request.getColor() == null || request.getColor().trim().isEmpty() || request.getCottonBasisPoints() == null) {
+            return "Не заполнены цвет или процент хлопка";
+        }
+        if (request.getCottonBasisPoints() < 0 || request.getCottonBasisPoints() > CottonPercentage.MAX_BASIS_POINTS) {
+            return "Процент хлопка должен быть от 0 до 100";
+        }
+        switch (String.valueOf(request.getOperator())) {
+            case "moreThan":
+            case "lessThan":
+            case "equal":
+                return null;
+            default:
+                return "Неверный оператор сравнения: " + request.getOperator();
         }
     }
 
-    @Transactional
-    private void processCsvFile(MultipartFile file) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
-            String line;
-            List<Sock> socks = new ArrayList<>();
-            boolean isFirstLine = true;
+    /**
+     * Перенос строки на другой артикул выполняет писатель остатков в своей транзакции:
+     * он знает, какие изменения по старому артикулу еще не записаны в строку.
+     */
+    @Override
+    @Timed(SERVICE_TIMER)
+    public Sock updateSock(String color, int cottonBasisPoints, Long id) throws NoSocksFoundException {
+        logger.info("Обновление носков с ID: {}", id);
+        String newColor = ColorDictionary.normalize(color);
+        this.colorDictionary.intern(newColor);
+        return this.stockWriter.relabel(id, newColor, cottonBasisPoints)
+            .orElseThrow(() -> new NoSocksFoundException("На складе не найдено носков с ID: " + id));
+    }
 
-            while ((line = reader.readLine()) != null) {
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue;
-                }
-                String[] values = line.split(",");
-                Sock sock = new Sock();
-                sock.setColor(values[0]);
-                sock.setCottonPercentage(Double.parseDouble(values[1]));
-                sock.setAmount(Integer.parseInt(values[2]));
-                socks.add(sock);
-            }
+    @Override
+    @Timed(SERVICE_TIMER)
+    public void processSocksFile(MultipartFile file) throws IOException {
+        SockFileFormat format = SockFileFormat.of(file.getOriginalFilename());
+        Path spooled = Files.createTempFile("socks-import-", format.getExtension());
+        try {
+            file.transferTo(spooled);
+            processSocksFile(spooled, file.getOriginalFilename(), ImportProgressListener.NONE);
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
+    }
 
-            socksRepository.saveAll(socks);
+    @Override
+    @Timed(SERVICE_TIMER)
+    public void processSocksFile(Path file, String fileName, ImportProgressListener listener) throws IOException {
+        logger.info("Начата обработка файла: {}", fileName);
+        SockFileFormat format = SockFileFormat.of(fileName);
+        SockImportBatch batch = this.sockImportWriter.begin(fileName, listener);
+        Timer.Sample parse = Timer.start(this.meterRegistry);
+        String outcome = "failure";
+        try {
+            switch (format) {
+                case XLSX:
+                    this.xlsxSockReader.read(file, batch);
+                    break;
+                case CSV:
+                    this.csvSockReader.read(file, batch);
+                    break;
+            }
+            outcome = "success";
+        } finally {
+            parse.stop(importStageTimer("parse", format, outcome));
+            this.meterRegistry.counter("socks.import.rows", "format", formatTag(format)).increment(batch.getParsed());
+        }
+        Timer.Sample persist = Timer.start(this.meterRegistry);
+        outcome = "failure";
+        try {
+            batch.finish();
+            outcome = "success";
+        } finally {
+            persist.stop(importStageTimer("persist", format, outcome));
         }
+        logger.info("Обработка файла завершена: {}", fileName);
     }
 
     @Override
-    public Page<Sock> getFilteredAndSortedSocks(Double minCotton, Double maxCotton, String color, int page, int size, String sortField, String sortDirection) {
-        Specification<Sock> spec = Specification.where(SockSpecification.filterByCottonPercentageRange(minCotton, maxCotton))
+    @Timed(SERVICE_TIMER)
+    public Page<Sock> getFilteredAndSortedSocks(Integer minCotton, Integer maxCotton, String color, int page, int size, String sortField, String sortDirection) {
+        Specification<Sock> spec = Specification.where(SockSpecification.filterByCottonRange(minCotton, maxCotton))
                                                .and(SockSpecification.filterByColor(color));
 
-        Sort sort = Sort.by(Sort.Direction.fromString(sortDirection), sortField);
+        Sort sort = Sort.by(Sort.Direction.fromString(sortDirection), SockSpecification.attributeOf(sortField));
         PageRequest pageRequest = PageRequest.of(page, size, sort);
 
         return this.socksRepository.findAll(spec, pageRequest);
     }
 
+    @Override
+    @Timed(SERVICE_TIMER)
+    public SocksSliceResponse getFilteredAndSortedSocks(Integer minCotton, Integer maxCotton, String color, String cursor, int size, String sortField, String sortDirection) throws InvalidCursorException {
+        Sort.Direction direction = Sort.Direction.fromString(sortDirection);
+        SockCursor.checkSortField(sortField);
+        SockCursor after = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            after = SockCursor.decode(cursor);
+            if (!after.matches(sortField, direction)) {
+                throw new InvalidCursorException("Курсор получен для другой сортировки");
+            }
+        }
+
+        Specification<Sock> spec = Specification.where(SockSpecification.filterByCottonRange(minCotton, maxCotton))
+                                               .and(SockSpecification.filterByColor(color))
+                                               .and(SockSpecification.after(after));
+        Sort sort = Sort.by(direction, SockSpecification.attributeOf(sortField));
+        if (!"id".equals(sortField)) {
+            sort = sort.and(Sort.by(direction, "id"));
+        }
+
+        Slice<Sock> slice = this.socksRepository.findSlice(spec, sort, size);
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            nextCursor = SockCursor.after(slice.getContent().get(slice.getNumberOfElements() - 1), sortField, direction).encode();
+        }
+        return SocksSliceResponse.builder()
+        .content(slice.getContent())
+        .size(size)
+        .hasNext(slice.hasNext())
+        .nextCursor(nextCursor)
+        .build();
+    }
+
+    @Override
+    @Timed(SERVICE_TIMER)
+    public Page<Sock> getFilteredAndSortedSocks(Integer minCotton, Integer maxCotton, String color, int page, int size, String sortField, String sortDirection, LocalDateTime asOf) throws StockHistoryException {
+        if (asOf == null) {
+            return getFilteredAndSortedSocks(minCotton, maxCotton, color, page, size, sortField, sortDirection);
+        }
+        checkHistorySort(sortField);
+        Page<Sock> current = getFilteredAndSortedSocks(minCotton, maxCotton, color, page, size, sortField, sortDirection);
+        return new PageImpl<>(amountsAsOf(current.getContent(), asOf), current.getPageable(), current.getTotalElements());
+    }
+
+    @Override
+    @Timed(SERVICE_TIMER)
+    public SocksSliceResponse getFilteredAndSortedSocks(Integer minCotton, Integer maxCotton, String color, String cursor, int size, String sortField, String sortDirection, LocalDateTime asOf) throws InvalidCursorException, StockHistoryException {
+        if (asOf == null) {
+            return getFilteredAndSortedSocks(minCotton, maxCotton, color, cursor, size, sortField, sortDirection);
+        }
+        checkHistorySort(sortField);
+        SocksSliceResponse slice = getFilteredAndSortedSocks(minCotton, maxCotton, color, cursor, size, sortField, sortDirection);
+        slice.setContent(amountsAsOf(slice.getContent(), asOf));
+        return slice;
+    }
+
+    @Override
+    @Timed(SERVICE_TIMER)
+    public SocksStatsResponse getStats(Integer minCotton, Integer maxCotton, String color, int bucketWidth) {
+        return this.stockStatistics.collect(minCotton, maxCotton, color, bucketWidth);
+    }
+
+    @Override
+    @Timed(SERVICE_TIMER)
+    public SockExport exportSocks(Integer minCotton, Integer maxCotton, String color, String sortField, String sortDirection, SockFileFormat format) throws InvalidSortException {
+        logger.info("Выгрузка носков в формате {}", format);
+        return this.sockExporter.prepare(minCotton, maxCotton, color, sortField, sortDirection, format);
+    }
+
+    /**
+     * Время этапа импорта: parse - чтение файла с проверкой и суммированием строк по артикулам,
+     * persist - запись сумм в БД пакетами.
+     */
+    private Timer importStageTimer(String stage, SockFileFormat format, String outcome) {
+        return Timer.builder(IMPORT_STAGE_TIMER)
+            .description("Время этапов импорта файла")
+            .tag("stage", stage)
+            .tag("format", formatTag(format))
+            .tag("outcome", outcome)
+            .register(this.meterRegistry);
+    }
+
+    private static String formatTag(SockFileFormat format) {
+        return format.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Список на дату строится по текущим артикулам, поэтому сортировать по количеству
+     * на дату нельзя: порядок задает запрос к текущему снимку.
+     */
+    private void checkHistorySort(String sortField) throws StockHistoryException {
+        this.stockHistory.checkAvailable();
+        if ("amount".equals(sortField)) {
+            throw new StockHistoryException("Сортировка по количеству на дату не поддерживается");
+        }
+    }
+
+    /**
+     * Копии носков с количеством на момент asOf. Найденные сущности не меняются,
+     * чтобы историческое количество не записалось в текущий снимок.
+     */
+    private List<Sock> amountsAsOf(List<Sock> socks, LocalDateTime asOf) throws StockHistoryException {
+        Map<SockKey, Long> amounts = this.stockHistory.amountsAsOf(
+            socks.stream().map(SockKey::of).collect(Collectors.toSet()), asOf);
+        List<Sock> result = new ArrayList<>(socks.size());
+        for (Sock sock : socks) {
+            long amount = amounts.getOrDefault(SockKey.of(sock), 0L);
+            result.add(new Sock(sock.getId(), sock.getColor(), sock.getCottonBasisPoints(), Math.toIntExact(amount)));
+        }
+        return result;
+    }
+
 }
@@ -0,0 +1,162 @@
+package test.task.socks_service.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import lombok.RequiredArgsConstructor;
+import test.task.socks_service.config.ImportProperties;
+import test.task.socks_service.config.ThreadProperties;
+import test.task.socks_service.config.VirtualThreads;
+import test.task.socks_service.exception.NoImportJobFoundException;
+import test.task.socks_service.service.importer.ImportJob;
+import test.task.socks_service.service.importer.SockFileFormat;
+
+@Service
+@RequiredArgsConstructor
+public class ImportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobService.class);
+    private final SocksService socksService;
+    private final ImportProperties importProperties;
+    private final ThreadProperties threadProperties;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    /**
+     * В режиме виртуальных потоков задачи импорта идут в виртуальных потоках, но их
+     * по-прежнему не больше socks.import.threads одновременно, а лишние ждут в очереди
+     * или отклоняются: каждая задача держит соединение с БД на время записи пакетов.
+     */
+    @PostConstruct
+    void start() {
+        ThreadFactory threadFactory = threadProperties.isVirtual()
+                ? VirtualThreads.factory("socks-import-")
+                : new CustomizableThreadFactory("socks-import-");
+        this.executor = new ThreadPoolExecutor(importProperties.getThreads(), importProperties.getThreads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(importProperties.getQueueCapacity()),
+                threadFactory);
+    }
+
+    /**
+     * Задачи, которые так и не начались, помечаются ошибкой, а их файлы удаляются:
+     * после перезапуска их уже никто не обработает.
+     */
+    @PreDestroy
+    void stop() {
+        for (Runnable queued : this.executor.shutdownNow()) {
+            ImportTask task = (ImportTask) queued;
+            task.job.fail("Сервис остановлен до начала загрузки");
+            deleteSpooled(task.spooled);
+        }
+    }
+
+    public ImportJob submit(MultipartFile file) throws IOException {
+        String fileName = file.getOriginalFilename();
+        SockFileFormat format = SockFileFormat.of(fileName);
+
+        Files.createDirectories(importProperties.getSpoolDir());
+        Path spooled = Files.createTempFile(importProperties.getSpoolDir(), "socks-import-", format.getExtension());
+        ImportJob job = new ImportJob(fileName);
+        try {
+            file.transferTo(spooled);
+        } catch (IOException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+
+        evictFinishedJobs();
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(new ImportTask(job, spooled));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+        logger.info("Задача импорта {} поставлена в очередь: {}", job.getId(), fileName);
+        return job;
+    }
+
+    public ImportJob getJob(String jobId) throws NoImportJobFoundException {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new NoImportJobFoundException("Задача загрузки не найдена: " + jobId);
+        }
+        return job;
+    }
+
+    private void run(ImportJob job, Path spooled) {
+        job.start();
+        String error = null;
+        try {
+            socksService.processSocksFile(spooled, job.getFileName(), job);
+        } catch (Exception e) {
+            logger.error("Задача импорта {} завершилась ошибкой", job.getId(), e);
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+
+        deleteSpooled(spooled);
+
+        if (error == null) {
+            job.complete();
+            logger.info("Задача импорта {} завершена: {} строк", job.getId(), job.getRowsCommitted());
+        } else {
+            job.fail(error);
+        }
+    }
+
+    private void deleteSpooled(Path spooled) {
+        try {
+            Files.deleteIfExists(spooled);
+        } catch (IOException e) {
+            logger.warn("Не удалось удалить файл {}", spooled, e);
+        }
+    }
+
+    private void evictFinishedJobs() {
+        int excess = jobs.size() - importProperties.getMaxRetainedJobs() + 1;
+        if (excess <= 0) {
+            return;
+        }
+        jobs.values().stream()
+            .filter(ImportJob::isFinished)
+            .sorted(Comparator.comparing(ImportJob::getFinishedAt))
+            .limit(excess)
+            .forEach(job -> jobs.remove(job.getId()));
+    }
+
+    private final class ImportTask implements Runnable {
+
+        private final ImportJob job;
+        private final Path spooled;
+
+        private ImportTask(ImportJob job, Path spooled) {
+            this.job = job;
+            this.spooled = spooled;
+        }
+
+        @Override
+        public void run() {
+            ImportJobService.this.run(job, spooled);
+        }
+    }
+
+}
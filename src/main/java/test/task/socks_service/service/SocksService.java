@@ -1,25 +1,80 @@
 package test.task.socks_service.service;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.web.multipart.MultipartFile;
 
+import test.task.socks_service.entity.CottonPercentage;
 import test.task.socks_service.entity.Sock;
+import test.task.socks_service.entity.dto.BulkMovementResult;
+import test.task.socks_service.entity.dto.SocksCountRequest;
+import test.task.socks_service.entity.dto.SocksCountResult;
+import test.task.socks_service.entity.dto.SocksPostRequest;
+import test.task.socks_service.entity.dto.SocksSliceResponse;
+import test.task.socks_service.entity.dto.SocksStatsResponse;
+import test.task.socks_service.exception.InvalidCursorException;
 import test.task.socks_service.exception.NoSocksFoundException;
+import test.task.socks_service.exception.StockHistoryException;
+import test.task.socks_service.service.exporter.SockExport;
+import test.task.socks_service.service.importer.ImportProgressListener;
+import test.task.socks_service.service.importer.SockFileFormat;
 
+/**
+ * Процент хлопка во всех методах передается в сотых долях процента, см. {@link CottonPercentage}.
+ */
 public interface SocksService {
 
     Sock incomeSock(Sock sock);
 
     Sock outcomeSock(Sock sock) throws Exception;
 
-    Integer getAmountOfSocks(String color, Double cottonPercentage, String operator) throws NoSocksFoundException;
+    List<BulkMovementResult> incomeSocks(List<SocksPostRequest> requests);
 
-    Sock updateSock(String color, Double cottonPercentage, Long id) throws NoSocksFoundException;
+    List<BulkMovementResult> outcomeSocks(List<SocksPostRequest> requests);
+
+    Integer getAmountOfSocks(String color, int cottonBasisPoints, String operator) throws NoSocksFoundException;
+
+    /**
+     * Количество носков на момент asOf, при asOf == null - текущее.
+     */
+    Integer getAmountOfSocks(String color, int cottonBasisPoints, String operator, LocalDateTime asOf) throws NoSocksFoundException, StockHistoryException;
+
+    /**
+     * Количество носков по каждому условию списка. Нулевое количество возвращается как результат,
+     * некорректные условия отклоняются по отдельности.
+     */
+    List<SocksCountResult> countSocks(List<SocksCountRequest> requests);
+
+    Sock updateSock(String color, int cottonBasisPoints, Long id) throws NoSocksFoundException;
 
     void processSocksFile(MultipartFile file) throws IOException;
 
-    Page<Sock> getFilteredAndSortedSocks(Double minCotton, Double maxCotton, String color, int page, int size, String sortField, String sortDirection);
+    void processSocksFile(Path file, String fileName, ImportProgressListener listener) throws IOException;
+
+    Page<Sock> getFilteredAndSortedSocks(Integer minCotton, Integer maxCotton, String color, int page, int size, String sortField, String sortDirection);
+
+    SocksSliceResponse getFilteredAndSortedSocks(Integer minCotton, Integer maxCotton, String color, String cursor, int size, String sortField, String sortDirection) throws InvalidCursorException;
+
+    /**
+     * Список носков с количеством на момент asOf, при asOf == null - текущим.
+     */
+    Page<Sock> getFilteredAndSortedSocks(Integer minCotton, Integer maxCotton, String color, int page, int size, String sortField, String sortDirection, LocalDateTime asOf) throws StockHistoryException;
+
+    SocksSliceResponse getFilteredAndSortedSocks(Integer minCotton, Integer maxCotton, String color, String cursor, int size, String sortField, String sortDirection, LocalDateTime asOf) throws InvalidCursorException, StockHistoryException;
+
+    /**
+     * Остатки по цветам и диапазонам процента хлопка шириной bucketWidth одним запросом.
+     */
+    SocksStatsResponse getStats(Integer minCotton, Integer maxCotton, String color, int bucketWidth);
+
+    /**
+     * Выгрузка носков с фильтрами и сортировкой списка. Параметры проверяются сразу,
+     * строки читаются из БД при записи выгрузки в поток.
+     */
+    SockExport exportSocks(Integer minCotton, Integer maxCotton, String color, String sortField, String sortDirection, SockFileFormat format) throws InvalidSortException;
 
 }
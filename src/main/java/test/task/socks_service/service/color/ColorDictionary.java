@@ -0,0 +1,111 @@
+package test.task.socks_service.service.color;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import test.task.socks_service.service.stock.AfterCommit;
+
+/**
+ * Справочник цветов: нормализованное название и короткий целый id из таблицы colors.
+ * Держит оба направления в памяти, в БД обращается только за цветами, которых еще
+ * не видел. Новые цвета записываются в транзакции вызывающего, без второго соединения
+ * из пула, и запоминаются только после ее коммита: цвет из откатившейся операции
+ * в памяти не остается.
+ */
+@Component
+@RequiredArgsConstructor
+public class ColorDictionary implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColorDictionary.class);
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Short> ids = new ConcurrentHashMap<>();
+    private final Map<Short, String> names = new ConcurrentHashMap<>();
+
+    /**
+     * Каноническое название цвета: без крайних пробелов и в нижнем регистре.
+     */
+    public static String normalize(String color) {
+        return color == null ? null : color.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        jdbcTemplate.query("select id, name from colors", (RowCallbackHandler) rs -> put(rs.getShort(1), rs.getString(2)));
+        logger.info("Справочник цветов загружен: {} цветов", ids.size());
+    }
+
+    /**
+     * Id известного цвета или null, если такого цвета еще нет ни в одной записи.
+     */
+    public Short idOf(String color) {
+        String name = normalize(color);
+        if (name == null) {
+            return null;
+        }
+        Short id = ids.get(name);
+        return id != null ? id : load(name);
+    }
+
+    /**
+     * Id цвета, при необходимости добавляет цвет в справочник. Цвет, одновременно
+     * добавленный другим запросом, не приводит к ошибке и не прерывает транзакцию.
+     */
+    public short intern(String color) {
+        String name = normalize(color);
+        Short id = idOf(name);
+        if (id != null) {
+            return id;
+        }
+        if (jdbcTemplate.update("insert into colors (name) values (?) on conflict (name) do nothing", name) > 0) {
+            logger.info("Добавлен цвет: {}", name);
+        } else {
+            logger.debug("Цвет {} уже добавлен другим запросом", name);
+        }
+        return load(name);
+    }
+
+    public String nameOf(short id) {
+        String name = names.get(id);
+        if (name == null) {
+            List<String> found = jdbcTemplate.queryForList("select name from colors where id = ?", String.class, id);
+            if (found.isEmpty()) {
+                throw new IllegalStateException("Цвет не найден в справочнике: " + id);
+            }
+            name = found.get(0);
+            remember(id, name);
+        }
+        return name;
+    }
+
+    private Short load(String name) {
+        List<Short> found = jdbcTemplate.queryForList("select id from colors where name = ?", Short.class, name);
+        if (found.isEmpty()) {
+            return null;
+        }
+        remember(found.get(0), name);
+        return found.get(0);
+    }
+
+    /**
+     * Цвет, прочитанный внутри транзакции, может быть ею же и добавлен: запоминаем его после коммита.
+     */
+    private void remember(short id, String name) {
+        AfterCommit.run(() -> put(id, name));
+    }
+
+    private void put(short id, String name) {
+        ids.put(name, id);
+        names.put(id, name);
+    }
+
+}
@@ -0,0 +1,65 @@
+package test.task.socks_service.service.exporter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import test.task.socks_service.entity.CottonPercentage;
+/**
+ * Запись носков в CSV того же формата, что принимает загрузка партий, строка за строкой
+ * через буфер фиксированного размера. {@link #close()} дописывает буфер, но не закрывает
+ * сам поток. Кавычки - по правилам {@link test.task.socks_service.service.importer.CsvSockReader}:
+ * цвет с запятой или кавычкой берется в двойные кавычки, кавычки внутри удваиваются,
+ * перевод строки в цвете CSV не передает.
+ */
+public class CsvSockWriter implements SockRowWriter {
+
+    static final String HEADER = "color,cottonPercentage,amount\n";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer writer;
+
+    public CsvSockWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.writer.write(HEADER);
+    }
+
+    @Override
+    public void onRow(String color, int cottonBasisPoints, int amount) throws IOException {
+        writeColor(color);
+        writer.write(',');
+        writer.write(CottonPercentage.format(cottonBasisPoints));
+        writer.write(',');
+        writer.write(Integer.toString(amount));
+        writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Остаток буфера не дописывается: уже отправленная часть файла обрывается на ошибке.
+     */
+    @Override
+    public void abort() {
+    }
+
+    private void writeColor(String color) throws IOException {
+        if (color.indexOf('\n') >= 0 || color.indexOf('\r') >= 0) {
+            throw new IOException("Цвет с переводом строки нельзя выгрузить в CSV: " + color.replace("\n", "\\n").replace("\r", "\\r"));
+        }
+        if (color.indexOf(',') < 0 && color.indexOf('"') < 0) {
+            writer.write(color);
+            return;
+        }
+        writer.write('"');
+        writer.write(color.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+}
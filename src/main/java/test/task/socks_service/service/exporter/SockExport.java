@@ -0,0 +1,15 @@
+package test.task.socks_service.service.exporter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Подготовленная выгрузка: параметры уже проверены, строки читаются из БД
+ * и пишутся в поток только при вызове {@link #writeTo(OutputStream)}.
+ */
+@FunctionalInterface
+public interface SockExport {
+
+    void writeTo(OutputStream out) throws IOException;
+
+}
@@ -0,0 +1,144 @@
+package test.task.socks_service.service.exporter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.RequiredArgsConstructor;
+import test.task.socks_service.config.ExportProperties;
+import test.task.socks_service.exception.InvalidSortException;
+import test.task.socks_service.service.color.ColorDictionary;
+import test.task.socks_service.service.importer.SockFileFormat;
+
+/**
+ * Выгрузка носков с теми же фильтрами и сортировкой, что у /api/socks/filter, одним
+ * запросом по курсору только для чтения вперед. Драйвер забирает строки порциями по
+ * fetch-size (PostgreSQL держит курсор только внутри транзакции), каждая строка сразу
+ * уходит в писатель формата, поэтому память не зависит от числа строк. В режиме ledger
+ * выгружается снимок остатков, как и в списках.
+ */
+@Component
+@RequiredArgsConstructor
+public class SockExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SockExporter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ColorDictionary colorDictionary;
+    private final ExportProperties exportProperties;
+
+    /**
+     * Проверяет параметры и возвращает выгрузку, которая выполнится при записи в поток.
+     */
+    public SockExport prepare(Integer minCotton, Integer maxCotton, String color, String sortField, String sortDirection,
+            SockFileFormat format) throws InvalidSortException {
+        String column = columnOf(sortField);
+        String direction = directionOf(sortDirection);
+        StringBuilder sql = new StringBuilder("select c.name, s.cotton_basis_points, s.amount from socks s "
+                + "join colors c on c.id = s.color_id where 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (color != null && !color.isEmpty()) {
+            Short colorId = this.colorDictionary.idOf(color);
+            if (colorId == null) {
+                return out -> writerOf(format, out).close();
+            }
+            sql.append(" and s.color_id = ?");
+            params.add(colorId);
+        }
+        if (minCotton != null) {
+            sql.append(" and s.cotton_basis_points >= ?");
+            params.add(minCotton);
+        }
+        if (maxCotton != null) {
+            sql.append(" and s.cotton_basis_points <= ?");
+            params.add(maxCotton);
+        }
+        sql.append(" order by ").append(column).append(' ').append(direction);
+        if (!"id".equals(sortField)) {
+            sql.append(", s.id ").append(direction);
+        }
+        return out -> {
+            SockRowWriter writer = writerOf(format, out);
+            long rows;
+            try {
+                rows = stream(sql.toString(), params, writer);
+            } catch (IOException | RuntimeException e) {
+                writer.abort();
+                throw e;
+            }
+            writer.close();
+            logger.info("Выгружено носков в {}: {} строк", format, rows);
+        };
+    }
+
+    private long stream(String sql, List<Object> params, SockRowWriter writer) throws IOException {
+        long[] rows = new long[1];
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> this.jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(this.exportProperties.getFetchSize());
+                for (int i = 0; i < params.size(); i++) {
+                    ps.setObject(i + 1, params.get(i));
+                }
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                try {
+                    writer.onRow(rs.getString(1), rs.getInt(2), rs.getInt(3));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return rows[0];
+    }
+
+    private SockRowWriter writerOf(SockFileFormat format, OutputStream out) throws IOException {
+        switch (format) {
+            case XLSX:
+                return new XlsxSockWriter(out, this.exportProperties.getXlsxWindowSize());
+            default:
+                return new CsvSockWriter(out);
+        }
+    }
+
+    /**
+     * Поле сортировки из API в колонку запроса.
+     */
+    static String columnOf(String sortField) throws InvalidSortException {
+        switch (sortField) {
+            case "id":
+                return "s.id";
+            case "color":
+                return "c.name";
+            case "cottonPercentage":
+                return "s.cotton_basis_points";
+            case "amount":
+                return "s.amount";
+            default:
+                throw new InvalidSortException("Сортировка по полю не поддерживается: " + sortField);
+        }
+    }
+
+    static String directionOf(String sortDirection) throws InvalidSortException {
+        return Sort.Direction.fromOptionalString(sortDirection)
+            .orElseThrow(() -> new InvalidSortException("Неверное направление сортировки: " + sortDirection))
+            .name();
+    }
+
+}
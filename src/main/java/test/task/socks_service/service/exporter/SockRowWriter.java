@@ -0,0 +1,17 @@
+package test.task.socks_service.service.exporter;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import test.task.socks_service.service.importer.SockRowHandler;
+
+/**
+ * Писатель строк выгрузки: принимает строки как обработчик строк загрузки,
+ * {@link #close()} завершает файл, {@link #abort()} освобождает ресурсы после
+ * ошибки, не дописывая файл.
+ */
+public interface SockRowWriter extends SockRowHandler, Closeable {
+
+    void abort() throws IOException;
+
+}
@@ -0,0 +1,78 @@
+package test.task.socks_service.service.exporter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import test.task.socks_service.entity.CottonPercentage;
+/**
+ * Потоковая запись .xlsx через SXSSF: в памяти держится окно из последних строк,
+ * остальные сбрасываются в сжатый временный файл. Лист Excel вмещает чуть больше
+ * миллиона строк, дальше строки продолжаются на следующем листе с тем же заголовком.
+ * Книга собирается и пишется в поток в {@link #close()}, временные файлы удаляются
+ * и в {@link #close()}, и в {@link #abort()}.
+ */
+public class XlsxSockWriter implements SockRowWriter {
+
+    private final SXSSFWorkbook workbook;
+    private final OutputStream out;
+    private final int maxRows;
+    private Sheet sheet;
+    private int rowIndex;
+
+    public XlsxSockWriter(OutputStream out, int windowSize) {
+        this(out, windowSize, SpreadsheetVersion.EXCEL2007.getMaxRows());
+    }
+
+    XlsxSockWriter(OutputStream out, int windowSize, int maxRows) {
+        this.workbook = new SXSSFWorkbook(windowSize);
+        this.workbook.setCompressTempFiles(true);
+        this.out = out;
+        this.maxRows = maxRows;
+        nextSheet();
+    }
+
+    @Override
+    public void onRow(String color, int cottonBasisPoints, int amount) {
+        if (rowIndex == maxRows) {
+            nextSheet();
+        }
+        Row row = sheet.createRow(rowIndex++);
+        row.createCell(0).setCellValue(color);
+        row.createCell(1).setCellValue(CottonPercentage.toPercent(cottonBasisPoints));
+        row.createCell(2).setCellValue(amount);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            workbook.write(out);
+        } finally {
+            abort();
+        }
+    }
+
+    /**
+     * В поток ничего не пишется: обрезанная книга не откроется, а ошибка дойдет до клиента
+     * статусом ответа, пока ответ еще не начат.
+     */
+    @Override
+    public void abort() throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+
+    private void nextSheet() {
+        sheet = workbook.createSheet("socks" + (workbook.getNumberOfSheets() == 0 ? "" : "_" + (workbook.getNumberOfSheets() + 1)));
+        Row header = sheet.createRow(0);
+        header.createCell(0).setCellValue("color");
+        header.createCell(1).setCellValue("cottonPercentage");
+        header.createCell(2).setCellValue("amount");
+        rowIndex = 1;
+    }
+
+}
@@ -0,0 +1,348 @@
+package test.task.socks_service.service.importer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.stereotype.Component;
+
+import test.task.socks_service.config.ImportProperties;
+import test.task.socks_service.entity.CottonPercentage;
+
+/**
+ * Параллельное чтение CSV: файл режется на диапазоны байт по границам строк,
+ * диапазоны отображаются в память и разбираются на ForkJoinPool прямо из байт
+ * в примитивные поля, без строк на каждую строку файла. Результаты отдаются
+ * обработчику строго в порядке следования в файле из вызывающего потока.
+ * Цвет можно взять в двойные кавычки, если в нем есть запятая или кавычка, кавычки
+ * внутри удваиваются - так пишет {@link test.task.socks_service.service.exporter.CsvSockWriter}.
+ */
+@Component
+public class CsvSockReader {
+
+    private final ForkJoinPool pool;
+    private final int rangeSize;
+
+    public CsvSockReader(ImportProperties importProperties) {
+        this.pool = new ForkJoinPool(importProperties.getParseThreads());
+        this.rangeSize = importProperties.getCsvRangeSize();
+    }
+
+    @PreDestroy
+    void stop() {
+        pool.shutdownNow();
+    }
+
+    public void read(Path file, SockRowHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = nextLineStart(channel, 0);
+            long line = 2;
+            Deque<ForkJoinTask<ParsedRange>> inFlight = new ArrayDeque<>();
+            int window = pool.getParallelism() * 2;
+
+            try {
+                while (start < size || !inFlight.isEmpty()) {
+                    while (start < size && inFlight.size() < window) {
+                        long end = Math.min(start + rangeSize, size);
+                        if (end < size) {
+                            end = nextLineStart(channel, end);
+                        }
+                        long from = start;
+                        long to = end;
+                        inFlight.addLast(pool.submit(() -> parse(channel, from, to)));
+                        start = end;
+                    }
+                    ParsedRange range = await(inFlight.removeFirst());
+                    if (range.errorLine >= 0) {
+                        throw new IOException("Некорректные данные в строке " + (line + range.errorLine));
+                    }
+                    for (int i = 0; i < range.size; i++) {
+                        handler.onRow(range.colors[i], range.cottonBasisPoints[i], range.amounts[i]);
+                    }
+                    line += range.lines;
+                }
+            } finally {
+                inFlight.forEach(task -> task.cancel(true));
+            }
+        }
+    }
+
+    private static ParsedRange await(ForkJoinTask<ParsedRange> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Чтение файла прервано", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException("Не удалось прочитать CSV файл: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long size = channel.size();
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static ParsedRange parse(FileChannel channel, long from, long to) {
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ParsedRange range = new ParsedRange();
+        int limit = buffer.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int end = lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            if (end > lineStart && !range.add(buffer, lineStart, end)) {
+                range.errorLine = range.lines;
+                return range;
+            }
+            range.lines++;
+            lineStart = lineEnd + 1;
+        }
+        return range;
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Закрывающая кавычка цвета в кавычках: удвоенная кавычка внутри - сама кавычка.
+     * Перевод строки внутри кавычек не поддерживается, файл режется по строкам.
+     */
+    private static int closingQuote(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == '"') {
+                if (i + 1 < to && buffer.get(i + 1) == '"') {
+                    i++;
+                } else {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Разбор процента хлопка сразу в сотые доли процента без создания строки.
+     * Экспоненту, лишние нули после запятой и прочие редкие формы отдаем в
+     * {@link CottonPercentage#parse(String)}.
+     */
+    private static int parseBasisPoints(ByteBuffer buffer, int from, int to) {
+        int value = 0;
+        int scale = -1;
+        int digits = 0;
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9' && digits < 6 && scale < 2) {
+                value = value * 10 + (b - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (b == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                return CottonPercentage.parse(decode(buffer, from, to));
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("empty number");
+        }
+        return scale <= 0 ? value * 100 : scale == 1 ? value * 10 : value;
+    }
+
+    private static int parseInt(ByteBuffer buffer, int from, int to) {
+        boolean negative = from < to && buffer.get(from) == '-';
+        int i = from < to && (buffer.get(from) == '-' || buffer.get(from) == '+') ? from + 1 : from;
+        if (i == to) {
+            throw new NumberFormatException("empty number");
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                throw new NumberFormatException("not a digit");
+            }
+            value = value * 10 + (b - '0');
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw new NumberFormatException("too large");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("too large");
+        }
+        return (int) value;
+    }
+
+    private static String decode(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class ParsedRange {
+
+        private final ColorCache colorCache = new ColorCache();
+        private String[] colors = new String[256];
+        private int[] cottonBasisPoints = new int[256];
+        private int[] amounts = new int[256];
+        private int size;
+        private int lines;
+        private int errorLine = -1;
+
+        private boolean add(ByteBuffer buffer, int start, int end) {
+            int first;
+            String quoted = null;
+            if (buffer.get(start) == '"') {
+                int close = closingQuote(buffer, start + 1, end);
+                if (close < 0 || close + 1 == end || buffer.get(close + 1) != ',') {
+                    return false;
+                }
+                first = close + 1;
+                quoted = decode(buffer, start + 1, close).replace("\"\"", "\"");
+            } else {
+                first = indexOf(buffer, (byte) ',', start, end);
+            }
+            int second = first < 0 ? -1 : indexOf(buffer, (byte) ',', first + 1, end);
+            if (second < 0) {
+                return false;
+            }
+            int third = indexOf(buffer, (byte) ',', second + 1, end);
+            try {
+                int cotton = parseBasisPoints(buffer, first + 1, second);
+                if (cotton < 0 || cotton > CottonPercentage.MAX_BASIS_POINTS) {
+                    return false;
+                }
+                int amount = parseInt(buffer, second + 1, third < 0 ? end : third);
+                if (amount <= 0) {
+                    return false;
+                }
+                if (size == colors.length) {
+                    colors = Arrays.copyOf(colors, size * 2);
+                    cottonBasisPoints = Arrays.copyOf(cottonBasisPoints, size * 2);
+                    amounts = Arrays.copyOf(amounts, size * 2);
+                }
+                colors[size] = quoted != null ? quoted : colorCache.get(buffer, start, first);
+                cottonBasisPoints[size] = cotton;
+                amounts[size] = amount;
+                size++;
+                return true;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Кэш цветов диапазона: строка создается один раз на каждый новый цвет,
+     * повторяющиеся цвета сравниваются прямо по байтам файла.
+     */
+    private static final class ColorCache {
+
+        private byte[][] keys = new byte[64][];
+        private String[] values = new String[64];
+        private int size;
+
+        private String get(ByteBuffer buffer, int from, int to) {
+            int hash = 1;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + buffer.get(i);
+            }
+            int mask = keys.length - 1;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (keys[slot] != null) {
+                if (matches(keys[slot], buffer, from, to)) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            byte[] key = new byte[to - from];
+            buffer.get(from, key);
+            keys[slot] = key;
+            values[slot] = new String(key, StandardCharsets.UTF_8);
+            String value = values[slot];
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+            return value;
+        }
+
+        private static boolean matches(byte[] key, ByteBuffer buffer, int from, int to) {
+            if (key.length != to - from) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buffer.get(from + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void grow() {
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            keys = new byte[oldKeys.length * 2][];
+            values = new String[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int hash = 1;
+                    for (byte b : oldKeys[i]) {
+                        hash = 31 * hash + b;
+                    }
+                    int slot = (hash ^ (hash >>> 16)) & mask;
+                    while (keys[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package test.task.socks_service.service.importer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import lombok.Getter;
+
+@Getter
+public class ImportJob implements ImportProgressListener {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String fileName;
+    private final Instant createdAt = Instant.now();
+    private final List<String> errors = new CopyOnWriteArrayList<>();
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile long rowsParsed;
+    private volatile long rowsCommitted;
+
+    public ImportJob(String fileName) {
+        this.fileName = fileName;
+    }
+
+    @Override
+    public void onParsed(long rows) {
+        this.rowsParsed = rows;
+    }
+
+    @Override
+    public void onCommitted(long rows) {
+        this.rowsCommitted = rows;
+    }
+
+    public void start() {
+        this.startedAt = Instant.now();
+        this.status = Status.RUNNING;
+    }
+
+    public void complete() {
+        this.finishedAt = Instant.now();
+        this.status = Status.COMPLETED;
+    }
+
+    public void fail(String error) {
+        this.errors.add(error);
+        this.finishedAt = Instant.now();
+        this.status = Status.FAILED;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public double getRowsPerSecond() {
+        Instant start = this.startedAt;
+        if (start == null) {
+            return 0;
+        }
+        Instant end = this.finishedAt != null ? this.finishedAt : Instant.now();
+        long millis = Math.max(Duration.between(start, end).toMillis(), 1);
+        return rowsParsed * 1000.0 / millis;
+    }
+
+}
@@ -0,0 +1,13 @@
+package test.task.socks_service.service.importer;
+
+public interface ImportProgressListener {
+
+    ImportProgressListener NONE = new ImportProgressListener() { };
+
+    default void onParsed(long rows) {
+    }
+
+    default void onCommitted(long rows) {
+    }
+
+}
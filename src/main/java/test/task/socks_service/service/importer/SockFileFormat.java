@@ -0,0 +1,45 @@
+package test.task.socks_service.service.importer;
+
+import java.io.IOException;
+import java.util.Locale;
+
+public enum SockFileFormat {
+
+    XLSX(".xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+    CSV(".csv", "text/csv");
+
+    private final String extension;
+    private final String contentType;
+
+    SockFileFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static SockFileFormat of(String fileName) throws IOException {
+        if (fileName != null) {
+            for (SockFileFormat format : values()) {
+                if (fileName.endsWith(format.extension)) {
+                    return format;
+                }
+            }
+        }
+        throw new IOException("Неподдерживаемый формат файла. Поддерживаются только .xlsx и .csv");
+    }
+
+    /**
+     * Формат по имени без точки, как в параметре format: csv или xlsx.
+     */
+    public static SockFileFormat ofName(String name) throws IOException {
+        return of(name == null ? null : "." + name.toLowerCase(Locale.ROOT));
+    }
+
+}
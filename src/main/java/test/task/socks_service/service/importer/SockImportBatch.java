@@ -0,0 +1,221 @@
+package test.task.socks_service.service.importer;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import test.task.socks_service.entity.CottonPercentage;
+import test.task.socks_service.entity.SockKey;
+import test.task.socks_service.service.color.ColorDictionary;
+import test.task.socks_service.service.stock.StockCountCache;
+import test.task.socks_service.service.stock.StockIndex;
+import test.task.socks_service.service.stock.StockWriter;
+
+/**
+ * Буфер строк одного импорта. Строки файла суммируются в памяти по артикулу,
+ * а в конце остатки записываются в БД upsert'ом пакетами фиксированного размера,
+ * каждый пакет в своей транзакции. В режиме журнала движений (write-mode=ledger)
+ * вместо upsert'а по одной строке на артикул дописывается в stock_movements.
+ * <p>
+ * Импорт всегда прибавляет количество к существующей строке артикула: с уникальным
+ * ключом uq_socks_color_cotton (V1_1) добавлять отдельную строку на каждую строку файла,
+ * как раньше, нельзя. Upsert (insert ... on conflict) есть только в PostgreSQL, поэтому
+ * запись импорта, в отличие от чтения файла, на H2 не проверяется.
+ */
+public class SockImportBatch implements SockRowHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SockImportBatch.class);
+    static final String UPSERT_SQL = "insert into socks (color_id, cotton_basis_points, amount) values (?, ?, ?) "
+            + "on conflict (color_id, cotton_basis_points) do update set amount = socks.amount + excluded.amount";
+    static final String APPEND_SQL = "insert into stock_movements (color_id, cotton_basis_points, delta, source) values (?, ?, ?, 'import')";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockIndex stockIndex;
+    private final StockWriter stockWriter;
+    private final StockCountCache stockCountCache;
+    private final String writeSql;
+    private final String source;
+    private final int chunkSize;
+    private final ImportProgressListener listener;
+    private final ColorDictionary colorDictionary;
+    private final Map<String, CottonTotals> totals = new HashMap<>();
+    private final Map<String, CottonTotals> canonicalTotals = new HashMap<>();
+    private long parsed;
+    private long committed;
+    private int chunks;
+
+    SockImportBatch(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, StockIndex stockIndex,
+            StockWriter stockWriter, StockCountCache stockCountCache, ColorDictionary colorDictionary, String writeSql, String source, int chunkSize,
+            ImportProgressListener listener) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.stockIndex = stockIndex;
+        this.stockWriter = stockWriter;
+        this.stockCountCache = stockCountCache;
+        this.colorDictionary = colorDictionary;
+        this.writeSql = writeSql;
+        this.source = source;
+        this.chunkSize = chunkSize;
+        this.listener = listener;
+    }
+
+    @Override
+    public void onRow(String color, int cottonBasisPoints, int amount) {
+        CottonTotals colorTotals = totals.get(color);
+        if (colorTotals == null) {
+            colorTotals = canonicalTotals.computeIfAbsent(ColorDictionary.normalize(color), key -> new CottonTotals());
+            totals.put(color, colorTotals);
+        }
+        colorTotals.add(cottonBasisPoints, amount);
+        parsed++;
+        if ((parsed & 0x3FF) == 0) {
+            listener.onParsed(parsed);
+        }
+    }
+
+    /**
+     * Записывает суммы в БД. Суммы проверяются до первого пакета: пакеты коммитятся
+     * по отдельности, и ошибка в середине оставила бы файл записанным наполовину.
+     * Сумма должна быть положительной, как количество в приходе: импорт только
+     * добавляет носки и не может списать остаток.
+     */
+    public long finish() throws IOException {
+        List<Map.Entry<SockKey, long[]>> entries = new ArrayList<>();
+        canonicalTotals.forEach((color, colorTotals) -> colorTotals.collect(color, entries));
+        for (Map.Entry<SockKey, long[]> entry : entries) {
+            long amount = entry.getValue()[0];
+            if (amount <= 0 || amount != (int) amount) {
+                throw new IOException("Сумма количества по артикулу " + entry.getKey().getColor() + ", "
+                    + CottonPercentage.format(entry.getKey().getCottonBasisPoints()) + "% в файле вне допустимого диапазона: " + amount);
+            }
+        }
+        entries.sort(Map.Entry.comparingByKey());
+        listener.onParsed(parsed);
+        logger.info("Импорт {}: прочитано {} строк, {} артикулов", source, parsed, entries.size());
+
+        for (int from = 0; from < entries.size(); from += chunkSize) {
+            write(entries.subList(from, Math.min(from + chunkSize, entries.size())));
+        }
+        totals.clear();
+        canonicalTotals.clear();
+
+        logger.info("Импорт {} завершен: записано {} строк в {} пакетах", source, committed, chunks);
+        return committed;
+    }
+
+    public long getParsed() {
+        return parsed;
+    }
+
+    public long getCommitted() {
+        return committed;
+    }
+
+    private void write(List<Map.Entry<SockKey, long[]>> chunk) {
+        short[] colorIds = new short[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            colorIds[i] = colorDictionary.intern(chunk.get(i).getKey().getColor());
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(writeSql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<SockKey, long[]> entry = chunk.get(i);
+                ps.setShort(1, colorIds[i]);
+                ps.setInt(2, entry.getKey().getCottonBasisPoints());
+                ps.setInt(3, (int) entry.getValue()[0]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return chunk.size();
+            }
+        }));
+        long rows = 0;
+        for (Map.Entry<SockKey, long[]> entry : chunk) {
+            rows += entry.getValue()[1];
+            stockIndex.applyAfterCommit(entry.getKey().getColor(), entry.getKey().getCottonBasisPoints(), entry.getValue()[0]);
+            stockWriter.onCommitted(entry.getKey().getColor(), entry.getKey().getCottonBasisPoints(), entry.getValue()[0]);
+        }
+        stockCountCache.evictAllAfterCommit();
+        committed += rows;
+        chunks++;
+        listener.onCommitted(committed);
+        logger.info("Импорт {}: записан пакет {} ({} артикулов, всего {} строк)", source, chunks, chunk.size(), committed);
+    }
+
+    /**
+     * Суммы по проценту хлопка для одного цвета: открытая адресация по сотым долям
+     * процента, чтобы на каждую строку файла не создавать ключ и не упаковывать числа.
+     */
+    private static final class CottonTotals {
+
+        private int[] keys = new int[16];
+        private long[] amounts = new long[16];
+        private long[] rows = new long[16];
+        private boolean[] used = new boolean[16];
+        private int size;
+
+        private void add(int key, int amount) {
+            int slot = find(keys, used, key);
+            if (!used[slot]) {
+                used[slot] = true;
+                keys[slot] = key;
+                if (++size * 2 > keys.length) {
+                    grow();
+                    slot = find(keys, used, key);
+                }
+            }
+            amounts[slot] += amount;
+            rows[slot]++;
+        }
+
+        private void collect(String color, List<Map.Entry<SockKey, long[]>> entries) {
+            for (int i = 0; i < keys.length; i++) {
+                if (used[i]) {
+                    entries.add(Map.entry(new SockKey(color, keys[i]), new long[] {amounts[i], rows[i]}));
+                }
+            }
+        }
+
+        private static int find(int[] keys, boolean[] used, int key) {
+            int mask = keys.length - 1;
+            int slot = ((key * 0x9E3779B9) >>> 16) & mask;
+            while (used[slot] && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            long[] oldAmounts = amounts;
+            long[] oldRows = rows;
+            boolean[] oldUsed = used;
+            keys = new int[oldKeys.length * 2];
+            amounts = new long[oldKeys.length * 2];
+            rows = new long[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    int slot = find(keys, used, oldKeys[i]);
+                    used[slot] = true;
+                    keys[slot] = oldKeys[i];
+                    amounts[slot] = oldAmounts[i];
+                    rows[slot] = oldRows[i];
+                }
+            }
+        }
+    }
+
+}
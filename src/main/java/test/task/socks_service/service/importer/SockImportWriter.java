@@ -0,0 +1,33 @@
+package test.task.socks_service.service.importer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.RequiredArgsConstructor;
+import test.task.socks_service.config.ImportProperties;
+import test.task.socks_service.config.StockProperties;
+import test.task.socks_service.service.color.ColorDictionary;
+import test.task.socks_service.service.stock.StockCountCache;
+import test.task.socks_service.service.stock.StockIndex;
+import test.task.socks_service.service.stock.StockWriter;
+
+@Component
+@RequiredArgsConstructor
+public class SockImportWriter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ImportProperties importProperties;
+    private final StockIndex stockIndex;
+    private final StockWriter stockWriter;
+    private final StockCountCache stockCountCache;
+    private final ColorDictionary colorDictionary;
+    private final StockProperties stockProperties;
+
+    public SockImportBatch begin(String source, ImportProgressListener listener) {
+        String writeSql = stockProperties.isLedger() ? SockImportBatch.APPEND_SQL : SockImportBatch.UPSERT_SQL;
+        return new SockImportBatch(jdbcTemplate, transactionTemplate, stockIndex, stockWriter, stockCountCache, colorDictionary, writeSql, source, importProperties.getBatchSize(), listener);
+    }
+
+}
@@ -0,0 +1,13 @@
+package test.task.socks_service.service.importer;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface SockRowHandler {
+
+    /**
+     * @param cottonBasisPoints процент хлопка в сотых долях процента, 0..10000
+     */
+    void onRow(String color, int cottonBasisPoints, int amount) throws IOException;
+
+}
@@ -0,0 +1,151 @@
+package test.task.socks_service.service.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.stereotype.Component;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import test.task.socks_service.entity.CottonPercentage;
+
+/**
+ * Потоковое чтение .xlsx через SAX: в памяти держится только текущая строка листа,
+ * поэтому расход heap не зависит от размера файла.
+ */
+@Component
+public class XlsxSockReader {
+
+    public void read(Path file, SockRowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), strings,
+                        new RowCollector(handler), new RawNumberFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (RowException e) {
+            throw e.getCause();
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Не удалось прочитать Excel файл: " + e.getMessage(), e);
+        }
+    }
+
+    private static final class RowCollector implements SheetContentsHandler {
+
+        private final SockRowHandler handler;
+        private int column;
+        private String color;
+        private String cottonPercentage;
+        private String amount;
+
+        private RowCollector(SockRowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            column = -1;
+            color = null;
+            cottonPercentage = null;
+            amount = null;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (rowNum == 0) {
+                return;
+            }
+            if (color == null || cottonPercentage == null || amount == null) {
+                throw new RowException(new IOException("Некорректные данные в строке " + (rowNum + 1)));
+            }
+            try {
+                int cotton = CottonPercentage.parse(cottonPercentage);
+                if (cotton < 0 || cotton > CottonPercentage.MAX_BASIS_POINTS) {
+                    throw new IllegalArgumentException("Процент хлопка вне диапазона: " + cottonPercentage);
+                }
+                int count = new BigDecimal(amount.trim()).intValueExact();
+                if (count <= 0) {
+                    throw new IllegalArgumentException("Количество носков должно быть положительным числом: " + amount);
+                }
+                handler.onRow(color, cotton, count);
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                throw new RowException(new IOException("Некорректные данные в строке " + (rowNum + 1), e));
+            } catch (IOException e) {
+                throw new RowException(e);
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            column = cellReference != null ? new CellReference(cellReference).getCol() : column + 1;
+            switch (column) {
+                case 0:
+                    color = formattedValue;
+                    break;
+                case 1:
+                    cottonPercentage = formattedValue;
+                    break;
+                case 2:
+                    amount = formattedValue;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Числовые ячейки отдаются значением из файла, без формата ячейки: формат "0" или "0.0"
+     * округлил бы процент хлопка и количество, а формат с разделителем разрядов дал бы
+     * строку, которая не разбирается как число. Строковые ячейки форматом не затрагиваются.
+     */
+    private static final class RawNumberFormatter extends DataFormatter {
+
+        private RawNumberFormatter() {
+            super(Locale.ROOT);
+        }
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            return BigDecimal.valueOf(value).toPlainString();
+        }
+    }
+
+    private static final class RowException extends RuntimeException {
+
+        private RowException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+}
@@ -0,0 +1,200 @@
+package test.task.socks_service.service.stock;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.transaction.Transactional;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.entity.SockKey;
+import test.task.socks_service.entity.dto.BulkMovementResult;
+import test.task.socks_service.exception.NoEnoughSocksException;
+import test.task.socks_service.exception.NoSocksFoundException;
+import test.task.socks_service.repository.SocksRepository;
+import test.task.socks_service.service.color.ColorDictionary;
+
+/**
+ * Приход и отпуск одним условным запросом к БД: проверка остатка и изменение
+ * выполняются в самой БД под блокировкой строки на время одного запроса, без
+ * чтения в приложение и без отдельного UPDATE при сбросе контекста Hibernate.
+ * Списки позиций сворачиваются по артикулам и пишутся пакетом в одной транзакции.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "socks.stock", name = "write-mode", havingValue = "direct", matchIfMissing = true)
+public class DirectStockWriter implements StockWriter {
+
+    private static final String UPSERT_SQL = "insert into socks (color_id, cotton_basis_points, amount) values (?, ?, ?) "
+            + "on conflict (color_id, cotton_basis_points) do update set amount = socks.amount + excluded.amount";
+    private static final String DECREASE_SQL = "update socks set amount = amount - ? where color_id = ? and cotton_basis_points = ?";
+    private static final int LOCK_CHUNK_SIZE = 1000;
+
+    private final SocksRepository socksRepository;
+    private final StockIndex stockIndex;
+    private final StockCountCache stockCountCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final ColorDictionary colorDictionary;
+    private final SockRelabeler sockRelabeler;
+
+    @Override
+    @Transactional
+    public Sock income(Sock sock) {
+        Sock result = this.socksRepository.increaseAmount(this.colorDictionary.intern(sock.getColor()), sock.getCottonBasisPoints(), sock.getAmount());
+        this.stockIndex.applyAfterCommit(sock.getColor(), sock.getCottonBasisPoints(), sock.getAmount());
+        this.stockCountCache.evictAfterCommit(sock.getColor(), sock.getCottonBasisPoints());
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public Sock outcome(Sock sock) throws NoSocksFoundException, NoEnoughSocksException {
+        Short colorId = this.colorDictionary.idOf(sock.getColor());
+        if (colorId == null) {
+            throw new NoSocksFoundException("На складе не найдено носков данного типа");
+        }
+        Optional<Sock> sockOptional = this.socksRepository.decreaseAmount(colorId, sock.getCottonBasisPoints(), sock.getAmount());
+        if (sockOptional.isPresent()) {
+            this.stockIndex.applyAfterCommit(sock.getColor(), sock.getCottonBasisPoints(), -sock.getAmount());
+            this.stockCountCache.evictAfterCommit(sock.getColor(), sock.getCottonBasisPoints());
+            return sockOptional.get();
+        } else if (!this.socksRepository.existsByColorAndCottonBasisPoints(sock.getColor(), sock.getCottonBasisPoints())) {
+            throw new NoSocksFoundException("На складе не найдено носков данного типа");
+        } else {
+            throw new NoEnoughSocksException("На складе недостаточно носков данного типа");
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<BulkMovementResult> incomeAll(List<Sock> socks) {
+        Map<SockKey, Long> totals = new TreeMap<>();
+        List<BulkMovementResult> results = new ArrayList<>(socks.size());
+        for (int i = 0; i < socks.size(); i++) {
+            totals.merge(SockKey.of(socks.get(i)), (long) socks.get(i).getAmount(), Long::sum);
+            results.add(BulkMovementResult.applied(i, socks.get(i)));
+        }
+        write(UPSERT_SQL, totals, true);
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public List<BulkMovementResult> outcomeAll(List<Sock> socks) {
+        Map<SockKey, Long> available = lock(socks);
+        Map<SockKey, Long> totals = new TreeMap<>();
+        List<BulkMovementResult> results = new ArrayList<>(socks.size());
+        for (int i = 0; i < socks.size(); i++) {
+            Sock sock = socks.get(i);
+            SockKey key = SockKey.of(sock);
+            Long amount = available.get(key);
+            if (amount == null) {
+                results.add(BulkMovementResult.rejected(i, sock, "На складе не найдено носков данного типа"));
+            } else if (amount < sock.getAmount()) {
+                results.add(BulkMovementResult.rejected(i, sock, "На складе недостаточно носков данного типа"));
+            } else {
+                available.put(key, amount - sock.getAmount());
+                totals.merge(key, (long) sock.getAmount(), Long::sum);
+                results.add(BulkMovementResult.applied(i, sock));
+            }
+        }
+        write(DECREASE_SQL, totals, false);
+        return results;
+    }
+
+    /**
+     * Строка блокируется на время переноса: отпуск по старому артикулу, начатый раньше,
+     * дописывается до переноса, а начатый позже уже не находит строку.
+     */
+    @Override
+    @Transactional
+    public Optional<Sock> relabel(long id, String color, int cottonBasisPoints) {
+        return this.sockRelabeler.lock(id).map(sock -> this.sockRelabeler.move(sock, color, cottonBasisPoints));
+    }
+
+    /**
+     * Блокирует строки артикулов до конца транзакции и возвращает их остатки.
+     * Артикулы блокируются в одном порядке, чтобы встречные списки не ловили взаимоблокировку.
+     */
+    private Map<SockKey, Long> lock(List<Sock> socks) {
+        Set<SockKey> sorted = new TreeSet<>();
+        socks.forEach(sock -> sorted.add(SockKey.of(sock)));
+        List<SockKey> keys = new ArrayList<>();
+        List<Short> colorIds = new ArrayList<>();
+        for (SockKey key : sorted) {
+            Short colorId = this.colorDictionary.idOf(key.getColor());
+            if (colorId != null) {
+                keys.add(key);
+                colorIds.add(colorId);
+            }
+        }
+        Map<SockKey, Long> available = new HashMap<>();
+        for (int from = 0; from < keys.size(); from += LOCK_CHUNK_SIZE) {
+            int start = from;
+            int size = Math.min(LOCK_CHUNK_SIZE, keys.size() - from);
+            String sql = "select color_id, cotton_basis_points, amount from socks where (color_id, cotton_basis_points) in ("
+                    + String.join(", ", Collections.nCopies(size, "(?, ?)"))
+                    + ") order by color_id, cotton_basis_points for update";
+            this.jdbcTemplate.query(sql, (PreparedStatementSetter) ps -> {
+                for (int i = 0; i < size; i++) {
+                    ps.setShort(i * 2 + 1, colorIds.get(start + i));
+                    ps.setInt(i * 2 + 2, keys.get(start + i).getCottonBasisPoints());
+                }
+            }, (RowCallbackHandler) rs -> available.put(
+                new SockKey(this.colorDictionary.nameOf(rs.getShort(1)), rs.getInt(2)), rs.getLong(3)));
+        }
+        return available;
+    }
+
+    private void write(String sql, Map<SockKey, Long> totals, boolean income) {
+        if (totals.isEmpty()) {
+            return;
+        }
+        List<SockKey> keys = new ArrayList<>(totals.keySet());
+        short[] colorIds = new short[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            colorIds[i] = this.colorDictionary.intern(keys.get(i).getColor());
+        }
+        this.jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                SockKey key = keys.get(i);
+                if (income) {
+                    ps.setShort(1, colorIds[i]);
+                    ps.setInt(2, key.getCottonBasisPoints());
+                    ps.setLong(3, totals.get(key));
+                } else {
+                    ps.setLong(1, totals.get(key));
+                    ps.setShort(2, colorIds[i]);
+                    ps.setInt(3, key.getCottonBasisPoints());
+                }
+            }
+
+            @Override
+            public int getBatchSize() {
+                return keys.size();
+            }
+        });
+        totals.forEach((key, delta) -> {
+            this.stockIndex.applyAfterCommit(key.getColor(), key.getCottonBasisPoints(), income ? delta : -delta);
+            this.stockCountCache.evictAfterCommit(key.getColor(), key.getCottonBasisPoints());
+        });
+    }
+
+}
@@ -0,0 +1,327 @@
+package test.task.socks_service.service.stock;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PreDestroy;
+import javax.transaction.Transactional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.RequiredArgsConstructor;
+import test.task.socks_service.config.StockProperties;
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.entity.SockKey;
+import test.task.socks_service.entity.dto.BulkMovementResult;
+import test.task.socks_service.exception.NoEnoughSocksException;
+import test.task.socks_service.exception.NoSocksFoundException;
+import test.task.socks_service.service.color.ColorDictionary;
+
+/**
+ * Приход и отпуск дописываются в журнал stock_movements, строка остатка в socks при
+ * этом не обновляется: приходы не ждут друг друга на одной строке. Отпуск блокирует
+ * строку снимка артикула, чтобы встречные отпуска не увели остаток в минус.
+ * Фоновое сжатие сворачивает движения в снимок socks, текущий остаток - это снимок
+ * плюс несвернутый хвост журнала. Списки носков (/filter) читают только снимок и
+ * отстают от журнала не больше чем на интервал сжатия. Вместе со снимком сжатие ведет
+ * дневные итоги для запросов остатка на дату, см. {@link StockHistory}.
+ * Включается свойством socks.stock.write-mode=ledger.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "socks.stock", name = "write-mode", havingValue = "ledger")
+public class LedgerStockWriter implements StockWriter, SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerStockWriter.class);
+    private static final int LOCK_CHUNK_SIZE = 1000;
+    /**
+     * Ключ блокировки pg_advisory_xact_lock: сжатие журнала и перенос строки на другой
+     * артикул не идут одновременно ни в одном экземпляре. Иначе перенос, заблокировав
+     * строку снимка, ждал бы движений, которые держит сжатие, а сжатие - эту строку.
+     */
+    private static final long COMPACTION_LOCK = 0x6C6564676572L;
+    private static final String APPEND_SQL = "insert into stock_movements (color_id, cotton_basis_points, delta, source) values (?, ?, ?, ?)";
+    private static final String CURRENT_SQL = "select max(id), coalesce(sum(amount), 0) from ("
+            + "select id, amount from socks where color_id = ? and cotton_basis_points = ? "
+            + "union all select cast(null as bigint), delta from stock_movements "
+            + "where not folded and color_id = ? and cotton_basis_points = ?) stock";
+    private static final String COMPACT_SQL = "with batch as ("
+            + "update stock_movements set folded = true where not folded and id in ("
+            + "select id from stock_movements where not folded order by id limit ? for update skip locked) "
+            + "returning color_id, cotton_basis_points, delta, created_at), "
+            + "snapshot as (insert into socks (color_id, cotton_basis_points, amount) "
+            + "select color_id, cotton_basis_points, sum(delta) from batch group by color_id, cotton_basis_points "
+            + "order by color_id, cotton_basis_points "
+            + "on conflict (color_id, cotton_basis_points) do update set amount = socks.amount + excluded.amount) "
+            + "select color_id, cotton_basis_points, cast(created_at as date), sum(delta), count(*) from batch "
+            + "group by color_id, cotton_basis_points, cast(created_at as date)";
+    private static final String FOLD_KEY_SQL = "with batch as ("
+            + "update stock_movements set folded = true where not folded and color_id = ? and cotton_basis_points = ? "
+            + "returning color_id, cotton_basis_points, delta, created_at) "
+            + "select color_id, cotton_basis_points, cast(created_at as date), sum(delta) from batch "
+            + "group by color_id, cotton_basis_points, cast(created_at as date)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockIndex stockIndex;
+    private final StockCountCache stockCountCache;
+    private final ColorDictionary colorDictionary;
+    private final StockProperties stockProperties;
+    private final StockHistory stockHistory;
+    private final SockRelabeler sockRelabeler;
+    private final ReentrantLock compactionLock = new ReentrantLock();
+
+    /**
+     * Сворачивает хвост журнала, оставшийся от прошлого запуска, и сверяет дневные итоги
+     * со снимком, чтобы остатки на дату начинались с фактических остатков.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        flush();
+        this.stockHistory.reconcile();
+    }
+
+    @Override
+    @Transactional
+    public Sock income(Sock sock) {
+        short colorId = this.colorDictionary.intern(sock.getColor());
+        append(Collections.singletonList(sock), new short[] {colorId}, true);
+        return current(sock, colorId);
+    }
+
+    @Override
+    @Transactional
+    public Sock outcome(Sock sock) throws NoSocksFoundException, NoEnoughSocksException {
+        Short colorId = this.colorDictionary.idOf(sock.getColor());
+        Long amount = colorId == null ? null : lock(Collections.singletonList(sock)).get(SockKey.of(sock));
+        if (amount == null) {
+            throw new NoSocksFoundException("На складе не найдено носков данного типа");
+        }
+        if (amount < sock.getAmount()) {
+            throw new NoEnoughSocksException("На складе недостаточно носков данного типа");
+        }
+        append(Collections.singletonList(sock), new short[] {colorId}, false);
+        return current(sock, colorId);
+    }
+
+    @Override
+    @Transactional
+    public List<BulkMovementResult> incomeAll(List<Sock> socks) {
+        short[] colorIds = new short[socks.size()];
+        List<BulkMovementResult> results = new ArrayList<>(socks.size());
+        for (int i = 0; i < socks.size(); i++) {
+            colorIds[i] = this.colorDictionary.intern(socks.get(i).getColor());
+            results.add(BulkMovementResult.applied(i, socks.get(i)));
+        }
+        append(socks, colorIds, true);
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public List<BulkMovementResult> outcomeAll(List<Sock> socks) {
+        Map<SockKey, Long> available = lock(socks);
+        List<Sock> applied = new ArrayList<>(socks.size());
+        List<BulkMovementResult> results = new ArrayList<>(socks.size());
+        for (int i = 0; i < socks.size(); i++) {
+            Sock sock = socks.get(i);
+            SockKey key = SockKey.of(sock);
+            Long amount = available.get(key);
+            if (amount == null) {
+                results.add(BulkMovementResult.rejected(i, sock, "На складе не найдено носков данного типа"));
+            } else if (amount < sock.getAmount()) {
+                results.add(BulkMovementResult.rejected(i, sock, "На складе недостаточно носков данного типа"));
+            } else {
+                available.put(key, amount - sock.getAmount());
+                applied.add(sock);
+                results.add(BulkMovementResult.applied(i, sock));
+            }
+        }
+        short[] colorIds = new short[applied.size()];
+        for (int i = 0; i < applied.size(); i++) {
+            colorIds[i] = this.colorDictionary.idOf(applied.get(i).getColor());
+        }
+        append(applied, colorIds, false);
+        return results;
+    }
+
+    /**
+     * Переносит строку снимка на другой артикул. Строка блокируется, как при отпуске:
+     * отпуск по старому артикулу, начатый раньше, успевает дописать движение, и оно
+     * сворачивается в строку до переноса вместе с остальным хвостом журнала по этому
+     * артикулу. Отпуск, начатый позже, строки по старому артикулу уже не находит, а приход
+     * по нему создаст новую строку при следующем сжатии. Дневные итоги обоих артикулов
+     * сдвигаются в той же транзакции, так что остатки на дату не ждут сверки.
+     */
+    @Override
+    public Optional<Sock> relabel(long id, String color, int cottonBasisPoints) {
+        return this.transactionTemplate.execute(status -> {
+            this.jdbcTemplate.queryForObject("select pg_advisory_xact_lock(?)", Object.class, COMPACTION_LOCK);
+            return this.sockRelabeler.lock(id).map(sock -> {
+                Sock folded = foldTail(sock);
+                Sock moved = this.sockRelabeler.move(folded, color, cottonBasisPoints);
+                this.stockHistory.relabel(folded, moved);
+                return moved;
+            });
+        });
+    }
+
+    /**
+     * Сворачивает в снимок и дневные итоги несвернутые движения артикула заблокированной строки.
+     */
+    private Sock foldTail(Sock sock) {
+        List<StockHistory.DayDelta> days = this.jdbcTemplate.query(FOLD_KEY_SQL, StockHistory.DAY_DELTA,
+            this.colorDictionary.idOf(sock.getColor()), sock.getCottonBasisPoints());
+        if (days.isEmpty()) {
+            return sock;
+        }
+        long tail = days.stream().mapToLong(StockHistory.DayDelta::getDelta).sum();
+        this.jdbcTemplate.update("update socks set amount = amount + ? where id = ?", tail, sock.getId());
+        this.stockHistory.apply(days);
+        return new Sock(sock.getId(), sock.getColor(), sock.getCottonBasisPoints(), Math.toIntExact(sock.getAmount() + tail));
+    }
+
+    /**
+     * Сворачивает несвернутые движения в снимок socks и дневные итоги пакетами по
+     * compact-batch-size, пока хвост журнала не станет короче пакета. Суммы остатков
+     * при этом не меняются, поэтому индекс и кэш остатков не трогаются. Каждый пакет -
+     * своя транзакция, даже если flush вызван внутри чужой: ошибка сжатия не откатывает
+     * вызывающего, а блокировки сжатия не держатся до его коммита. Сжатия одного
+     * экземпляра идут по очереди, между экземплярами - под блокировкой {@link #COMPACTION_LOCK}.
+     */
+    @Override
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${socks.stock.ledger.compact-interval:1000}")
+    public void flush() {
+        int batchSize = this.stockProperties.getLedger().getCompactBatchSize();
+        TransactionTemplate newTransaction = new TransactionTemplate(this.transactionTemplate.getTransactionManager());
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        long total = 0;
+        long folded;
+        this.compactionLock.lock();
+        try {
+            do {
+                folded = newTransaction.execute(status -> compact(batchSize));
+                total += folded;
+            } while (folded == batchSize);
+        } catch (RuntimeException e) {
+            logger.error("Не удалось свернуть журнал движений в снимок остатков, повторим позже", e);
+        } finally {
+            this.compactionLock.unlock();
+        }
+        if (total > 0) {
+            logger.debug("Журнал движений свернут в снимок остатков: {} движений", total);
+        }
+    }
+
+    private long compact(int batchSize) {
+        this.jdbcTemplate.queryForObject("select pg_advisory_xact_lock(?)", Object.class, COMPACTION_LOCK);
+        List<StockHistory.DayDelta> days = new ArrayList<>();
+        long[] folded = new long[1];
+        this.jdbcTemplate.query(COMPACT_SQL, (RowCallbackHandler) rs -> {
+            days.add(StockHistory.DAY_DELTA.mapRow(rs, days.size()));
+            folded[0] += rs.getLong(5);
+        }, batchSize);
+        this.stockHistory.apply(days);
+        return folded[0];
+    }
+
+    /**
+     * Блокирует строки снимка артикулов до конца транзакции и возвращает текущие остатки:
+     * снимок плюс несвернутые движения. Для артикулов, которые пока есть только в журнале,
+     * сначала создается пустая строка снимка, чтобы было что блокировать. Строки блокируются
+     * в одном порядке, чтобы встречные отпуска и сжатие не ловили взаимоблокировку.
+     * Остатки читаются отдельным запросом уже после блокировки, чтобы увидеть движения
+     * транзакций, которые держали блокировку до нас.
+     */
+    private Map<SockKey, Long> lock(List<Sock> socks) {
+        Set<SockKey> sorted = new TreeSet<>();
+        socks.forEach(sock -> sorted.add(SockKey.of(sock)));
+        List<SockKey> keys = new ArrayList<>();
+        List<Short> colorIds = new ArrayList<>();
+        for (SockKey key : sorted) {
+            Short colorId = this.colorDictionary.idOf(key.getColor());
+            if (colorId != null) {
+                keys.add(key);
+                colorIds.add(colorId);
+            }
+        }
+        Map<SockKey, Long> available = new HashMap<>();
+        for (int from = 0; from < keys.size(); from += LOCK_CHUNK_SIZE) {
+            int start = from;
+            int size = Math.min(LOCK_CHUNK_SIZE, keys.size() - from);
+            String in = "(color_id, cotton_basis_points) in (" + String.join(", ", Collections.nCopies(size, "(?, ?)")) + ")";
+            PreparedStatementSetter params = ps -> {
+                for (int i = 0; i < size; i++) {
+                    ps.setShort(i * 2 + 1, colorIds.get(start + i));
+                    ps.setInt(i * 2 + 2, keys.get(start + i).getCottonBasisPoints());
+                }
+            };
+            this.jdbcTemplate.update("insert into socks (color_id, cotton_basis_points, amount) "
+                    + "select distinct color_id, cotton_basis_points, 0 from stock_movements where not folded and " + in
+                    + " on conflict (color_id, cotton_basis_points) do nothing", params);
+            this.jdbcTemplate.query("select id from socks where " + in
+                    + " order by color_id, cotton_basis_points for update", params, (RowCallbackHandler) rs -> { });
+            this.jdbcTemplate.query("select s.color_id, s.cotton_basis_points, s.amount + coalesce((select sum(m.delta) "
+                    + "from stock_movements m where not m.folded and m.color_id = s.color_id "
+                    + "and m.cotton_basis_points = s.cotton_basis_points), 0) from socks s where " + in, params,
+                (RowCallbackHandler) rs -> available.put(
+                    new SockKey(this.colorDictionary.nameOf(rs.getShort(1)), rs.getInt(2)), rs.getLong(3)));
+        }
+        return available;
+    }
+
+    private void append(List<Sock> socks, short[] colorIds, boolean income) {
+        if (socks.isEmpty()) {
+            return;
+        }
+        String source = income ? "income" : "outcome";
+        this.jdbcTemplate.batchUpdate(APPEND_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Sock sock = socks.get(i);
+                ps.setShort(1, colorIds[i]);
+                ps.setInt(2, sock.getCottonBasisPoints());
+                ps.setInt(3, income ? sock.getAmount() : -sock.getAmount());
+                ps.setString(4, source);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return socks.size();
+            }
+        });
+        for (Sock sock : socks) {
+            this.stockIndex.applyAfterCommit(sock.getColor(), sock.getCottonBasisPoints(), income ? sock.getAmount() : -sock.getAmount());
+            this.stockCountCache.evictAfterCommit(sock.getColor(), sock.getCottonBasisPoints());
+        }
+    }
+
+    private Sock current(Sock sock, short colorId) {
+        return this.jdbcTemplate.queryForObject(CURRENT_SQL, (rs, rowNum) -> {
+            long id = rs.getLong(1);
+            return new Sock(rs.wasNull() ? null : id, sock.getColor(), sock.getCottonBasisPoints(), Math.toIntExact(rs.getLong(2)));
+        }, colorId, sock.getCottonBasisPoints(), colorId, sock.getCottonBasisPoints());
+    }
+
+}
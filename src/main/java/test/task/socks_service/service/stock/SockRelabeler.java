@@ -0,0 +1,60 @@
+package test.task.socks_service.service.stock;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.service.color.ColorDictionary;
+
+/**
+ * Перенос строки остатка на другой артикул (PUT /api/socks/{id}), общий для всех
+ * способов записи. Вызывается в транзакции писателя: сначала строка блокируется,
+ * затем писатель доводит ее остаток до текущего и переносит.
+ */
+@Component
+@RequiredArgsConstructor
+class SockRelabeler {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StockIndex stockIndex;
+    private final StockCountCache stockCountCache;
+    private final ColorDictionary colorDictionary;
+
+    /**
+     * Читает артикул и остаток строки без блокировки, для выбора блокировок до транзакции.
+     */
+    Optional<Sock> find(long id) {
+        List<Sock> found = this.jdbcTemplate.query("select color_id, cotton_basis_points, amount from socks where id = ?",
+            (rs, rowNum) -> new Sock(id, this.colorDictionary.nameOf(rs.getShort(1)), rs.getInt(2), rs.getInt(3)), id);
+        return found.stream().findFirst();
+    }
+
+    /**
+     * Блокирует строку до конца транзакции и возвращает ее артикул и остаток.
+     */
+    Optional<Sock> lock(long id) {
+        List<Sock> found = this.jdbcTemplate.query("select color_id, cotton_basis_points, amount from socks where id = ? for update",
+            (rs, rowNum) -> new Sock(id, this.colorDictionary.nameOf(rs.getShort(1)), rs.getInt(2), rs.getInt(3)), id);
+        return found.stream().findFirst();
+    }
+
+    /**
+     * Переносит заблокированную строку на артикул (color, cottonBasisPoints) вместе с остатком,
+     * индекс и кэш остатков обновляются после коммита.
+     */
+    Sock move(Sock locked, String color, int cottonBasisPoints) {
+        this.jdbcTemplate.update("update socks set color_id = ?, cotton_basis_points = ? where id = ?",
+            this.colorDictionary.intern(color), cottonBasisPoints, locked.getId());
+        long amount = locked.getAmount();
+        this.stockIndex.applyAfterCommit(locked.getColor(), locked.getCottonBasisPoints(), -amount);
+        this.stockIndex.applyAfterCommit(color, cottonBasisPoints, amount);
+        this.stockCountCache.evictAfterCommit(locked.getColor(), locked.getCottonBasisPoints());
+        this.stockCountCache.evictAfterCommit(color, cottonBasisPoints);
+        return new Sock(locked.getId(), color, cottonBasisPoints, locked.getAmount());
+    }
+
+}
@@ -0,0 +1,125 @@
+package test.task.socks_service.service.stock;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Value;
+import test.task.socks_service.config.StockProperties;
+import test.task.socks_service.service.color.ColorDictionary;
+
+/**
+ * Кэш сумм остатков из БД по (оператор, цвет, процент хлопка). Используется, когда
+ * индекс остатков в памяти выключен. Суммы не пересчитываются на месте: загрузка,
+ * прочитавшая БД после коммита, учла бы изменение дважды. Вместо удаления записей
+ * запись артикула после коммита увеличивает поколение: свое для суммы "equal" по этому
+ * артикулу и общее для сумм "moreThan"/"lessThan" по цвету. Поколение входит в ключ,
+ * поэтому сброс стоит O(1), а загрузка, начатая до сброса, кладет результат под старый
+ * ключ, который уже никто не читает. Такие записи вытесняются по размеру и времени жизни,
+ * время жизни задает и допустимое отставание от записей других экземпляров приложения.
+ * Поколения тоже ограничены по памяти: по цвету - массив по id цвета, по артикулу - кэш
+ * того же размера, что и суммы. Суммы по цветам, которых нет в справочнике, не кэшируются,
+ * чтобы запросы со случайными цветами не занимали память.
+ */
+@Component
+public class StockCountCache {
+
+    private final boolean enabled;
+    private final ColorDictionary colorDictionary;
+    private final Cache<CountKey, Integer> cache;
+    private final AtomicLong epoch = new AtomicLong();
+    /**
+     * Источник поколений: поколение артикула, вытесненное из кэша поколений, при следующем
+     * обращении получает новое значение, а не 0, и не совпадает ни с одним прежним ключом.
+     */
+    private final AtomicLong stamps = new AtomicLong();
+    private final AtomicLongArray colorGenerations = new AtomicLongArray(Short.MAX_VALUE + 1);
+    private final Cache<Long, Long> keyGenerations;
+
+    public StockCountCache(StockProperties stockProperties, MeterRegistry meterRegistry, ColorDictionary colorDictionary) {
+        StockProperties.Cache properties = stockProperties.getCache();
+        this.enabled = properties.isEnabled();
+        this.colorDictionary = colorDictionary;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterWrite(properties.getExpireAfterWrite())
+            .recordStats()
+            .build();
+        this.keyGenerations = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "socks.stock.counts");
+    }
+
+    public Integer get(String operator, String color, int cottonBasisPoints, Supplier<Integer> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Short colorId = colorDictionary.idOf(color);
+        if (colorId == null) {
+            return loader.get();
+        }
+        long generation = "equal".equals(operator)
+            ? keyGenerations.get(keyOf(colorId, cottonBasisPoints), key -> stamps.incrementAndGet())
+            : colorGenerations.get(colorId);
+        CountKey countKey = new CountKey(operator, color, cottonBasisPoints, epoch.get(), generation);
+        return cache.get(countKey, key -> {
+            Integer amount = loader.get();
+            return amount == null ? 0 : amount;
+        });
+    }
+
+    /**
+     * Сбрасывает суммы, которые меняет запись артикула, после коммита текущей транзакции.
+     */
+    public void evictAfterCommit(String color, int cottonBasisPoints) {
+        if (!enabled) {
+            return;
+        }
+        Short colorId = colorDictionary.idOf(color);
+        if (colorId != null) {
+            AfterCommit.run(() -> {
+                keyGenerations.put(keyOf(colorId, cottonBasisPoints), stamps.incrementAndGet());
+                colorGenerations.set(colorId, stamps.incrementAndGet());
+            });
+        }
+    }
+
+    /**
+     * Для массовых записей, где сброс по каждому артикулу дороже полной очистки.
+     */
+    public void evictAllAfterCommit() {
+        if (enabled) {
+            AfterCommit.run(() -> {
+                epoch.incrementAndGet();
+                cache.invalidateAll();
+            });
+        }
+    }
+
+    private static long keyOf(short colorId, int cottonBasisPoints) {
+        return ((long) colorId << 32) | cottonBasisPoints;
+    }
+
+    /**
+     * Общее поколение и поколение артикула или цвета только растут, поэтому ключ суммы
+     * после любого сброса новый.
+     */
+    @Value
+    static class CountKey {
+
+        String operator;
+        String color;
+        int cottonBasisPoints;
+        long epoch;
+        long generation;
+    }
+
+}
@@ -0,0 +1,271 @@
+package test.task.socks_service.service.stock;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.transaction.Transactional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import test.task.socks_service.config.StockProperties;
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.entity.SockKey;
+import test.task.socks_service.exception.StockHistoryException;
+import test.task.socks_service.service.color.ColorDictionary;
+
+/**
+ * Остатки на дату по журналу движений. Свернутые движения складываются в дневные итоги
+ * stock_balance_buckets: остаток артикула на конец каждого дня, в который были движения.
+ * Остаток на момент T - последний итог до дня T (один поиск по первичному ключу) плюс
+ * движения с начала дня T до T и еще не свернутые движения, то есть не больше одного дня
+ * журнала. История ведется только в режиме socks.stock.write-mode=ledger и начинается
+ * со сверки остатков при первом запуске в этом режиме.
+ */
+@Component
+@RequiredArgsConstructor
+public class StockHistory {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockHistory.class);
+    private static final int CHUNK_SIZE = 1000;
+    /**
+     * Ключ блокировки pg_advisory_xact_lock: дневные итоги меняет один экземпляр за раз,
+     * иначе два сжатия могут одновременно создать итог одного дня и потерять одно из слагаемых.
+     */
+    private static final long BUCKETS_LOCK = 0x736F636B73L;
+    private static final String SHIFT_SQL = "update stock_balance_buckets set balance = balance + ? "
+            + "where color_id = ? and cotton_basis_points = ? and bucket_day >= ?";
+    private static final String OPEN_SQL = "insert into stock_balance_buckets (color_id, cotton_basis_points, bucket_day, balance) "
+            + "select ?, ?, ?, coalesce((select balance from stock_balance_buckets where color_id = ? and cotton_basis_points = ? "
+            + "and bucket_day < ? order by bucket_day desc limit 1), 0) + ? "
+            + "on conflict (color_id, cotton_basis_points, bucket_day) do nothing";
+    private static final String RECONCILE_SQL = "with latest as ("
+            + "select distinct on (color_id, cotton_basis_points) color_id, cotton_basis_points, balance "
+            + "from stock_balance_buckets order by color_id, cotton_basis_points, bucket_day desc), "
+            + "diff as (select coalesce(s.color_id, l.color_id) as color_id, "
+            + "coalesce(s.cotton_basis_points, l.cotton_basis_points) as cotton_basis_points, "
+            + "coalesce(s.amount, 0) - coalesce(l.balance, 0) as delta "
+            + "from socks s full join latest l on l.color_id = s.color_id and l.cotton_basis_points = s.cotton_basis_points) "
+            + "insert into stock_movements (color_id, cotton_basis_points, delta, source, folded) "
+            + "select color_id, cotton_basis_points, delta, 'reconcile', true from diff where delta <> 0 "
+            + "returning color_id, cotton_basis_points, cast(created_at as date), delta";
+    private static final String RELABEL_SQL = "insert into stock_movements (color_id, cotton_basis_points, delta, source, folded) "
+            + "values (?, ?, ?, 'relabel', true), (?, ?, ?, 'relabel', true) "
+            + "returning color_id, cotton_basis_points, cast(created_at as date), delta";
+    private static final Comparator<DayDelta> DAY_ORDER = Comparator.comparingInt(DayDelta::getColorId)
+        .thenComparingInt(DayDelta::getCottonBasisPoints)
+        .thenComparing(DayDelta::getDay);
+    /**
+     * Строки (color_id, cotton_basis_points, день, сумма) в {@link DayDelta}.
+     */
+    static final RowMapper<DayDelta> DAY_DELTA = (rs, rowNum) ->
+        new DayDelta(rs.getShort(1), rs.getInt(2), rs.getDate(3).toLocalDate(), rs.getLong(4));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ColorDictionary colorDictionary;
+    private final StockProperties stockProperties;
+
+    public boolean isAvailable() {
+        return this.stockProperties.isLedger();
+    }
+
+    /**
+     * Сумма остатков цвета на момент asOf с фильтром по проценту хлопка, как в текущих запросах количества.
+     * Итоги и хвост журнала читаются одним запросом, чтобы сжатие между ними не учло движения дважды.
+     */
+    public long amountAsOf(String color, int cottonBasisPoints, String operator, LocalDateTime asOf) throws StockHistoryException {
+        checkAvailable();
+        String condition;
+        switch (operator) {
+            case "moreThan":
+                condition = "cotton_basis_points > ?";
+                break;
+            case "lessThan":
+                condition = "cotton_basis_points < ?";
+                break;
+            case "equal":
+                condition = "cotton_basis_points = ?";
+                break;
+            default:
+                throw new IllegalArgumentException("Неверный оператор сравнения: " + operator);
+        }
+        Short colorId = this.colorDictionary.idOf(color);
+        if (colorId == null) {
+            return 0;
+        }
+        Timestamp at = Timestamp.valueOf(asOf);
+        Timestamp dayStart = Timestamp.valueOf(asOf.toLocalDate().atStartOfDay());
+        Date day = Date.valueOf(asOf.toLocalDate());
+        return this.jdbcTemplate.queryForObject("select coalesce(sum(amount), 0) from ("
+                + "select * from (select distinct on (cotton_basis_points) balance as amount from stock_balance_buckets "
+                + "where color_id = ? and " + condition + " and bucket_day < ? order by cotton_basis_points, bucket_day desc) buckets "
+                + "union all select delta from stock_movements "
+                + "where color_id = ? and " + condition + " and created_at < ? and (created_at >= ? or not folded)) history",
+            Long.class, colorId, cottonBasisPoints, day, colorId, cottonBasisPoints, at, dayStart);
+    }
+
+    /**
+     * Остатки перечисленных артикулов на момент asOf. Артикулы без движений до asOf в ответ не попадают.
+     */
+    public Map<SockKey, Long> amountsAsOf(Collection<SockKey> keys, LocalDateTime asOf) throws StockHistoryException {
+        checkAvailable();
+        List<SockKey> known = new ArrayList<>(keys.size());
+        List<Short> colorIds = new ArrayList<>(keys.size());
+        for (SockKey key : keys) {
+            Short colorId = this.colorDictionary.idOf(key.getColor());
+            if (colorId != null) {
+                known.add(key);
+                colorIds.add(colorId);
+            }
+        }
+        Timestamp at = Timestamp.valueOf(asOf);
+        Timestamp dayStart = Timestamp.valueOf(asOf.toLocalDate().atStartOfDay());
+        Date day = Date.valueOf(asOf.toLocalDate());
+        Map<SockKey, Long> amounts = new HashMap<>();
+        for (int from = 0; from < known.size(); from += CHUNK_SIZE) {
+            int start = from;
+            int size = Math.min(CHUNK_SIZE, known.size() - from);
+            String in = "(color_id, cotton_basis_points) in (" + String.join(", ", Collections.nCopies(size, "(?, ?)")) + ")";
+            PreparedStatementSetter params = ps -> {
+                int index = 1;
+                for (int i = 0; i < size; i++) {
+                    ps.setShort(index++, colorIds.get(start + i));
+                    ps.setInt(index++, known.get(start + i).getCottonBasisPoints());
+                }
+                ps.setDate(index++, day);
+                for (int i = 0; i < size; i++) {
+                    ps.setShort(index++, colorIds.get(start + i));
+                    ps.setInt(index++, known.get(start + i).getCottonBasisPoints());
+                }
+                ps.setTimestamp(index++, at);
+                ps.setTimestamp(index, dayStart);
+            };
+            this.jdbcTemplate.query("select color_id, cotton_basis_points, balance from ("
+                    + "select distinct on (color_id, cotton_basis_points) color_id, cotton_basis_points, balance "
+                    + "from stock_balance_buckets where " + in + " and bucket_day < ? "
+                    + "order by color_id, cotton_basis_points, bucket_day desc) buckets "
+                    + "union all select color_id, cotton_basis_points, sum(delta) from stock_movements where " + in
+                    + " and created_at < ? and (created_at >= ? or not folded) group by color_id, cotton_basis_points",
+                params, (RowCallbackHandler) rs -> amounts.merge(
+                    new SockKey(this.colorDictionary.nameOf(rs.getShort(1)), rs.getInt(2)), rs.getLong(3), Long::sum));
+        }
+        return amounts;
+    }
+
+    /**
+     * Добавляет свернутые движения в дневные итоги. Вызывается в транзакции сжатия журнала,
+     * движения сгруппированы по артикулу и дню. Сначала сдвигаются все существующие итоги
+     * начиная с дня движения, затем в порядке возрастания дней создаются недостающие итоги
+     * от предыдущего итога, который к этому моменту уже учитывает все более ранние группы.
+     */
+    public void apply(List<DayDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<DayDelta> sorted = new ArrayList<>(deltas);
+        sorted.sort(DAY_ORDER);
+        this.jdbcTemplate.queryForObject("select pg_advisory_xact_lock(?)", Object.class, BUCKETS_LOCK);
+        this.jdbcTemplate.batchUpdate(SHIFT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                DayDelta delta = sorted.get(i);
+                ps.setLong(1, delta.getDelta());
+                ps.setShort(2, delta.getColorId());
+                ps.setInt(3, delta.getCottonBasisPoints());
+                ps.setDate(4, Date.valueOf(delta.getDay()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return sorted.size();
+            }
+        });
+        this.jdbcTemplate.batchUpdate(OPEN_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                DayDelta delta = sorted.get(i);
+                Date day = Date.valueOf(delta.getDay());
+                ps.setShort(1, delta.getColorId());
+                ps.setInt(2, delta.getCottonBasisPoints());
+                ps.setDate(3, day);
+                ps.setShort(4, delta.getColorId());
+                ps.setInt(5, delta.getCottonBasisPoints());
+                ps.setDate(6, day);
+                ps.setLong(7, delta.getDelta());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return sorted.size();
+            }
+        });
+    }
+
+    /**
+     * Записывает перенос строки остатка на другой артикул (PUT /api/socks/{id}) парой свернутых
+     * движений 'relabel' и сдвигает дневные итоги обоих артикулов. Вызывается в транзакции
+     * переноса, после того как несвернутый хвост старого артикула перенесен в строку.
+     */
+    public void relabel(Sock before, Sock after) {
+        long amount = before.getAmount();
+        if (amount == 0) {
+            return;
+        }
+        apply(this.jdbcTemplate.query(RELABEL_SQL, DAY_DELTA,
+            this.colorDictionary.idOf(before.getColor()), before.getCottonBasisPoints(), -amount,
+            this.colorDictionary.idOf(after.getColor()), after.getCottonBasisPoints(), amount));
+    }
+
+    /**
+     * Сверяет последние дневные итоги со снимком socks и записывает расхождения в журнал
+     * свернутыми движениями 'reconcile' текущего дня. При первом запуске в режиме ledger так
+     * попадают в историю остатки, накопленные до журнала. Вызывается после сжатия журнала.
+     */
+    @Transactional
+    public void reconcile() {
+        this.jdbcTemplate.queryForObject("select pg_advisory_xact_lock(?)", Object.class, BUCKETS_LOCK);
+        List<DayDelta> deltas = this.jdbcTemplate.query(RECONCILE_SQL, DAY_DELTA);
+        apply(deltas);
+        if (!deltas.isEmpty()) {
+            logger.info("Дневные итоги остатков сверены со снимком: {} артикулов скорректировано", deltas.size());
+        }
+    }
+
+    public void checkAvailable() throws StockHistoryException {
+        if (!isAvailable()) {
+            throw new StockHistoryException("История остатков ведется только в режиме socks.stock.write-mode=ledger");
+        }
+    }
+
+    /**
+     * Сумма свернутых движений артикула за день.
+     */
+    @Value
+    public static class DayDelta {
+
+        short colorId;
+        int cottonBasisPoints;
+        LocalDate day;
+        long delta;
+    }
+
+}
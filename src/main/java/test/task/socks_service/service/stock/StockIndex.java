@@ -0,0 +1,158 @@
+package test.task.socks_service.service.stock;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import test.task.socks_service.config.StockProperties;
+
+/**
+ * Остатки в памяти: для каждого цвета дерево Фенвика по отсортированным значениям
+ * процента хлопка в сотых долях. Суммы "больше", "меньше" и "равно" считаются за O(log n) без
+ * обращения к БД. Индекс строится из БД до старта веб-сервера и дальше обновляется
+ * после коммита каждой записи.
+ */
+@Component
+@RequiredArgsConstructor
+public class StockIndex implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockIndex.class);
+    private final JdbcTemplate jdbcTemplate;
+    private final StockProperties stockProperties;
+    private final Map<String, ColorStock> colors = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (stockProperties.getIndex().isEnabled()) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        ready = false;
+        colors.clear();
+        jdbcTemplate.query("select c.name, s.cotton_basis_points, s.amount from socks s join colors c on c.id = s.color_id "
+                + "union all select c.name, m.cotton_basis_points, m.delta from stock_movements m join colors c on c.id = m.color_id "
+                + "where not m.folded",
+            (RowCallbackHandler) rs -> apply(rs.getString(1), rs.getInt(2), rs.getLong(3)));
+        ready = true;
+        logger.info("Индекс остатков построен: {} цветов", colors.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Применяет изменение остатка после коммита текущей транзакции, а вне транзакции сразу.
+     */
+    public void applyAfterCommit(String color, int cottonBasisPoints, long delta) {
+        if (!ready) {
+            return;
+        }
+        AfterCommit.run(() -> apply(color, cottonBasisPoints, delta));
+    }
+
+    public long moreThan(String color, int cottonBasisPoints) {
+        ColorStock stock = colors.get(color);
+        return stock == null ? 0 : stock.moreThan(cottonBasisPoints);
+    }
+
+    public long lessThan(String color, int cottonBasisPoints) {
+        ColorStock stock = colors.get(color);
+        return stock == null ? 0 : stock.lessThan(cottonBasisPoints);
+    }
+
+    public long equal(String color, int cottonBasisPoints) {
+        ColorStock stock = colors.get(color);
+        return stock == null ? 0 : stock.equal(cottonBasisPoints);
+    }
+
+    private void apply(String color, int cottonBasisPoints, long delta) {
+        colors.computeIfAbsent(color, key -> new ColorStock()).add(cottonBasisPoints, delta);
+    }
+
+    static final class ColorStock {
+
+        private int[] keys = new int[0];
+        private long[] amounts = new long[0];
+        private long[] tree = new long[1];
+        private long total;
+
+        synchronized void add(int cottonBasisPoints, long delta) {
+            int index = Arrays.binarySearch(keys, cottonBasisPoints);
+            if (index < 0) {
+                insert(-index - 1, cottonBasisPoints, delta);
+            } else {
+                amounts[index] += delta;
+                for (int i = index + 1; i < tree.length; i += i & -i) {
+                    tree[i] += delta;
+                }
+            }
+            total += delta;
+        }
+
+        synchronized long lessThan(int cottonBasisPoints) {
+            return prefix(lowerBound(cottonBasisPoints));
+        }
+
+        synchronized long moreThan(int cottonBasisPoints) {
+            return total - prefix(upperBound(cottonBasisPoints));
+        }
+
+        synchronized long equal(int cottonBasisPoints) {
+            int index = Arrays.binarySearch(keys, cottonBasisPoints);
+            return index < 0 ? 0 : amounts[index];
+        }
+
+        private long prefix(int count) {
+            long sum = 0;
+            for (int i = count; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+
+        private int lowerBound(int cottonBasisPoints) {
+            int index = Arrays.binarySearch(keys, cottonBasisPoints);
+            return index < 0 ? -index - 1 : index;
+        }
+
+        private int upperBound(int cottonBasisPoints) {
+            int index = Arrays.binarySearch(keys, cottonBasisPoints);
+            return index < 0 ? -index - 1 : index + 1;
+        }
+
+        private void insert(int position, int cottonBasisPoints, long delta) {
+            int[] newKeys = new int[keys.length + 1];
+            long[] newAmounts = new long[amounts.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(amounts, 0, newAmounts, 0, position);
+            newKeys[position] = cottonBasisPoints;
+            newAmounts[position] = delta;
+            System.arraycopy(keys, position, newKeys, position + 1, keys.length - position);
+            System.arraycopy(amounts, position, newAmounts, position + 1, amounts.length - position);
+            keys = newKeys;
+            amounts = newAmounts;
+
+            tree = new long[keys.length + 1];
+            for (int i = 1; i < tree.length; i++) {
+                tree[i] += amounts[i - 1];
+                int parent = i + (i & -i);
+                if (parent < tree.length) {
+                    tree[parent] += tree[i];
+                }
+            }
+        }
+    }
+
+}
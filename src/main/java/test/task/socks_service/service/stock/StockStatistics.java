@@ -0,0 +1,159 @@
+package test.task.socks_service.service.stock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import test.task.socks_service.entity.CottonPercentage;
+import test.task.socks_service.entity.dto.SocksCountRequest;
+import test.task.socks_service.entity.dto.SocksStatsResponse;
+import test.task.socks_service.service.color.ColorDictionary;
+
+/**
+ * Остатки по цветам и диапазонам процента хлопка одним запросом с GROUP BY и суммы
+ * по списку условий одним проходом с условной агрегацией вместо отдельного запроса
+ * количества на каждый цвет и порог. Как и запросы количества, учитывает несвернутый
+ * хвост журнала движений.
+ */
+@Component
+@RequiredArgsConstructor
+public class StockStatistics {
+
+    /**
+     * Условий в одном запросе: каждое условие - отдельная колонка результата.
+     */
+    private static final int COUNT_CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ColorDictionary colorDictionary;
+
+    /**
+     * @param bucketWidth ширина диапазона в сотых долях процента, 1..10000
+     */
+    public SocksStatsResponse collect(Integer minCotton, Integer maxCotton, String color, int bucketWidth) {
+        if (bucketWidth <= 0 || bucketWidth > CottonPercentage.MAX_BASIS_POINTS) {
+            throw new IllegalArgumentException("Ширина диапазона процента хлопка должна быть от 0.01 до 100");
+        }
+        StringBuilder filter = new StringBuilder();
+        List<Object> filterParams = new ArrayList<>();
+        if (color != null && !color.isEmpty()) {
+            Short colorId = this.colorDictionary.idOf(color);
+            if (colorId == null) {
+                return stats(bucketWidth, new TreeMap<>());
+            }
+            filter.append(" and color_id = ?");
+            filterParams.add(colorId);
+        }
+        if (minCotton != null) {
+            filter.append(" and cotton_basis_points >= ?");
+            filterParams.add(minCotton);
+        }
+        if (maxCotton != null) {
+            filter.append(" and cotton_basis_points <= ?");
+            filterParams.add(maxCotton);
+        }
+        List<Object> params = new ArrayList<>();
+        params.add(bucketWidth);
+        params.addAll(filterParams);
+        params.add(bucketWidth);
+        params.addAll(filterParams);
+
+        Map<String, List<SocksStatsResponse.CottonBucket>> colors = new TreeMap<>();
+        this.jdbcTemplate.query("select color_id, bucket, sum(amount) from ("
+                + "select color_id, cotton_basis_points / ? as bucket, amount from socks where 1 = 1" + filter
+                + " union all select color_id, cotton_basis_points / ?, delta from stock_movements where not folded" + filter
+                + ") stock group by color_id, bucket having sum(amount) <> 0 order by color_id, bucket",
+            (RowCallbackHandler) rs -> colors.computeIfAbsent(this.colorDictionary.nameOf(rs.getShort(1)), name -> new ArrayList<>())
+                .add(new SocksStatsResponse.CottonBucket(rs.getInt(2) * bucketWidth, rs.getLong(3))),
+            params.toArray());
+        return stats(bucketWidth, colors);
+    }
+
+    /**
+     * Суммы остатков по условиям (цвет, оператор, порог), по одному числу на условие в том же
+     * порядке. Цвет должен быть нормализован, оператор - moreThan, lessThan или equal. Все
+     * условия считаются одним проходом по строкам их цветов: sum(case when ... then amount end)
+     * на каждое условие. Условия с неизвестным цветом дают 0 без обращения к БД.
+     */
+    public long[] countAll(List<SocksCountRequest> predicates) {
+        long[] amounts = new long[predicates.size()];
+        List<Integer> indexes = new ArrayList<>();
+        List<Short> colorIds = new ArrayList<>();
+        for (int i = 0; i < predicates.size(); i++) {
+            Short colorId = this.colorDictionary.idOf(predicates.get(i).getColor());
+            if (colorId != null) {
+                indexes.add(i);
+                colorIds.add(colorId);
+            }
+        }
+        for (int from = 0; from < indexes.size(); from += COUNT_CHUNK_SIZE) {
+            int to = Math.min(from + COUNT_CHUNK_SIZE, indexes.size());
+            StringBuilder select = new StringBuilder("select ");
+            List<Object> params = new ArrayList<>();
+            Set<Short> chunkColors = new LinkedHashSet<>();
+            for (int j = from; j < to; j++) {
+                SocksCountRequest predicate = predicates.get(indexes.get(j));
+                select.append(j == from ? "" : ", ")
+                    .append("sum(case when color_id = ? and cotton_basis_points ")
+                    .append(comparisonOf(predicate.getOperator()))
+                    .append(" ? then amount else 0 end)");
+                params.add(colorIds.get(j));
+                params.add(predicate.getCottonBasisPoints());
+                chunkColors.add(colorIds.get(j));
+            }
+            String in = "color_id in (" + String.join(", ", Collections.nCopies(chunkColors.size(), "?")) + ")";
+            params.addAll(chunkColors);
+            params.addAll(chunkColors);
+            int start = from;
+            int size = to - from;
+            this.jdbcTemplate.query(select + " from (select color_id, cotton_basis_points, amount from socks where " + in
+                    + " union all select color_id, cotton_basis_points, delta from stock_movements where not folded and " + in
+                    + ") stock",
+                (RowCallbackHandler) rs -> {
+                    for (int j = 0; j < size; j++) {
+                        amounts[indexes.get(start + j)] = rs.getLong(j + 1);
+                    }
+                },
+                params.toArray());
+        }
+        return amounts;
+    }
+
+    private static String comparisonOf(String operator) {
+        switch (operator) {
+            case "moreThan":
+                return ">";
+            case "lessThan":
+                return "<";
+            case "equal":
+                return "=";
+            default:
+                throw new IllegalArgumentException("Неверный оператор сравнения: " + operator);
+        }
+    }
+
+    private static SocksStatsResponse stats(int bucketWidth, Map<String, List<SocksStatsResponse.CottonBucket>> colors) {
+        List<SocksStatsResponse.ColorStats> result = new ArrayList<>(colors.size());
+        long total = 0;
+        for (Map.Entry<String, List<SocksStatsResponse.CottonBucket>> entry : colors.entrySet()) {
+            long amount = entry.getValue().stream().mapToLong(SocksStatsResponse.CottonBucket::getAmount).sum();
+            total += amount;
+            result.add(new SocksStatsResponse.ColorStats(entry.getKey(), amount, entry.getValue()));
+        }
+        return SocksStatsResponse.builder()
+        .bucketWidthBasisPoints(bucketWidth)
+        .totalAmount(total)
+        .colors(result)
+        .build();
+    }
+
+}
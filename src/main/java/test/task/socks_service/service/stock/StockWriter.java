@@ -0,0 +1,69 @@
+package test.task.socks_service.service.stock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.entity.dto.BulkMovementResult;
+import test.task.socks_service.exception.NoEnoughSocksException;
+import test.task.socks_service.exception.NoSocksFoundException;
+
+/**
+ * Способ записи прихода и отпуска носков, выбирается свойством socks.stock.write-mode.
+ */
+public interface StockWriter {
+
+    Sock income(Sock sock);
+
+    Sock outcome(Sock sock) throws NoSocksFoundException, NoEnoughSocksException;
+
+    /**
+     * Приход списком. Результат на каждую позицию, номер позиции - индекс в списке.
+     */
+    default List<BulkMovementResult> incomeAll(List<Sock> socks) {
+        List<BulkMovementResult> results = new ArrayList<>(socks.size());
+        for (int i = 0; i < socks.size(); i++) {
+            income(socks.get(i));
+            results.add(BulkMovementResult.applied(i, socks.get(i)));
+        }
+        return results;
+    }
+
+    /**
+     * Отпуск списком. Позиции, для которых не хватило остатка, отклоняются по отдельности.
+     */
+    default List<BulkMovementResult> outcomeAll(List<Sock> socks) {
+        List<BulkMovementResult> results = new ArrayList<>(socks.size());
+        for (int i = 0; i < socks.size(); i++) {
+            try {
+                outcome(socks.get(i));
+                results.add(BulkMovementResult.applied(i, socks.get(i)));
+            } catch (NoSocksFoundException | NoEnoughSocksException e) {
+                results.add(BulkMovementResult.rejected(i, socks.get(i), e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Переносит строку остатка id вместе с остатком на артикул (color, cottonBasisPoints),
+     * цвет уже есть в справочнике. Пустой результат - строки с таким id нет. Вызывается
+     * вне транзакции: писатель сам сворачивает накопленные по старому артикулу изменения
+     * и не дает приходу и отпуску по нему разойтись с переносом.
+     */
+    Optional<Sock> relabel(long id, String color, int cottonBasisPoints);
+
+    /**
+     * Остаток артикула изменен в БД в обход этого писателя (импорт, обновление).
+     */
+    default void onCommitted(String color, int cottonBasisPoints, long delta) {
+    }
+
+    /**
+     * Дописывает в БД накопленные изменения, если писатель их накапливает.
+     */
+    default void flush() {
+    }
+
+}
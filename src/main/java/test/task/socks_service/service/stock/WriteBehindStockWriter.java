@@ -0,0 +1,297 @@
+package test.task.socks_service.service.stock;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.RequiredArgsConstructor;
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.entity.SockKey;
+import test.task.socks_service.exception.NoEnoughSocksException;
+import test.task.socks_service.exception.NoSocksFoundException;
+import test.task.socks_service.service.color.ColorDictionary;
+
+/**
+ * Остатки ведутся в памяти на атомарных счетчиках: приход и отпуск не ждут БД и
+ * не блокируют друг друга, проверка "недостаточно носков" делается CAS'ом.
+ * Накопленные изменения периодически дописываются в БД пакетным upsert'ом.
+ * Изменения, не успевшие записаться до падения процесса, теряются, поэтому режим
+ * включается явно: socks.stock.write-mode=write-behind.
+ * Приход нового артикула возвращает id = null: строки в БД еще нет, id появляется
+ * в ответах после первой записи артикула.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "socks.stock", name = "write-mode", havingValue = "write-behind")
+public class WriteBehindStockWriter implements StockWriter, SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindStockWriter.class);
+    private static final String UPSERT_SQL = "insert into socks (color_id, cotton_basis_points, amount) values (?, ?, ?) "
+            + "on conflict (color_id, cotton_basis_points) do update set amount = socks.amount + excluded.amount";
+    private static final int STRIPES = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockIndex stockIndex;
+    private final StockCountCache stockCountCache;
+    private final ColorDictionary colorDictionary;
+    private final SockRelabeler sockRelabeler;
+    private final Map<SockKey, Counter> counters = new ConcurrentHashMap<>();
+    /**
+     * Блокировки по полосам артикулов: приход и отпуск берут разделяемую блокировку
+     * полосы своего артикула, перенос - исключительные блокировки полос старого и
+     * нового артикулов. Перенос ждет только операции по затронутым артикулам,
+     * остальные артикулы продолжают работать, пока он пишет в БД.
+     */
+    private final ReadWriteLock[] stripes = newStripes();
+    /**
+     * Запись в БД и перенос артикула не идут одновременно: накопленные по старому
+     * артикулу изменения иначе записались бы уже после переноса строки, на артикул без строки.
+     */
+    private final Lock flushLock = new ReentrantLock();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        jdbcTemplate.query("select s.id, c.name, s.cotton_basis_points, s.amount from socks s join colors c on c.id = s.color_id", (RowCallbackHandler) rs -> {
+            Counter counter = new Counter(rs.getLong(1), rs.getLong(4));
+            counters.put(new SockKey(rs.getString(2), rs.getInt(3)), counter);
+        });
+        logger.info("Счетчики остатков загружены: {} артикулов", counters.size());
+    }
+
+    @Override
+    public Sock income(Sock sock) {
+        SockKey key = SockKey.of(sock);
+        Lock lock = stripeOf(key).readLock();
+        lock.lock();
+        try {
+            Counter counter = counters.computeIfAbsent(key, k -> new Counter(null, 0));
+            long amount = counter.amount.addAndGet(sock.getAmount());
+            counter.pending.addAndGet(sock.getAmount());
+            stockIndex.applyAfterCommit(key.getColor(), key.getCottonBasisPoints(), sock.getAmount());
+            return counter.toSock(key, amount);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Sock outcome(Sock sock) throws NoSocksFoundException, NoEnoughSocksException {
+        SockKey key = SockKey.of(sock);
+        Lock lock = stripeOf(key).readLock();
+        lock.lock();
+        try {
+            Counter counter = counters.get(key);
+            if (counter == null) {
+                throw new NoSocksFoundException("На складе не найдено носков данного типа");
+            }
+            while (true) {
+                long current = counter.amount.get();
+                if (current < sock.getAmount()) {
+                    throw new NoEnoughSocksException("На складе недостаточно носков данного типа");
+                }
+                if (counter.amount.compareAndSet(current, current - sock.getAmount())) {
+                    counter.pending.addAndGet(-sock.getAmount());
+                    stockIndex.applyAfterCommit(key.getColor(), key.getCottonBasisPoints(), -sock.getAmount());
+                    return counter.toSock(key, current - sock.getAmount());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Артикул строки читается без блокировок, затем берутся блокировки полос старого и
+     * нового артикулов. Если строку успели перенести между чтением и блокировкой, перенос
+     * повторяется с ее новым артикулом.
+     */
+    @Override
+    public Optional<Sock> relabel(long id, String color, int cottonBasisPoints) {
+        SockKey target = new SockKey(color, cottonBasisPoints);
+        while (true) {
+            Optional<SockKey> found = sockRelabeler.find(id).map(SockKey::of);
+            if (found.isEmpty()) {
+                return Optional.empty();
+            }
+            SockKey source = found.get();
+            List<Lock> locks = lockStripes(source, target);
+            flushLock.lock();
+            try {
+                write();
+                Sock[] before = new Sock[1];
+                Optional<Sock> moved = this.transactionTemplate.execute(status -> this.sockRelabeler.lock(id).flatMap(sock -> {
+                    before[0] = sock;
+                    return SockKey.of(sock).equals(source)
+                        ? Optional.of(this.sockRelabeler.move(sock, color, cottonBasisPoints))
+                        : Optional.empty();
+                }));
+                if (before[0] != null && moved.isEmpty()) {
+                    continue;
+                }
+                moved.ifPresent(sock -> {
+                    counters.remove(source);
+                    counters.put(target, new Counter(sock.getId(), sock.getAmount()));
+                });
+                return moved;
+            } finally {
+                flushLock.unlock();
+                locks.forEach(Lock::unlock);
+            }
+        }
+    }
+
+    @Override
+    public void onCommitted(String color, int cottonBasisPoints, long delta) {
+        SockKey key = new SockKey(color, cottonBasisPoints);
+        Lock lock = stripeOf(key).readLock();
+        lock.lock();
+        try {
+            counters.computeIfAbsent(key, k -> new Counter(null, 0)).amount.addAndGet(delta);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${socks.stock.write-behind.flush-interval:200}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            write();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private ReadWriteLock stripeOf(SockKey key) {
+        return stripes[stripeIndex(key)];
+    }
+
+    private static int stripeIndex(SockKey key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * Берет исключительные блокировки полос двух артикулов всегда в порядке номеров
+     * полос, чтобы встречные переносы не ждали друг друга по кругу.
+     */
+    private List<Lock> lockStripes(SockKey first, SockKey second) {
+        int a = stripeIndex(first);
+        int b = stripeIndex(second);
+        List<Lock> locks = new ArrayList<>(2);
+        locks.add(stripes[Math.min(a, b)].writeLock());
+        if (a != b) {
+            locks.add(stripes[Math.max(a, b)].writeLock());
+        }
+        locks.forEach(Lock::lock);
+        return locks;
+    }
+
+    private static ReadWriteLock[] newStripes() {
+        ReadWriteLock[] locks = new ReadWriteLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+        return locks;
+    }
+
+    private void write() {
+        List<SockKey> keys = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        counters.forEach((key, counter) -> {
+            long delta = counter.pending.getAndSet(0);
+            if (delta != 0) {
+                keys.add(key);
+                deltas.add(delta);
+            }
+        });
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        try {
+            short[] colorIds = new short[keys.size()];
+            for (int i = 0; i < keys.size(); i++) {
+                colorIds[i] = colorDictionary.intern(keys.get(i).getColor());
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setShort(1, colorIds[i]);
+                    ps.setInt(2, keys.get(i).getCottonBasisPoints());
+                    ps.setLong(3, deltas.get(i));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return keys.size();
+                }
+            }));
+            keys.forEach(key -> stockCountCache.evictAfterCommit(key.getColor(), key.getCottonBasisPoints()));
+            loadIds(keys, colorIds);
+        } catch (RuntimeException e) {
+            logger.error("Не удалось записать изменения остатков по {} артикулам, повторим позже", keys.size(), e);
+            for (int i = 0; i < keys.size(); i++) {
+                counters.get(keys.get(i)).pending.addAndGet(deltas.get(i));
+            }
+        }
+    }
+
+    /**
+     * Запоминает id строк, созданных этой записью, чтобы следующие ответы по артикулу его содержали.
+     */
+    private void loadIds(List<SockKey> keys, short[] colorIds) {
+        for (int i = 0; i < keys.size(); i++) {
+            Counter counter = counters.get(keys.get(i));
+            if (counter.id == null) {
+                List<Long> ids = jdbcTemplate.queryForList("select id from socks where color_id = ? and cotton_basis_points = ?",
+                    Long.class, colorIds[i], keys.get(i).getCottonBasisPoints());
+                if (!ids.isEmpty()) {
+                    counter.id = ids.get(0);
+                }
+            }
+        }
+    }
+
+    private static final class Counter {
+
+        private volatile Long id;
+        private final AtomicLong amount;
+        private final AtomicLong pending = new AtomicLong();
+
+        private Counter(Long id, long amount) {
+            this.id = id;
+            this.amount = new AtomicLong(amount);
+        }
+
+        private Sock toSock(SockKey key, long amount) {
+            return new Sock(id, key.getColor(), key.getCottonBasisPoints(), Math.toIntExact(amount));
+        }
+    }
+
+}
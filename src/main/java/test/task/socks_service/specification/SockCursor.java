@@ -0,0 +1,100 @@
+package test.task.socks_service.specification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.data.domain.Sort;
+
+import lombok.Value;
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.exception.InvalidCursorException;
+
+/**
+ * Позиция постраничного чтения по ключу: поле и направление сортировки, значение
+ * поля и id последней отданной записи. Клиенту отдается непрозрачной строкой.
+ */
+@Value
+public class SockCursor {
+
+    String sortField;
+    Sort.Direction direction;
+    Comparable<?> value;
+    long id;
+
+    public static SockCursor after(Sock sock, String sortField, Sort.Direction direction) throws InvalidCursorException {
+        return new SockCursor(sortField, direction, valueOf(sock, sortField), sock.getId());
+    }
+
+    public static SockCursor decode(String token) throws InvalidCursorException {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\n", 4);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Некорректный курсор: " + token);
+        }
+        if (parts.length != 4) {
+            throw new InvalidCursorException("Некорректный курсор: " + token);
+        }
+        try {
+            Sort.Direction direction = Sort.Direction.fromString(parts[1]);
+            return new SockCursor(parts[0], direction, parseValue(parts[0], parts[3]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Некорректный курсор: " + token);
+        }
+    }
+
+    public String encode() {
+        String raw = sortField + "\n" + direction + "\n" + id + "\n" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean matches(String sortField, Sort.Direction direction) {
+        return this.sortField.equals(sortField) && this.direction == direction;
+    }
+
+    /**
+     * Проверяет, что по полю можно читать по ключу: значение должно однозначно
+     * восстанавливаться из курсора.
+     */
+    public static void checkSortField(String sortField) throws InvalidCursorException {
+        switch (sortField) {
+            case "id":
+            case "color":
+            case "cottonPercentage":
+            case "amount":
+                return;
+            default:
+                throw new InvalidCursorException("Сортировка по полю не поддерживается: " + sortField);
+        }
+    }
+
+    private static Comparable<?> valueOf(Sock sock, String sortField) throws InvalidCursorException {
+        checkSortField(sortField);
+        switch (sortField) {
+            case "id":
+                return sock.getId();
+            case "color":
+                return sock.getColor();
+            case "cottonPercentage":
+                return sock.getCottonBasisPoints();
+            default:
+                return sock.getAmount();
+        }
+    }
+
+    private static Comparable<?> parseValue(String sortField, String value) {
+        switch (sortField) {
+            case "id":
+                return Long.valueOf(value);
+            case "color":
+                return value;
+            case "cottonPercentage":
+                return Integer.valueOf(value);
+            case "amount":
+                return Integer.valueOf(value);
+            default:
+                throw new IllegalArgumentException(sortField);
+        }
+    }
+
+}
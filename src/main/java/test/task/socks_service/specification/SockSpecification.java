@@ -1,18 +1,39 @@
 package test.task.socks_service.specification;
 
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+
 import org.springframework.data.jpa.domain.Specification;
 
 import test.task.socks_service.entity.Sock;
 
 public class SockSpecification {
-    public static Specification<Sock> filterByCottonPercentageRange(Double minCotton, Double maxCotton) {
+
+    /**
+     * Поле сортировки из API в атрибут сущности: процент хлопка в API называется
+     * cottonPercentage, а в сущности хранится в сотых долях процента. Цвет в сущности
+     * хранится как id, поэтому сортируется по названию из справочника.
+     */
+    public static String attributeOf(String sortField) {
+        switch (sortField) {
+            case "cottonPercentage":
+                return "cottonBasisPoints";
+            case "color":
+                return "colorEntry.name";
+            default:
+                return sortField;
+        }
+    }
+
+    public static Specification<Sock> filterByCottonRange(Integer minCotton, Integer maxCotton) {
         return (root, query, criteriaBuilder) -> {
             if (minCotton != null && maxCotton != null) {
-                return criteriaBuilder.between(root.get("cottonPercentage"), minCotton, maxCotton);
+                return criteriaBuilder.between(root.get("cottonBasisPoints"), minCotton, maxCotton);
             } else if (minCotton != null) {
-                return criteriaBuilder.greaterThanOrEqualTo(root.get("cottonPercentage"), minCotton);
+                return criteriaBuilder.greaterThanOrEqualTo(root.get("cottonBasisPoints"), minCotton);
             } else if (maxCotton != null) {
-                return criteriaBuilder.lessThanOrEqualTo(root.get("cottonPercentage"), maxCotton);
+                return criteriaBuilder.lessThanOrEqualTo(root.get("cottonBasisPoints"), maxCotton);
             }
             return criteriaBuilder.conjunction();
         };
@@ -26,4 +47,36 @@ public class SockSpecification {
             return criteriaBuilder.conjunction();
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Записи строго после курсора в порядке (поле сортировки, id). Нестрогое условие
+     * на поле дублирует основное, чтобы БД начинала чтение индекса сразу с позиции курсора.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static Specification<Sock> after(SockCursor cursor) {
+        return (root, query, criteriaBuilder) -> {
+            if (cursor == null) {
+                return criteriaBuilder.conjunction();
+            }
+            Expression<Comparable> field = pathOf(root, attributeOf(cursor.getSortField()));
+            Expression<Long> id = root.get("id");
+            Comparable value = cursor.getValue();
+            if (cursor.getDirection().isAscending()) {
+                return criteriaBuilder.and(criteriaBuilder.greaterThanOrEqualTo(field, value),
+                    criteriaBuilder.or(criteriaBuilder.greaterThan(field, value), criteriaBuilder.greaterThan(id, cursor.getId())));
+            }
+            return criteriaBuilder.and(criteriaBuilder.lessThanOrEqualTo(field, value),
+                criteriaBuilder.or(criteriaBuilder.lessThan(field, value), criteriaBuilder.lessThan(id, cursor.getId())));
+        };
+    }
+
+    private static <T> Path<T> pathOf(Root<Sock> root, String attribute) {
+        Path<?> path = root;
+        for (String part : attribute.split("\\.")) {
+            path = path.get(part);
+        }
+        @SuppressWarnings("unchecked")
+        Path<T> result = (Path<T>) path;
+        return result;
+    }
+}
@@ -0,0 +1,13 @@
+-- Остатки на конец дня по артикулу для запросов остатка на дату: нарастающий итог
+-- свернутых движений. Остаток на момент T - последний день до даты T плюс движения
+-- от начала дня T до T, поэтому запрос не проходит по всей истории.
+create table stock_balance_buckets (
+    color_id smallint not null,
+    cotton_basis_points smallint not null,
+    bucket_day date not null,
+    balance bigint not null,
+    constraint pk_stock_balance_buckets primary key (color_id, cotton_basis_points, bucket_day),
+    constraint fk_stock_balance_buckets_color foreign key (color_id) references colors (id)
+);
+
+create index ix_stock_movements_sku_time on stock_movements (color_id, cotton_basis_points, created_at);
@@ -0,0 +1,3 @@
+-- Остаток не бывает отрицательным: запись, которая увела бы строку в минус
+-- (например, отложенная запись режима write-behind), откатывается целиком.
+alter table socks add constraint ck_socks_amount_non_negative check (amount >= 0);
@@ -0,0 +1,15 @@
+-- Индекс для слияния дублей ниже: без него подзапрос суммы просматривает всю таблицу
+-- для каждой строки.
+create index ix_socks_merge on socks (color, cotton_percentage);
+
+update socks set amount = (
+    select sum(s.amount) from socks s
+    where s.color = socks.color and s.cotton_percentage = socks.cotton_percentage
+)
+where id in (select min(id) from socks group by color, cotton_percentage);
+
+delete from socks where id not in (select min(id) from socks group by color, cotton_percentage);
+
+drop index ix_socks_merge;
+
+alter table socks add constraint uq_socks_color_cotton unique (color, cotton_percentage);
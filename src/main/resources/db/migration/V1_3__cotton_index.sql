@@ -0,0 +1 @@
+create index ix_socks_cotton_id on socks (cotton_percentage, id);
@@ -0,0 +1,35 @@
+create table colors (
+    id smallint generated by default as identity primary key,
+    name varchar(50) not null,
+    constraint uq_colors_name unique (name)
+);
+
+insert into colors (name) select distinct lower(trim(color)) from socks;
+
+alter table socks add column color_id smallint;
+
+update socks set color_id = (select c.id from colors c where c.name = lower(trim(socks.color)));
+
+-- Временный индекс по ключу после нормализации, как в V1_1: цвет уже заменен на color_id.
+create index ix_socks_merge on socks (color_id, cotton_percentage);
+
+-- После нормализации "Red" и "red" становятся одним артикулом: остатки складываются в одну запись.
+update socks set amount = (
+    select sum(s.amount) from socks s
+    where s.color_id = socks.color_id and s.cotton_percentage = socks.cotton_percentage
+)
+where id in (select min(id) from socks group by color_id, cotton_percentage);
+
+delete from socks where id not in (select min(id) from socks group by color_id, cotton_percentage);
+
+drop index ix_socks_merge;
+
+alter table socks drop constraint uq_socks_color_cotton;
+
+alter table socks drop column color;
+
+alter table socks alter column color_id set not null;
+
+alter table socks add constraint fk_socks_color foreign key (color_id) references colors (id);
+
+alter table socks add constraint uq_socks_color_cotton unique (color_id, cotton_percentage);
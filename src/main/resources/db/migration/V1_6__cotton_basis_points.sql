@@ -0,0 +1,41 @@
+-- Процент хлопка хранится целым числом сотых долей процента (0..10000): равенство
+-- и диапазоны сравниваются точно, ключ артикула и индекс становятся уже.
+
+-- Проверка перед переводом: строка с процентом вне 0..100 не поместится в новый
+-- диапазон. Миграция останавливается на этом ограничении, а не на приведении к smallint
+-- или на ck_socks_cotton_basis_points. Такие строки нужно исправить вручную и повторить запуск.
+alter table socks add constraint ck_socks_legacy_cotton_percentage_0_100 check (cotton_percentage between 0 and 100);
+
+alter table socks add column cotton_basis_points smallint;
+
+update socks set cotton_basis_points = round(cotton_percentage * 100);
+
+-- Временный индекс по новому ключу артикула, удаляется сразу после слияния.
+create index ix_socks_merge on socks (color_id, cotton_basis_points);
+
+-- Значения, различавшиеся дальше второго знака после запятой, становятся одним артикулом.
+update socks set amount = (
+    select sum(s.amount) from socks s
+    where s.color_id = socks.color_id and s.cotton_basis_points = socks.cotton_basis_points
+)
+where id in (select min(id) from socks group by color_id, cotton_basis_points);
+
+delete from socks where id not in (select min(id) from socks group by color_id, cotton_basis_points);
+
+drop index ix_socks_merge;
+
+drop index ix_socks_cotton_id;
+
+alter table socks drop constraint uq_socks_color_cotton;
+
+alter table socks drop constraint ck_socks_legacy_cotton_percentage_0_100;
+
+alter table socks drop column cotton_percentage;
+
+alter table socks alter column cotton_basis_points set not null;
+
+alter table socks add constraint ck_socks_cotton_basis_points check (cotton_basis_points between 0 and 10000);
+
+alter table socks add constraint uq_socks_color_cotton unique (color_id, cotton_basis_points);
+
+create index ix_socks_cotton_id on socks (cotton_basis_points, id);
@@ -0,0 +1,13 @@
+-- Журнал движений остатков для режима socks.stock.write-mode=ledger: приход и отпуск
+-- только дописывают строки, а socks хранит снимок остатков. Фоновое сжатие переносит
+-- несвернутые движения (folded = false) в снимок, сами движения остаются для истории.
+create table stock_movements (
+    id bigint generated by default as identity primary key,
+    color_id smallint not null,
+    cotton_basis_points smallint not null,
+    delta integer not null,
+    source varchar(16) not null,
+    created_at timestamp not null default current_timestamp,
+    folded boolean not null default false,
+    constraint fk_stock_movements_color foreign key (color_id) references colors (id)
+);
@@ -0,0 +1,28 @@
+package test.task.socks_service.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Import;
+
+import test.task.socks_service.config.ExportProperties;
+import test.task.socks_service.config.StockProperties;
+import test.task.socks_service.controller.GlobalExceptionHandler;
+
+/**
+ * Неблокирующий вариант API /api/socks на WebFlux и R2DBC для сервисов, которые веером
+ * запрашивают остатки: запрос к БД не занимает поток на время ожидания. Работает с той же
+ * схемой БД, схему создает и мигрирует основное приложение. Приход и отпуск пишутся сразу
+ * в socks, поэтому оба приложения должны работать в режиме socks.stock.write-mode=direct,
+ * см. {@link WriteModeCheck}. Ошибки отдаются тем же обработчиком, что и в основном приложении.
+ */
+@SpringBootApplication
+@EnableConfigurationProperties({ExportProperties.class, StockProperties.class})
+@Import(GlobalExceptionHandler.class)
+public class ReactiveSocksApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveSocksApplication.class, args);
+    }
+
+}
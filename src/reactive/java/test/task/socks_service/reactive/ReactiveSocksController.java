@@ -0,0 +1,153 @@
+package test.task.socks_service.reactive;
+
+import java.io.IOException;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.PositiveOrZero;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import test.task.socks_service.controller.SocksController;
+import test.task.socks_service.entity.CottonPercentage;
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.entity.dto.BulkMovementResult;
+import test.task.socks_service.entity.dto.SocksPostRequest;
+import test.task.socks_service.entity.dto.SocksSliceResponse;
+import test.task.socks_service.service.importer.SockFileFormat;
+
+/**
+ * Те же пути, параметры и ответы, что у {@link test.task.socks_service.controller.SocksController},
+ * для эндпоинтов, перенесенных в неблокирующий вариант.
+ */
+@RestController
+@Validated
+@RequiredArgsConstructor
+@RequestMapping("/api/socks")
+public class ReactiveSocksController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveSocksController.class);
+    private final ReactiveSocksService socksService;
+
+    @PostMapping("/income")
+    public Mono<ResponseEntity<Sock>> incomeSocks(@RequestBody @Valid SocksPostRequest request) {
+        logger.info("Запрос на приход носков: {}", request);
+        return this.socksService.incomeSock(toSock(request))
+            .map(sock -> ResponseEntity.status(HttpStatus.CREATED).body(sock));
+    }
+
+    @PostMapping("/outcome")
+    public Mono<ResponseEntity<Sock>> outcomeSocks(@RequestBody @Valid SocksPostRequest request) {
+        logger.info("Запрос на уход носков: {}", request);
+        return this.socksService.outcomeSock(toSock(request))
+            .map(sock -> ResponseEntity.status(HttpStatus.CREATED).body(sock));
+    }
+
+    /**
+     * Позиции читаются из тела запроса по мере обработки, результаты отдаются потоком:
+     * JSON-массивом или, при Accept: application/x-ndjson, по строке на позицию.
+     */
+    @PostMapping(value = "/income/bulk", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<BulkMovementResult> incomeSocksBulk(@RequestBody Flux<SocksPostRequest> requests) {
+        logger.info("Запрос на приход носков списком");
+        return this.socksService.incomeSocks(requests);
+    }
+
+    @PostMapping(value = "/outcome/bulk", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<BulkMovementResult> outcomeSocksBulk(@RequestBody Flux<SocksPostRequest> requests) {
+        logger.info("Запрос на уход носков списком");
+        return this.socksService.outcomeSocks(requests);
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<Integer>> getAmountOfSocks(
+            @RequestParam String color,
+            @RequestParam @PositiveOrZero(message = "Содержание хлопка не может быть отрицательным")
+            @Max(value = 100, message = "Содержание хлопка не может быть больше 100%") Double cottonPercentage,
+            @RequestParam @Nullable @Pattern(regexp = "moreThan|lessThan|equal", message = "Оператор сравнения должен быть moreThan, lessThan или equal") String operator) {
+        return this.socksService.getAmountOfSocks(color, CottonPercentage.toBasisPoints(cottonPercentage), operator)
+            .doOnNext(amount -> logger.info("Запрос на получение количества носков с фильтрацией: {}", amount))
+            .map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/filter")
+    public Mono<Page<Sock>> filterSocks(
+            @RequestParam(required = false) Double minCotton,
+            @RequestParam(required = false) Double maxCotton,
+            @RequestParam(required = false) String color,
+            @RequestParam(defaultValue = "0") @PositiveOrZero(message = "Номер страницы не может быть отрицательным") int page,
+            @RequestParam(defaultValue = "10") @Min(value = 1, message = "Размер страницы должен быть не меньше 1")
+            @Max(value = SocksController.MAX_PAGE_SIZE, message = "Размер страницы должен быть не больше {value}") int size,
+            @RequestParam(defaultValue = "cottonPercentage") String sortField,
+            @RequestParam(defaultValue = "asc") String sortDirection) {
+        return this.socksService.getFilteredAndSortedSocks(CottonPercentage.toBasisPoints(minCotton), CottonPercentage.toBasisPoints(maxCotton), color, page, size, sortField, sortDirection);
+    }
+
+    @GetMapping(value = "/filter", params = "cursor")
+    public Mono<SocksSliceResponse> filterSocksByCursor(
+            @RequestParam(required = false) Double minCotton,
+            @RequestParam(required = false) Double maxCotton,
+            @RequestParam(required = false) String color,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") @Min(value = 1, message = "Размер страницы должен быть не меньше 1")
+            @Max(value = SocksController.MAX_PAGE_SIZE, message = "Размер страницы должен быть не больше {value}") int size,
+            @RequestParam(defaultValue = "cottonPercentage") String sortField,
+            @RequestParam(defaultValue = "asc") String sortDirection) {
+        return this.socksService.getFilteredAndSortedSocks(CottonPercentage.toBasisPoints(minCotton), CottonPercentage.toBasisPoints(maxCotton), color, cursor, size, sortField, sortDirection);
+    }
+
+    /**
+     * Порции CSV пишутся в ответ по мере того, как клиент их забирает: медленный клиент
+     * придерживает и чтение из БД.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<Flux<DataBuffer>> exportSocks(
+            @RequestParam(required = false) Double minCotton,
+            @RequestParam(required = false) Double maxCotton,
+            @RequestParam(required = false) String color,
+            @RequestParam(defaultValue = "cottonPercentage") String sortField,
+            @RequestParam(defaultValue = "asc") String sortDirection,
+            @RequestParam(defaultValue = "csv") String format,
+            ServerWebExchange exchange) throws IOException {
+        logger.info("Запрос на выгрузку носков в формате {}", format);
+        SockFileFormat fileFormat = SockFileFormat.ofName(format);
+        DataBufferFactory buffers = exchange.getResponse().bufferFactory();
+        Flux<DataBuffer> body = this.socksService.exportSocks(CottonPercentage.toBasisPoints(minCotton), CottonPercentage.toBasisPoints(maxCotton), color, sortField, sortDirection, fileFormat)
+            .map(buffers::wrap);
+        return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(fileFormat.getContentType()))
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"socks" + fileFormat.getExtension() + "\"")
+        .body(body);
+    }
+
+    private static Sock toSock(SocksPostRequest request) {
+        return Sock.builder()
+        .amount(request.getAmount())
+        .color(request.getColor())
+        .cottonBasisPoints(request.getCottonBasisPoints())
+        .build();
+    }
+
+}
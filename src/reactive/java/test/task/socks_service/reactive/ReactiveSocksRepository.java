@@ -0,0 +1,164 @@
+package test.task.socks_service.reactive;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.BiFunction;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.entity.SockKey;
+
+/**
+ * Те же запросы, что у {@link test.task.socks_service.repository.SocksRepository}, через
+ * R2DBC: суммы остатков считаются по снимку socks и несвернутому хвосту журнала
+ * stock_movements, списки - по снимку с условиями {@link SockQuery}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveSocksRepository {
+
+    private static final String SELECT_SQL = "select s.id, c.name, s.cotton_basis_points, s.amount from socks s join colors c on c.id = s.color_id";
+    private static final BiFunction<Row, RowMetadata, Sock> SOCK = (row, metadata) -> new Sock(
+        row.get(0, Long.class), row.get(1, String.class), row.get(2, Integer.class), row.get(3, Integer.class));
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<Short> findColorId(String name) {
+        return this.databaseClient.sql("select id from colors where name = $1")
+            .bind(0, name)
+            .map((row, metadata) -> row.get(0, Short.class))
+            .one();
+    }
+
+    /**
+     * Id цвета, при необходимости добавляет цвет в справочник. Вставка и чтение - разные
+     * запросы, чтобы увидеть цвет, который одновременно добавил другой запрос.
+     */
+    public Mono<Short> internColor(String name) {
+        return this.databaseClient.sql("insert into colors (name) values ($1) on conflict (name) do nothing")
+            .bind(0, name)
+            .fetch()
+            .rowsUpdated()
+            .then(findColorId(name));
+    }
+
+    public Mono<Sock> increaseAmount(short colorId, String color, int cottonBasisPoints, int amount) {
+        return this.databaseClient.sql("insert into socks (color_id, cotton_basis_points, amount) values ($1, $2, $3) "
+                + "on conflict (color_id, cotton_basis_points) do update set amount = socks.amount + excluded.amount "
+                + "returning id, cotton_basis_points, amount")
+            .bind(0, colorId)
+            .bind(1, cottonBasisPoints)
+            .bind(2, amount)
+            .map((row, metadata) -> new Sock(row.get(0, Long.class), color, row.get(1, Integer.class), row.get(2, Integer.class)))
+            .one();
+    }
+
+    /**
+     * Уменьшает остаток, если его хватает. Пустой результат - артикула нет или остатка мало.
+     */
+    public Mono<Sock> decreaseAmount(short colorId, String color, int cottonBasisPoints, int amount) {
+        return this.databaseClient.sql("update socks set amount = amount - $3 "
+                + "where color_id = $1 and cotton_basis_points = $2 and amount >= $3 returning id, cotton_basis_points, amount")
+            .bind(0, colorId)
+            .bind(1, cottonBasisPoints)
+            .bind(2, amount)
+            .map((row, metadata) -> new Sock(row.get(0, Long.class), color, row.get(1, Integer.class), row.get(2, Integer.class)))
+            .one();
+    }
+
+    public Mono<Boolean> exists(short colorId, int cottonBasisPoints) {
+        return this.databaseClient.sql("select exists (select 1 from socks where color_id = $1 and cotton_basis_points = $2)")
+            .bind(0, colorId)
+            .bind(1, cottonBasisPoints)
+            .map((row, metadata) -> row.get(0, Boolean.class))
+            .one();
+    }
+
+    /**
+     * Блокирует до конца транзакции строки остатков перечисленных артикулов в порядке
+     * (color_id, cotton_basis_points), в том же порядке, что и блокирующий вариант.
+     */
+    public Mono<Void> lock(Collection<SockKey> keys) {
+        if (keys.isEmpty()) {
+            return Mono.empty();
+        }
+        List<Object> params = new ArrayList<>(keys.size() * 2);
+        StringJoiner in = new StringJoiner(", ");
+        for (SockKey key : keys) {
+            params.add(key.getColor());
+            params.add(key.getCottonBasisPoints());
+            in.add("($" + (params.size() - 1) + ", $" + params.size() + ")");
+        }
+        return bind("select s.id from socks s join colors c on c.id = s.color_id where (c.name, s.cotton_basis_points) in (" + in
+                + ") order by s.color_id, s.cotton_basis_points for update of s", params)
+            .fetch()
+            .all()
+            .then();
+    }
+
+    /**
+     * Есть ли несвернутые движения в журнале stock_movements: их пишет основное приложение
+     * в режиме socks.stock.write-mode=ledger.
+     */
+    public Mono<Boolean> hasUnfoldedMovements() {
+        return this.databaseClient.sql("select exists (select 1 from stock_movements where not folded)")
+            .map((row, metadata) -> row.get(0, Boolean.class))
+            .one();
+    }
+
+    /**
+     * Сумма остатков цвета с условием на процент хлопка: comparison - один из >, < и =.
+     */
+    public Mono<Long> sumAmount(short colorId, String comparison, int cottonBasisPoints) {
+        String condition = "color_id = $1 and cotton_basis_points " + comparison + " $2";
+        return this.databaseClient.sql("select coalesce(sum(amount), 0) from (select amount from socks where " + condition
+                + " union all select delta from stock_movements where not folded and " + condition + ") stock")
+            .bind(0, colorId)
+            .bind(1, cottonBasisPoints)
+            .map((row, metadata) -> row.get(0, Long.class))
+            .one();
+    }
+
+    public Flux<Sock> findAll(SockQuery query, String orderBy, long offset, int limit) {
+        List<Object> params = new ArrayList<>(query.params());
+        params.add(limit);
+        params.add(offset);
+        String sql = SELECT_SQL + query.where() + orderBy + " limit $" + (params.size() - 1) + " offset $" + params.size();
+        return bind(sql, params).map(SOCK).all();
+    }
+
+    public Mono<Long> count(SockQuery query) {
+        return bind("select count(*) from socks s" + query.where(), query.params())
+            .map((row, metadata) -> row.get(0, Long.class))
+            .one();
+    }
+
+    /**
+     * Все записи по условиям потоком: драйвер забирает строки из курсора порциями по
+     * fetchSize по мере того, как подписчик их запрашивает.
+     */
+    public Flux<Sock> stream(SockQuery query, String orderBy, int fetchSize) {
+        return bind(SELECT_SQL + query.where() + orderBy, query.params())
+            .filter((statement, next) -> next.execute(statement.fetchSize(fetchSize)))
+            .map(SOCK)
+            .all();
+    }
+
+    private DatabaseClient.GenericExecuteSpec bind(String sql, List<Object> params) {
+        DatabaseClient.GenericExecuteSpec spec = this.databaseClient.sql(sql);
+        for (int i = 0; i < params.size(); i++) {
+            spec = spec.bind(i, params.get(i));
+        }
+        return spec;
+    }
+
+}
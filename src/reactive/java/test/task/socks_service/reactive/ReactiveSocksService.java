@@ -0,0 +1,308 @@
+package test.task.socks_service.reactive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+import test.task.socks_service.config.ExportProperties;
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.entity.SockKey;
+import test.task.socks_service.entity.dto.BulkMovementResult;
+import test.task.socks_service.entity.dto.SocksPostRequest;
+import test.task.socks_service.entity.dto.SocksSliceResponse;
+import test.task.socks_service.exception.InvalidCursorException;
+import test.task.socks_service.exception.NoEnoughSocksException;
+import test.task.socks_service.exception.NoSocksFoundException;
+import test.task.socks_service.service.color.ColorDictionary;
+import test.task.socks_service.service.exporter.CsvSockWriter;
+import test.task.socks_service.service.importer.SockFileFormat;
+import test.task.socks_service.specification.SockCursor;
+
+/**
+ * Операции {@link test.task.socks_service.service.SocksService} без блокировок: те же проверки,
+ * сообщения об ошибках и формат ответов. Списки позиций прихода и отпуска обрабатываются по
+ * порциями по мере чтения тела запроса, порция - одной транзакцией, результаты отдаются
+ * потоком после фиксации каждой порции.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveSocksService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveSocksService.class);
+    private static final String NOT_FOUND = "На складе не найдено носков данного типа";
+    private static final String NOT_ENOUGH = "На складе недостаточно носков данного типа";
+    /**
+     * Сколько позиций списка прихода или отпуска пишется одной транзакцией.
+     */
+    static final int BULK_CHUNK_SIZE = 100;
+
+    private final ReactiveSocksRepository socksRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final ExportProperties exportProperties;
+    private final Validator validator;
+
+    public Mono<Sock> incomeSock(Sock sock) {
+        String color = ColorDictionary.normalize(sock.getColor());
+        return this.socksRepository.internColor(color)
+            .flatMap(colorId -> this.socksRepository.increaseAmount(colorId, color, sock.getCottonBasisPoints(), sock.getAmount()));
+    }
+
+    public Mono<Sock> outcomeSock(Sock sock) {
+        String color = ColorDictionary.normalize(sock.getColor());
+        return this.socksRepository.findColorId(color)
+            .switchIfEmpty(Mono.error(() -> new NoSocksFoundException(NOT_FOUND)))
+            .flatMap(colorId -> this.socksRepository.decreaseAmount(colorId, color, sock.getCottonBasisPoints(), sock.getAmount())
+                .switchIfEmpty(this.socksRepository.exists(colorId, sock.getCottonBasisPoints())
+                    .<Sock>flatMap(exists -> Mono.error(exists ? new NoEnoughSocksException(NOT_ENOUGH) : new NoSocksFoundException(NOT_FOUND)))));
+    }
+
+    public Flux<BulkMovementResult> incomeSocks(Flux<SocksPostRequest> requests) {
+        return applyAll(requests, this::incomeSock);
+    }
+
+    public Flux<BulkMovementResult> outcomeSocks(Flux<SocksPostRequest> requests) {
+        return applyAll(requests, this::outcomeSock);
+    }
+
+    /**
+     * Позиции читаются из запроса порциями по {@link #BULK_CHUNK_SIZE}, каждая порция пишется
+     * своей транзакцией, и ее результаты отдаются клиенту только после фиксации: ответ не
+     * сообщает о движениях, которые потом откатились. Пока клиент дописывает тело запроса,
+     * транзакция не открыта и строки остатков не заблокированы.
+     */
+    private Flux<BulkMovementResult> applyAll(Flux<SocksPostRequest> requests, Function<Sock, Mono<Sock>> writer) {
+        return requests.index()
+            .buffer(BULK_CHUNK_SIZE)
+            .concatMap(chunk -> this.transactionalOperator.transactional(applyChunk(chunk, writer)).collectList())
+            .flatMapIterable(results -> results);
+    }
+
+    /**
+     * Некорректные позиции отклоняются сразу. Строки остатков порции блокируются одним
+     * запросом в порядке (color_id, cotton_basis_points), как в блокирующем варианте, затем
+     * позиции пишутся по порядку артикулов: встречные списки берут блокировки в одном
+     * порядке и не ловят взаимоблокировку. Позиции одного артикула применяются в порядке
+     * запроса, результаты возвращаются в порядке позиций.
+     */
+    private Flux<BulkMovementResult> applyChunk(List<Tuple2<Long, SocksPostRequest>> chunk, Function<Sock, Mono<Sock>> writer) {
+        List<BulkMovementResult> rejected = new ArrayList<>();
+        List<Tuple2<Integer, Sock>> valid = new ArrayList<>(chunk.size());
+        for (Tuple2<Long, SocksPostRequest> indexed : chunk) {
+            int index = Math.toIntExact(indexed.getT1());
+            SocksPostRequest request = indexed.getT2();
+            String error = validate(request);
+            if (error != null) {
+                rejected.add(BulkMovementResult.rejected(index, request, error));
+            } else {
+                valid.add(Tuples.of(index, Sock.builder()
+                .amount(request.getAmount())
+                .color(ColorDictionary.normalize(request.getColor()))
+                .cottonBasisPoints(request.getCottonBasisPoints())
+                .build()));
+            }
+        }
+        valid.sort(Comparator.comparing(item -> SockKey.of(item.getT2())));
+        Set<SockKey> keys = new TreeSet<>();
+        valid.forEach(item -> keys.add(SockKey.of(item.getT2())));
+        Flux<BulkMovementResult> applied = this.socksRepository.lock(keys)
+            .thenMany(Flux.fromIterable(valid))
+            .concatMap(item -> {
+                int index = item.getT1();
+                Sock sock = item.getT2();
+                return writer.apply(sock)
+                    .map(result -> BulkMovementResult.applied(index, sock))
+                    .onErrorResume(NoSocksFoundException.class, e -> Mono.just(BulkMovementResult.rejected(index, sock, e.getMessage())))
+                    .onErrorResume(NoEnoughSocksException.class, e -> Mono.just(BulkMovementResult.rejected(index, sock, e.getMessage())));
+            });
+        return Flux.fromIterable(rejected)
+            .concatWith(applied)
+            .sort(Comparator.comparingInt(BulkMovementResult::getIndex));
+    }
+
+    private String validate(SocksPostRequest request) {
+        if (request.getColor() == null || request.getCottonBasisPoints() == null || request.getAmount() == null) {
+            return "Не заполнены цвет, процент хлопка или количество носков";
+        }
+        Set<ConstraintViolation<SocksPostRequest>> violations = this.validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+    }
+
+    public Mono<Integer> getAmountOfSocks(String color, int cottonBasisPoints, String operator) {
+        String comparison;
+        switch (operator) {
+            case "moreThan":
+                comparison = ">";
+                break;
+            case "lessThan":
+                comparison = "<";
+                break;
+            case "equal":
+                comparison = "=";
+                break;
+            default:
+                return Mono.error(new IllegalArgumentException("Неверный оператор сравнения: " + operator));
+        }
+        return this.socksRepository.findColorId(ColorDictionary.normalize(color))
+            .flatMap(colorId -> this.socksRepository.sumAmount(colorId, comparison, cottonBasisPoints))
+            .filter(amount -> amount != 0)
+            .map(Math::toIntExact)
+            .switchIfEmpty(Mono.error(() -> new NoSocksFoundException("На складе не найдено носков по вашему фильтру")));
+    }
+
+    public Mono<Page<Sock>> getFilteredAndSortedSocks(Integer minCotton, Integer maxCotton, String color, int page, int size, String sortField, String sortDirection) {
+        Sort.Direction direction = Sort.Direction.fromString(sortDirection);
+        PageRequest pageRequest = PageRequest.of(page, size, Sort.by(direction, attributeOf(sortField)));
+        String orderBy = SockQuery.orderBy(sortField, direction);
+        return colorFilter(color).flatMap(colorId -> {
+            SockQuery query = new SockQuery().filterByCottonRange(minCotton, maxCotton).filterByColor(colorId.orElse(null));
+            return Mono.zip(this.socksRepository.findAll(query, orderBy, pageRequest.getOffset(), size).collectList(),
+                this.socksRepository.count(query));
+        })
+        .<Page<Sock>>map(found -> new PageImpl<>(found.getT1(), pageRequest, found.getT2()))
+        .defaultIfEmpty(Page.empty(pageRequest));
+    }
+
+    public Mono<SocksSliceResponse> getFilteredAndSortedSocks(Integer minCotton, Integer maxCotton, String color, String cursor, int size, String sortField, String sortDirection) {
+        Sort.Direction direction = Sort.Direction.fromString(sortDirection);
+        SockCursor position;
+        try {
+            SockCursor.checkSortField(sortField);
+            position = cursor == null || cursor.isEmpty() ? null : SockCursor.decode(cursor);
+            if (position != null && !position.matches(sortField, direction)) {
+                throw new InvalidCursorException("Курсор получен для другой сортировки");
+            }
+        } catch (InvalidCursorException e) {
+            return Mono.error(e);
+        }
+        String orderBy = SockQuery.orderBy(sortField, direction);
+        SocksSliceResponse empty = SocksSliceResponse.builder().content(Collections.emptyList()).size(size).build();
+        return colorFilter(color)
+            .map(colorId -> new SockQuery().filterByCottonRange(minCotton, maxCotton).filterByColor(colorId.orElse(null)).after(position))
+            .flatMap(query -> this.socksRepository.findAll(query, orderBy, 0, size + 1).collectList())
+            .<SocksSliceResponse>handle((content, sink) -> {
+                boolean hasNext = content.size() > size;
+                List<Sock> slice = hasNext ? content.subList(0, size) : content;
+                try {
+                    sink.next(SocksSliceResponse.builder()
+                    .content(slice)
+                    .size(size)
+                    .hasNext(hasNext)
+                    .nextCursor(hasNext ? SockCursor.after(slice.get(slice.size() - 1), sortField, direction).encode() : null)
+                    .build());
+                } catch (InvalidCursorException e) {
+                    sink.error(e);
+                }
+            })
+            .defaultIfEmpty(empty);
+    }
+
+    /**
+     * Выгрузка в CSV потоком порций: строки читаются из БД только по мере того, как клиент
+     * забирает уже отданные порции. Неизвестный цвет дает файл из одного заголовка.
+     */
+    public Flux<byte[]> exportSocks(Integer minCotton, Integer maxCotton, String color, String sortField, String sortDirection, SockFileFormat format) {
+        if (format != SockFileFormat.CSV) {
+            return Flux.error(new IOException("В неблокирующем варианте выгрузка поддерживается только в CSV"));
+        }
+        Sort.Direction direction = Sort.Direction.fromString(sortDirection);
+        String orderBy;
+        try {
+            orderBy = SockQuery.orderBy(sortField, direction);
+        } catch (IllegalArgumentException e) {
+            return Flux.error(new IOException(e.getMessage()));
+        }
+        int fetchSize = this.exportProperties.getFetchSize();
+        Flux<Sock> rows = colorFilter(color).flatMapMany(colorId -> this.socksRepository.stream(
+            new SockQuery().filterByCottonRange(minCotton, maxCotton).filterByColor(colorId.orElse(null)), orderBy, fetchSize));
+        return Flux.defer(() -> {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            CsvSockWriter writer = csvWriter(buffer);
+            long[] exported = new long[1];
+            return rows.buffer(fetchSize)
+                .map(chunk -> {
+                    chunk.forEach(sock -> writeRow(writer, sock));
+                    exported[0] += chunk.size();
+                    return drain(writer, buffer);
+                })
+                .concatWith(Mono.fromCallable(() -> drain(writer, buffer)).filter(bytes -> bytes.length > 0))
+                .doOnComplete(() -> logger.info("Выгружено носков в CSV: {} строк", exported[0]));
+        });
+    }
+
+    /**
+     * Id цвета для фильтра: пустой Optional - фильтра по цвету нет, пустой результат -
+     * такого цвета нет ни в одной записи и выборка заведомо пуста.
+     */
+    private Mono<Optional<Short>> colorFilter(String color) {
+        if (color == null || color.isEmpty()) {
+            return Mono.just(Optional.empty());
+        }
+        return this.socksRepository.findColorId(ColorDictionary.normalize(color)).map(Optional::of);
+    }
+
+    /**
+     * Поле сортировки в атрибут Sock для описания страницы, как
+     * {@link test.task.socks_service.specification.SockSpecification#attributeOf}: сам класс
+     * спецификаций ссылается на JPA, которого нет в этом приложении.
+     */
+    private static String attributeOf(String sortField) {
+        return "cottonPercentage".equals(sortField) ? "cottonBasisPoints" : sortField;
+    }
+
+    private static CsvSockWriter csvWriter(ByteArrayOutputStream buffer) {
+        try {
+            return new CsvSockWriter(buffer);
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    private static void writeRow(CsvSockWriter writer, Sock sock) {
+        try {
+            writer.onRow(sock.getColor(), sock.getCottonBasisPoints(), sock.getAmount());
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    private static byte[] drain(CsvSockWriter writer, ByteArrayOutputStream buffer) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
+        byte[] bytes = buffer.toByteArray();
+        buffer.reset();
+        return bytes;
+    }
+
+}
@@ -0,0 +1,107 @@
+package test.task.socks_service.reactive;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+
+import test.task.socks_service.specification.SockCursor;
+
+/**
+ * Условия выборки носков для R2DBC: те же фильтры и сортировка, что у
+ * {@link test.task.socks_service.specification.SockSpecification}, но в виде SQL
+ * с позиционными параметрами $1, $2, ... по колонкам таблицы socks (псевдоним s).
+ * Сортировка и курсор по цвету ссылаются на colors (псевдоним c), поэтому такие
+ * условия годятся только для выборки с соединением с colors.
+ */
+final class SockQuery {
+
+    private final StringBuilder where = new StringBuilder();
+    private final List<Object> params = new ArrayList<>();
+
+    SockQuery filterByCottonRange(Integer minCotton, Integer maxCotton) {
+        if (minCotton != null) {
+            and("s.cotton_basis_points >= " + param(minCotton));
+        }
+        if (maxCotton != null) {
+            and("s.cotton_basis_points <= " + param(maxCotton));
+        }
+        return this;
+    }
+
+    SockQuery filterByColor(Short colorId) {
+        if (colorId != null) {
+            and("s.color_id = " + param(colorId));
+        }
+        return this;
+    }
+
+    /**
+     * Записи строго после курсора в порядке (поле сортировки, id).
+     */
+    SockQuery after(SockCursor cursor) {
+        if (cursor == null) {
+            return this;
+        }
+        String column = columnOf(cursor.getSortField());
+        String valueParam = param(cursor.getValue());
+        String idParam = param(cursor.getId());
+        String op = cursor.getDirection().isAscending() ? ">" : "<";
+        and(column + " " + op + "= " + valueParam + " and (" + column + " " + op + " " + valueParam + " or s.id " + op + " " + idParam + ")");
+        return this;
+    }
+
+    String where() {
+        return where.length() == 0 ? "" : " where " + where;
+    }
+
+    /**
+     * Порядок (поле сортировки, id): id добавляется, чтобы порядок был однозначным.
+     */
+    static String orderBy(String sortField, Sort.Direction direction) {
+        String column = columnOf(sortField);
+        String order = " order by " + column + " " + direction.name();
+        return "s.id".equals(column) ? order : order + ", s.id " + direction.name();
+    }
+
+    /**
+     * Поле сортировки из API в колонку выборки. Цвет сортируется по названию из
+     * справочника colors (псевдоним c), как в выгрузке и в основном приложении.
+     */
+    static String columnOf(String sortField) {
+        switch (sortField) {
+            case "id":
+                return "s.id";
+            case "color":
+                return "c.name";
+            case "cottonPercentage":
+            case "cottonBasisPoints":
+                return "s.cotton_basis_points";
+            case "amount":
+                return "s.amount";
+            default:
+                throw new IllegalArgumentException("Сортировка по полю не поддерживается: " + sortField);
+        }
+    }
+
+    /**
+     * Добавляет значение в параметры и возвращает его плейсхолдер.
+     */
+    private String param(Object value) {
+        params.add(value);
+        return "$" + params.size();
+    }
+
+    List<Object> params() {
+        return Collections.unmodifiableList(params);
+    }
+
+    private void and(String condition) {
+        if (where.length() > 0) {
+            where.append(" and ");
+        }
+        where.append(condition);
+    }
+
+}
@@ -0,0 +1,36 @@
+package test.task.socks_service.reactive;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import test.task.socks_service.config.StockProperties;
+
+/**
+ * Неблокирующий вариант пишет приход и отпуск сразу в socks, как основное приложение в
+ * режиме socks.stock.write-mode=direct. В режимах ledger и write-behind остаток ведется
+ * мимо снимка socks, и отпуск отсюда мог бы увести его в минус, поэтому приложение
+ * запускается только с тем же socks.stock.write-mode=direct, что и основное, и только
+ * если в журнале движений нет несвернутых записей.
+ */
+@Component
+@RequiredArgsConstructor
+public class WriteModeCheck implements ApplicationRunner {
+
+    private final StockProperties stockProperties;
+    private final ReactiveSocksRepository socksRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!"direct".equals(this.stockProperties.getWriteMode())) {
+            throw new IllegalStateException("Неблокирующий вариант работает только в режиме socks.stock.write-mode=direct, указан режим "
+                    + this.stockProperties.getWriteMode());
+        }
+        if (Boolean.TRUE.equals(this.socksRepository.hasUnfoldedMovements().block())) {
+            throw new IllegalStateException("В журнале движений есть несвернутые записи: основное приложение работает в режиме ledger, "
+                    + "неблокирующий вариант в этом режиме не запускается");
+        }
+    }
+
+}
@@ -0,0 +1,251 @@
+package test.task.socks_service.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyShort;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import javax.validation.Validation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import test.task.socks_service.config.ExportProperties;
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.entity.SockKey;
+import test.task.socks_service.entity.dto.BulkMovementResult;
+import test.task.socks_service.entity.dto.SocksPostRequest;
+import test.task.socks_service.exception.InvalidCursorException;
+import test.task.socks_service.exception.NoEnoughSocksException;
+import test.task.socks_service.exception.NoSocksFoundException;
+import test.task.socks_service.service.importer.SockFileFormat;
+import test.task.socks_service.specification.SockCursor;
+
+class ReactiveSocksServiceTest {
+
+    private ReactiveSocksRepository socksRepository;
+    private TransactionalOperator transactionalOperator;
+    private ExportProperties exportProperties;
+    private ReactiveSocksService socksService;
+
+    @BeforeEach
+    void setUp() {
+        socksRepository = mock(ReactiveSocksRepository.class);
+        transactionalOperator = mock(TransactionalOperator.class);
+        when(transactionalOperator.transactional(any(Flux.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(socksRepository.lock(any())).thenReturn(Mono.empty());
+        exportProperties = new ExportProperties();
+        socksService = new ReactiveSocksService(socksRepository, transactionalOperator, exportProperties,
+            Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    @Test
+    void testIncomeSock_NormalizesColor() {
+        when(socksRepository.internColor("red")).thenReturn(Mono.just((short) 1));
+        when(socksRepository.increaseAmount((short) 1, "red", 3000, 10)).thenReturn(Mono.just(new Sock(5L, "red", 3000, 25)));
+
+        StepVerifier.create(socksService.incomeSock(new Sock(null, " Red ", 3000, 10)))
+            .assertNext(sock -> assertThat(sock.getAmount()).isEqualTo(25))
+            .verifyComplete();
+    }
+
+    @Test
+    void testOutcomeSock_UnknownColor() {
+        when(socksRepository.findColorId("magenta")).thenReturn(Mono.empty());
+
+        StepVerifier.create(socksService.outcomeSock(new Sock(null, "Magenta", 3000, 1)))
+            .expectErrorMatches(e -> e instanceof NoSocksFoundException && e.getMessage().equals("На складе не найдено носков данного типа"))
+            .verify();
+        verify(socksRepository, never()).decreaseAmount(anyShort(), anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testOutcomeSock_NotEnough() {
+        when(socksRepository.findColorId("red")).thenReturn(Mono.just((short) 1));
+        when(socksRepository.decreaseAmount((short) 1, "red", 3000, 10)).thenReturn(Mono.empty());
+        when(socksRepository.exists((short) 1, 3000)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(socksService.outcomeSock(new Sock(null, "Red", 3000, 10)))
+            .expectErrorMatches(e -> e instanceof NoEnoughSocksException && e.getMessage().equals("На складе недостаточно носков данного типа"))
+            .verify();
+    }
+
+    @Test
+    void testOutcomeSocks_RejectsItemsIndividually() {
+        when(socksRepository.findColorId("red")).thenReturn(Mono.just((short) 1));
+        when(socksRepository.decreaseAmount((short) 1, "red", 3000, 6))
+            .thenReturn(Mono.just(new Sock(1L, "red", 3000, 4)), Mono.empty());
+        when(socksRepository.exists((short) 1, 3000)).thenReturn(Mono.just(true));
+
+        Flux<SocksPostRequest> requests = Flux.just(new SocksPostRequest("Red", 3000, 6), new SocksPostRequest("Red", 3000, 6),
+            new SocksPostRequest("Red", 3000, -1), new SocksPostRequest(null, 3000, 1));
+
+        StepVerifier.create(socksService.outcomeSocks(requests))
+            .assertNext(result -> assertThat(result.getStatus()).isEqualTo(BulkMovementResult.Status.APPLIED))
+            .assertNext(result -> assertThat(result.getError()).isEqualTo("На складе недостаточно носков данного типа"))
+            .assertNext(result -> assertThat(result.getError()).isEqualTo("Количество носков должно быть положительным числом"))
+            .assertNext(result -> assertThat(result.getError()).isEqualTo("Не заполнены цвет, процент хлопка или количество носков"))
+            .verifyComplete();
+        verify(transactionalOperator).transactional(any(Flux.class));
+    }
+
+    @Test
+    void testIncomeSocks_LocksSortedKeysAndKeepsResultOrder() {
+        when(socksRepository.internColor(anyString())).thenReturn(Mono.just((short) 1));
+        when(socksRepository.increaseAmount(anyShort(), anyString(), anyInt(), anyInt())).thenReturn(Mono.just(new Sock(1L, "red", 3000, 1)));
+
+        Flux<SocksPostRequest> requests = Flux.just(new SocksPostRequest("Red", 5000, 1), new SocksPostRequest("Blue", 3000, 1),
+            new SocksPostRequest("Red", 3000, 1));
+
+        StepVerifier.create(socksService.incomeSocks(requests))
+            .assertNext(result -> assertThat(result.getIndex()).isZero())
+            .assertNext(result -> assertThat(result.getIndex()).isEqualTo(1))
+            .assertNext(result -> assertThat(result.getIndex()).isEqualTo(2))
+            .verifyComplete();
+        verify(socksRepository).lock(new TreeSet<>(Arrays.asList(new SockKey("blue", 3000), new SockKey("red", 3000), new SockKey("red", 5000))));
+        InOrder inOrder = inOrder(socksRepository);
+        inOrder.verify(socksRepository).increaseAmount(anyShort(), eq("blue"), eq(3000), anyInt());
+        inOrder.verify(socksRepository).increaseAmount(anyShort(), eq("red"), eq(3000), anyInt());
+        inOrder.verify(socksRepository).increaseAmount(anyShort(), eq("red"), eq(5000), anyInt());
+    }
+
+    @Test
+    void testIncomeSocks_CommitsEachChunk() {
+        when(socksRepository.internColor("red")).thenReturn(Mono.just((short) 1));
+        when(socksRepository.increaseAmount(anyShort(), anyString(), anyInt(), anyInt())).thenReturn(Mono.just(new Sock(1L, "red", 3000, 1)));
+
+        Flux<SocksPostRequest> requests = Flux.range(0, ReactiveSocksService.BULK_CHUNK_SIZE + 1)
+            .map(i -> new SocksPostRequest("Red", 3000, 1));
+
+        StepVerifier.create(socksService.incomeSocks(requests))
+            .expectNextCount(ReactiveSocksService.BULK_CHUNK_SIZE + 1)
+            .verifyComplete();
+        verify(transactionalOperator, times(2)).transactional(any(Flux.class));
+    }
+
+    @Test
+    void testGetAmountOfSocks_ZeroIsNotFound() {
+        when(socksRepository.findColorId("red")).thenReturn(Mono.just((short) 1));
+        when(socksRepository.sumAmount((short) 1, ">", 3000)).thenReturn(Mono.just(0L));
+
+        StepVerifier.create(socksService.getAmountOfSocks("Red", 3000, "moreThan"))
+            .expectError(NoSocksFoundException.class)
+            .verify();
+    }
+
+    @Test
+    void testGetAmountOfSocks_InvalidOperator() {
+        StepVerifier.create(socksService.getAmountOfSocks("Red", 3000, "between"))
+            .expectErrorMessage("Неверный оператор сравнения: between")
+            .verify();
+        verifyNoInteractions(socksRepository);
+    }
+
+    @Test
+    void testGetFilteredAndSortedSocks_UnknownColorGivesEmptyPage() {
+        when(socksRepository.findColorId("magenta")).thenReturn(Mono.empty());
+
+        StepVerifier.create(socksService.getFilteredAndSortedSocks(null, null, "Magenta", 0, 10, "amount", "desc"))
+            .assertNext(page -> {
+                assertThat(page.getContent()).isEmpty();
+                assertThat(page.getSort().getOrderFor("amount").getDirection()).isEqualTo(Sort.Direction.DESC);
+            })
+            .verifyComplete();
+        verify(socksRepository, never()).findAll(any(), anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void testGetFilteredAndSortedSocks_Page() {
+        when(socksRepository.findAll(any(), eq(" order by s.cotton_basis_points ASC, s.id ASC"), eq(10L), eq(10)))
+            .thenReturn(Flux.just(new Sock(1L, "red", 3000, 5)));
+        when(socksRepository.count(any())).thenReturn(Mono.just(11L));
+
+        StepVerifier.create(socksService.getFilteredAndSortedSocks(null, null, null, 1, 10, "cottonPercentage", "asc"))
+            .assertNext(page -> {
+                assertThat(page.getTotalElements()).isEqualTo(11);
+                assertThat(page.getContent()).hasSize(1);
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void testGetFilteredAndSortedSocks_CursorReturnsNextCursor() {
+        when(socksRepository.findAll(any(), anyString(), eq(0L), eq(3)))
+            .thenReturn(Flux.just(new Sock(1L, "red", 3000, 5), new Sock(2L, "red", 4000, 5), new Sock(3L, "red", 5000, 5)));
+
+        StepVerifier.create(socksService.getFilteredAndSortedSocks(null, null, null, "", 2, "id", "asc"))
+            .assertNext(slice -> {
+                assertThat(slice.getContent()).extracting(Sock::getId).containsExactly(1L, 2L);
+                assertThat(slice.isHasNext()).isTrue();
+                assertThat(slice.getNextCursor()).isNotNull();
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void testGetFilteredAndSortedSocks_CursorForOtherSort() throws Exception {
+        String cursor = SockCursor.after(new Sock(1L, "red", 3000, 5), "amount", Sort.Direction.ASC).encode();
+
+        StepVerifier.create(socksService.getFilteredAndSortedSocks(null, null, null, cursor, 2, "id", "asc"))
+            .expectErrorMatches(e -> e instanceof InvalidCursorException && e.getMessage().equals("Курсор получен для другой сортировки"))
+            .verify();
+    }
+
+    @Test
+    void testGetFilteredAndSortedSocks_ColorCursorComparesName() throws Exception {
+        String cursor = SockCursor.after(new Sock(1L, "magenta", 3000, 5), "color", Sort.Direction.ASC).encode();
+        when(socksRepository.findAll(any(), anyString(), eq(0L), eq(3))).thenReturn(Flux.empty());
+
+        StepVerifier.create(socksService.getFilteredAndSortedSocks(null, null, null, cursor, 2, "color", "asc"))
+            .assertNext(slice -> assertThat(slice.getContent()).isEmpty())
+            .verifyComplete();
+
+        verify(socksRepository).findAll(argThat(query -> query.params().contains("magenta")), eq(" order by c.name ASC, s.id ASC"), eq(0L), eq(3));
+        verify(socksRepository, never()).findColorId(anyString());
+    }
+
+    @Test
+    void testExportSocks_WritesHeaderAndRowsInChunks() {
+        exportProperties.setFetchSize(2);
+        when(socksRepository.stream(any(), anyString(), eq(2)))
+            .thenReturn(Flux.just(new Sock(1L, "red", 3000, 5), new Sock(2L, "red", 4000, 6), new Sock(3L, "blue", 5050, 7)));
+
+        StepVerifier.create(socksService.exportSocks(null, null, null, "id", "asc", SockFileFormat.CSV)
+                .map(bytes -> new String(bytes, StandardCharsets.UTF_8)))
+            .expectNext("color,cottonPercentage,amount\nred,30,5\nred,40,6\n")
+            .expectNext("blue,50.5,7\n")
+            .verifyComplete();
+    }
+
+    @Test
+    void testExportSocks_UnknownColorGivesHeaderOnly() {
+        when(socksRepository.findColorId("magenta")).thenReturn(Mono.empty());
+
+        StepVerifier.create(socksService.exportSocks(null, null, "Magenta", "id", "asc", SockFileFormat.CSV)
+                .map(bytes -> new String(bytes, StandardCharsets.UTF_8)))
+            .expectNext("color,cottonPercentage,amount\n")
+            .verifyComplete();
+    }
+
+    @Test
+    void testExportSocks_OnlyCsv() {
+        StepVerifier.create(socksService.exportSocks(null, null, null, "id", "asc", SockFileFormat.XLSX))
+            .expectError(IOException.class)
+            .verify();
+    }
+}
@@ -0,0 +1,65 @@
+package test.task.socks_service.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.specification.SockCursor;
+
+class SockQueryTest {
+
+    @Test
+    void testWhere_NoFilters() {
+        SockQuery query = new SockQuery().filterByCottonRange(null, null).filterByColor(null);
+
+        assertThat(query.where()).isEmpty();
+        assertThat(query.params()).isEmpty();
+    }
+
+    @Test
+    void testWhere_NumbersParamsInOrder() {
+        SockQuery query = new SockQuery().filterByCottonRange(3000, 7000).filterByColor((short) 2);
+
+        assertThat(query.where()).isEqualTo(" where s.cotton_basis_points >= $1 and s.cotton_basis_points <= $2 and s.color_id = $3");
+        assertThat(query.params()).containsExactly(3000, 7000, (short) 2);
+    }
+
+    @Test
+    void testAfter_Descending() throws Exception {
+        SockCursor cursor = SockCursor.after(new Sock(7L, "red", 3000, 40), "amount", Sort.Direction.DESC);
+
+        SockQuery query = new SockQuery().filterByColor((short) 1).after(cursor);
+
+        assertThat(query.where()).isEqualTo(" where s.color_id = $1 and s.amount <= $2 and (s.amount < $2 or s.id < $3)");
+        assertThat(query.params()).containsExactly((short) 1, 40, 7L);
+    }
+
+    @Test
+    void testOrderBy_AddsIdForTies() {
+        assertThat(SockQuery.orderBy("cottonPercentage", Sort.Direction.ASC)).isEqualTo(" order by s.cotton_basis_points ASC, s.id ASC");
+        assertThat(SockQuery.orderBy("id", Sort.Direction.DESC)).isEqualTo(" order by s.id DESC");
+    }
+
+    @Test
+    void testAfter_ColorComparesName() throws Exception {
+        SockCursor cursor = SockCursor.after(new Sock(7L, "red", 3000, 40), "color", Sort.Direction.ASC);
+
+        SockQuery query = new SockQuery().after(cursor);
+
+        assertThat(query.where()).isEqualTo(" where c.name >= $1 and (c.name > $1 or s.id > $2)");
+        assertThat(query.params()).containsExactly("red", 7L);
+    }
+
+    @Test
+    void testOrderBy_ColorByName() {
+        assertThat(SockQuery.orderBy("color", Sort.Direction.DESC)).isEqualTo(" order by c.name DESC, s.id DESC");
+    }
+
+    @Test
+    void testOrderBy_UnknownField() {
+        assertThrows(IllegalArgumentException.class, () -> SockQuery.orderBy("color; drop table socks", Sort.Direction.ASC));
+    }
+}
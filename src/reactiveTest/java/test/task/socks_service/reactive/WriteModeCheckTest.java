@@ -0,0 +1,46 @@
+package test.task.socks_service.reactive;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+import test.task.socks_service.config.StockProperties;
+
+class WriteModeCheckTest {
+
+    private StockProperties stockProperties;
+    private ReactiveSocksRepository socksRepository;
+    private WriteModeCheck check;
+
+    @BeforeEach
+    void setUp() {
+        stockProperties = new StockProperties();
+        socksRepository = mock(ReactiveSocksRepository.class);
+        when(socksRepository.hasUnfoldedMovements()).thenReturn(Mono.just(false));
+        check = new WriteModeCheck(stockProperties, socksRepository);
+    }
+
+    @Test
+    void testRun_DirectMode() {
+        assertDoesNotThrow(() -> check.run(null));
+    }
+
+    @Test
+    void testRun_RefusesLedgerMode() {
+        stockProperties.setWriteMode("ledger");
+
+        assertThrows(IllegalStateException.class, () -> check.run(null));
+        verifyNoInteractions(socksRepository);
+    }
+
+    @Test
+    void testRun_RefusesUnfoldedMovements() {
+        when(socksRepository.hasUnfoldedMovements()).thenReturn(Mono.just(true));
+
+        assertThrows(IllegalStateException.class, () -> check.run(null));
+    }
+}
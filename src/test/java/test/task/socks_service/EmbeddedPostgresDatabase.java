@@ -0,0 +1,48 @@
+package test.task.socks_service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Встроенный PostgreSQL для тестов SQL, который H2 не выполняет: on conflict, distinct on,
+ * returning, pg_advisory_xact_lock. Один экземпляр на запуск тестов, схема - миграции
+ * приложения вместе с db/vendor/postgresql.
+ */
+public final class EmbeddedPostgresDatabase {
+
+    private static DataSource dataSource;
+
+    private EmbeddedPostgresDatabase() {
+    }
+
+    public static synchronized DataSource dataSource() {
+        if (dataSource == null) {
+            try {
+                dataSource = EmbeddedPostgres.start().getPostgresDatabase();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration", "classpath:db/vendor/postgresql")
+                .load()
+                .migrate();
+        }
+        return dataSource;
+    }
+
+    /**
+     * Очищает таблицы между тестами.
+     */
+    public static void truncate() {
+        new JdbcTemplate(dataSource()).execute("truncate stock_balance_buckets, stock_movements, socks, colors restart identity");
+    }
+
+}
@@ -0,0 +1,93 @@
+package test.task.socks_service.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class QueryCountingDataSourceTest {
+
+    private Connection connection;
+    private QueryCountingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenReturn(connection);
+        dataSource = new QueryCountingDataSource(target);
+    }
+
+    @AfterEach
+    void tearDown() {
+        QueryCountingDataSource.stop();
+    }
+
+    @Test
+    void testCountsStatementsBetweenStartAndStop() throws SQLException {
+        Connection counted = dataSource.getConnection();
+        counted.prepareStatement("select 1");
+
+        QueryCountingDataSource.start();
+        counted.prepareStatement("select 1");
+        counted.createStatement();
+        counted.setAutoCommit(false);
+
+        assertThat(QueryCountingDataSource.stop()).isEqualTo(2);
+        verify(connection, times(2)).prepareStatement("select 1");
+        verify(connection).setAutoCommit(false);
+    }
+
+    @Test
+    void testProxyEqualsOnlyItself() throws SQLException {
+        Connection counted = dataSource.getConnection();
+
+        assertThat(counted).isEqualTo(counted);
+        assertThat(counted).isNotEqualTo(dataSource.getConnection());
+    }
+
+    @Test
+    void testPropagatesDriverExceptions() throws SQLException {
+        when(connection.prepareStatement("broken")).thenThrow(new SQLException("syntax error"));
+        Connection counted = dataSource.getConnection();
+
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(SQLException.class, () -> {
+            counted.prepareStatement("broken");
+        });
+
+        assertThat(exception.getMessage()).isEqualTo("syntax error");
+    }
+
+    @Test
+    void testInterceptorRecordsQueriesPerRequest() throws SQLException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        QueryCountInterceptor interceptor = new QueryCountInterceptor(meterRegistry);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/socks/filter");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/socks/filter");
+
+        interceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+        dataSource.getConnection().prepareStatement("select 1");
+        dataSource.getConnection().prepareStatement("select 2");
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), new Object(), null);
+
+        DistributionSummary summary = meterRegistry.get("socks.http.queries").tags("method", "GET", "uri", "/api/socks/filter").summary();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo(2);
+    }
+}
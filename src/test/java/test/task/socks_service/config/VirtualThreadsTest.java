@@ -0,0 +1,46 @@
+package test.task.socks_service.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class VirtualThreadsTest {
+
+    @Test
+    void testFactory_CreatesNamedVirtualThreads() throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+
+        Thread thread = VirtualThreads.factory("socks-import-").newThread(() -> { });
+
+        assertThat(thread.getName()).isEqualTo("socks-import-0");
+        assertThat(Thread.class.getMethod("isVirtual").invoke(thread)).isEqualTo(true);
+    }
+
+    @Test
+    void testNewThreadPerTaskExecutor_RunsTasks() throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("http-virtual-");
+        try {
+            assertThat(executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS)).startsWith("http-virtual-");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testFactory_RejectedBeforeJava21() {
+        assumeFalse(VirtualThreads.isSupported());
+
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(IllegalStateException.class, () -> {
+            VirtualThreads.factory("socks-import-");
+        });
+
+        assertThat(exception.getMessage()).startsWith("Виртуальные потоки (socks.threads.virtual=true) доступны только на Java 21");
+    }
+}
@@ -0,0 +1,68 @@
+package test.task.socks_service.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+import test.task.socks_service.entity.dto.SocksUpdateRequest;
+import test.task.socks_service.exception.InvalidCottonPercentageException;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    void testHandleArgumentTypeMismatch_BadRequest() {
+        MethodArgumentTypeMismatchException ex = new MethodArgumentTypeMismatchException(
+            "yesterday", LocalDateTime.class, "asOf", null, new IllegalArgumentException("Parse attempt failed"));
+
+        ResponseEntity<String> response = handler.handleArgumentTypeMismatch(ex);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Неверное значение параметра asOf: yesterday", response.getBody());
+    }
+
+    @Test
+    void testHandleInvalidCottonPercentage_BadRequest() {
+        ResponseEntity<String> response = handler.handleInvalidCottonPercentage(new InvalidCottonPercentageException(
+            "Процент хлопка указывается не более чем с двумя знаками после запятой: 75.555", new ArithmeticException()));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Процент хлопка указывается не более чем с двумя знаками после запятой: 75.555", response.getBody());
+    }
+
+    @Test
+    void testHandleMethodArgumentNotValid_JoinsMessages() {
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(new SocksUpdateRequest(), "request");
+        bindingResult.rejectValue("color", "NotBlank", "Цвет носков должен быть указан");
+        bindingResult.rejectValue("cottonBasisPoints", "NotNull", "Процент хлопка должен быть указан");
+
+        ResponseEntity<String> response = handler.handleMethodArgumentNotValid(new MethodArgumentNotValidException(null, bindingResult));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Цвет носков должен быть указан; Процент хлопка должен быть указан", response.getBody());
+    }
+
+    @Test
+    void testHandleConstraintViolation_JoinsMessages() {
+        SocksUpdateRequest request = new SocksUpdateRequest();
+        ConstraintViolationException ex = new ConstraintViolationException(
+            Validation.buildDefaultValidatorFactory().getValidator().validate(request));
+
+        ResponseEntity<String> response = handler.handleConstraintViolation(ex);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Процент хлопка должен быть указан; Цвет носков должен быть указан", response.getBody());
+    }
+
+}
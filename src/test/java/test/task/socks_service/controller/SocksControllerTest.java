@@ -1,6 +1,7 @@
 package test.task.socks_service.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
@@ -12,15 +13,28 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.web.multipart.MultipartFile;
 
 import test.task.socks_service.entity.Sock;
+import test.task.socks_service.entity.dto.BulkMovementResult;
+import test.task.socks_service.entity.dto.ImportJobResponse;
+import test.task.socks_service.entity.dto.SocksCountRequest;
+import test.task.socks_service.entity.dto.SocksCountResult;
 import test.task.socks_service.entity.dto.SocksPostRequest;
+import test.task.socks_service.entity.dto.SocksStatsResponse;
 import test.task.socks_service.entity.dto.SocksUpdateRequest;
+import test.task.socks_service.exception.NoImportJobFoundException;
 import test.task.socks_service.exception.NoSocksFoundException;
+import test.task.socks_service.service.ImportJobService;
 import test.task.socks_service.service.SocksService;
+import test.task.socks_service.service.importer.ImportJob;
+import test.task.socks_service.service.importer.SockFileFormat;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 
 class SocksControllerTest {
 
@@ -30,6 +44,9 @@ class SocksControllerTest {
     @Mock
     private SocksService socksService;
 
+    @Mock
+    private ImportJobService importJobService;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -37,8 +54,8 @@ class SocksControllerTest {
 
     @Test
     void testIncomeSocks() {
-        SocksPostRequest request = new SocksPostRequest("Red", 75.0, 100);
-        Sock sock = new Sock(1L, "Red", 75.0, 100);
+        SocksPostRequest request = new SocksPostRequest("Red", 7500, 100);
+        Sock sock = new Sock(1L, "Red", 7500, 100);
 
         when(socksService.incomeSock(any(Sock.class))).thenReturn(sock);
 
@@ -49,10 +66,24 @@ class SocksControllerTest {
         verify(socksService, times(1)).incomeSock(any(Sock.class));
     }
 
+    @Test
+    void testOutcomeSocksBulk() {
+        List<SocksPostRequest> requests = Arrays.asList(new SocksPostRequest("Red", 7500, 100));
+        List<BulkMovementResult> results = Arrays.asList(
+            BulkMovementResult.applied(0, new Sock(null, "Red", 7500, 100)));
+
+        when(socksService.outcomeSocks(requests)).thenReturn(results);
+
+        ResponseEntity<List<BulkMovementResult>> response = socksController.outcomeSocksBulk(requests);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(results, response.getBody());
+    }
+
     @Test
     void testOutcomeSocks() throws Exception {
-        SocksPostRequest request = new SocksPostRequest("Blue", 80.0, 150);
-        Sock sock = new Sock(2L, "Blue", 80.0, 150);
+        SocksPostRequest request = new SocksPostRequest("Blue", 8000, 150);
+        Sock sock = new Sock(2L, "Blue", 8000, 150);
 
         when(socksService.outcomeSock(any(Sock.class))).thenReturn(sock);
 
@@ -65,58 +96,129 @@ class SocksControllerTest {
 
     @Test
     void testUpdateSocks() throws NoSocksFoundException {
-        SocksUpdateRequest request = new SocksUpdateRequest("Green", 90.0);
-        Sock sock = new Sock(3L, "Green", 90.0, 200);
+        SocksUpdateRequest request = new SocksUpdateRequest("Green", 9000);
+        Sock sock = new Sock(3L, "Green", 9000, 200);
 
-        when(socksService.updateSock(anyString(), anyDouble(), anyLong())).thenReturn(sock);
+        when(socksService.updateSock(anyString(), anyInt(), anyLong())).thenReturn(sock);
 
         ResponseEntity<Sock> response = socksController.updateSocks(3L, request);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(sock, response.getBody());
-        verify(socksService, times(1)).updateSock(anyString(), anyDouble(), anyLong());
+        verify(socksService, times(1)).updateSock(anyString(), anyInt(), anyLong());
     }
 
     @Test
-    void testGetAmountOfSocks() throws NoSocksFoundException {
+    void testGetAmountOfSocks() throws Exception {
         String color = "Red";
         Double cottonPercentage = 75.0;
         String operator = "greater";
         Integer expectedAmount = 100;
 
-        when(socksService.getAmountOfSocks(color, cottonPercentage, operator)).thenReturn(expectedAmount);
+        when(socksService.getAmountOfSocks(color, 7500, operator, null)).thenReturn(expectedAmount);
 
-        ResponseEntity<Integer> response = socksController.getAmountOfSocks(color, cottonPercentage, operator);
+        ResponseEntity<Integer> response = socksController.getAmountOfSocks(color, cottonPercentage, operator, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(expectedAmount, response.getBody());
-        verify(socksService, times(1)).getAmountOfSocks(color, cottonPercentage, operator);
+        verify(socksService, times(1)).getAmountOfSocks(color, 7500, operator, null);
+    }
+
+    @Test
+    void testGetAmountOfSocks_AsOf() throws Exception {
+        LocalDateTime asOf = LocalDateTime.of(2024, 3, 1, 0, 0);
+        when(socksService.getAmountOfSocks("Red", 8000, "equal", asOf)).thenReturn(40);
+
+        ResponseEntity<Integer> response = socksController.getAmountOfSocks("Red", 80.0, "equal", asOf);
+
+        assertEquals(40, response.getBody());
+    }
+
+    @Test
+    void testCountSocks() {
+        List<SocksCountRequest> requests = Arrays.asList(new SocksCountRequest("Red", "equal", 7500));
+        List<SocksCountResult> results = Arrays.asList(SocksCountResult.counted(0, requests.get(0), 0));
+        when(socksService.countSocks(requests)).thenReturn(results);
+
+        ResponseEntity<List<SocksCountResult>> response = socksController.countSocks(requests);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(0L, response.getBody().get(0).getAmount());
+    }
+
+    @Test
+    void testGetStats() {
+        SocksStatsResponse stats = SocksStatsResponse.builder().bucketWidthBasisPoints(500).totalAmount(10).build();
+        when(socksService.getStats(2000, null, "Red", 500)).thenReturn(stats);
+
+        ResponseEntity<SocksStatsResponse> response = socksController.getStats(20.0, null, "Red", 5.0);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(stats, response.getBody());
+    }
+
+    @Test
+    void testExportSocks() throws Exception {
+        when(socksService.exportSocks(7000, null, "Red", "amount", "desc", SockFileFormat.XLSX))
+            .thenReturn(out -> out.write('x'));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        socksController.exportSocks(70.0, null, "Red", "amount", "desc", "XLSX", response);
+
+        assertEquals("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", response.getContentType());
+        assertEquals("attachment; filename=\"socks.xlsx\"", response.getHeader("Content-Disposition"));
+        assertEquals("x", response.getContentAsString());
+    }
+
+    @Test
+    void testExportSocks_UnsupportedFormat() {
+        assertThrows(IOException.class, () -> socksController.exportSocks(null, null, null, "id", "asc", "pdf", new MockHttpServletResponse()));
+
+        verifyNoInteractions(socksService);
     }
 
     @Test
     void testBatchSocks() throws IOException {
         MultipartFile file = mock(MultipartFile.class);
         when(file.getOriginalFilename()).thenReturn("socks.csv");
+        ImportJob job = new ImportJob("socks.csv");
 
-        doNothing().when(socksService).processSocksFile(file);
+        when(importJobService.submit(file)).thenReturn(job);
 
-        ResponseEntity<String> response = socksController.batchSocks(file);
+        ResponseEntity<ImportJobResponse> response = socksController.batchSocks(file);
 
-        assertEquals(HttpStatus.CREATED, response.getStatusCode());
-        assertEquals("Партия носков успешно загружена.", response.getBody());
-        verify(socksService, times(1)).processSocksFile(file);
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(job.getId(), response.getBody().getJobId());
+        assertEquals("/api/socks/batch/" + job.getId(), response.getHeaders().getLocation().toString());
+        verify(importJobService, times(1)).submit(file);
     }
 
     @Test
     void testBatchSocksIOException() throws IOException {
         MultipartFile file = mock(MultipartFile.class);
-        when(file.getOriginalFilename()).thenReturn("socks.csv");
-        doThrow(new IOException("File error")).when(socksService).processSocksFile(file);
+        when(file.getOriginalFilename()).thenReturn("socks.txt");
+        doThrow(new IOException("File error")).when(importJobService).submit(file);
+
+        IOException exception = assertThrows(IOException.class, () -> socksController.batchSocks(file));
 
-        ResponseEntity<String> response = socksController.batchSocks (file);
+        assertEquals("File error", exception.getMessage());
+        verify(importJobService, times(1)).submit(file);
+    }
 
-        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
-        assertEquals("Ошибка при загрузке файла: File error", response.getBody());
-        verify(socksService, times(1)).processSocksFile(file);
+    @Test
+    void testBatchStatus() throws NoImportJobFoundException {
+        ImportJob job = new ImportJob("socks.csv");
+        job.start();
+        job.onParsed(10);
+        job.onCommitted(5);
+
+        when(importJobService.getJob(job.getId())).thenReturn(job);
+
+        ResponseEntity<ImportJobResponse> response = socksController.batchStatus(job.getId());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(ImportJob.Status.RUNNING, response.getBody().getStatus());
+        assertEquals(10, response.getBody().getRowsParsed());
+        assertEquals(5, response.getBody().getRowsCommitted());
     }
 }
\ No newline at end of file
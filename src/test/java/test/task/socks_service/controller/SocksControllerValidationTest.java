@@ -0,0 +1,129 @@
+package test.task.socks_service.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.executable.ExecutableValidator;
+
+import org.junit.jupiter.api.Test;
+
+import test.task.socks_service.entity.dto.SocksCountRequest;
+import test.task.socks_service.entity.dto.SocksPostRequest;
+import test.task.socks_service.service.ImportJobService;
+import test.task.socks_service.service.SocksService;
+
+/**
+ * Ограничения на параметры методов контроллера, которые проверяет @Validated.
+ */
+class SocksControllerValidationTest {
+
+    private final ExecutableValidator validator = Validation.buildDefaultValidatorFactory().getValidator().forExecutables();
+    private final SocksController socksController = new SocksController(mock(SocksService.class), mock(ImportJobService.class));
+
+    @Test
+    void testGetStats_BucketWidthRange() throws Exception {
+        Method getStats = SocksController.class.getMethod("getStats", Double.class, Double.class, String.class, Double.class);
+
+        assertThat(violations(getStats, null, null, null, 0.0)).containsExactly("Ширина диапазона процента хлопка должна быть от 0.01 до 100");
+        assertThat(violations(getStats, null, null, null, 100.5)).containsExactly("Ширина диапазона процента хлопка должна быть от 0.01 до 100");
+        assertThat(violations(getStats, null, null, null, 0.01)).isEmpty();
+        assertThat(violations(getStats, null, null, null, 100.0)).isEmpty();
+    }
+
+    @Test
+    void testIncomeSocksBulk_ListSizeAndNullItems() throws Exception {
+        Method incomeSocksBulk = SocksController.class.getMethod("incomeSocksBulk", List.class);
+        SocksPostRequest request = new SocksPostRequest("Red", 7500, 1);
+
+        assertThat(violations(incomeSocksBulk, Collections.nCopies(SocksController.MAX_LIST_SIZE + 1, request)))
+            .containsExactly("В списке может быть не больше 1000 позиций");
+        assertThat(violations(incomeSocksBulk, Arrays.asList(request, null)))
+            .containsExactly("Позиция списка не может быть пустой");
+        assertThat(violations(incomeSocksBulk, (Object) null)).hasSize(1);
+        assertThat(violations(incomeSocksBulk, Collections.nCopies(SocksController.MAX_LIST_SIZE, request))).isEmpty();
+    }
+
+    @Test
+    void testOutcomeSocksBulk_InvalidItemIsRejectedByServiceNotController() throws Exception {
+        Method outcomeSocksBulk = SocksController.class.getMethod("outcomeSocksBulk", List.class);
+
+        assertThat(violations(outcomeSocksBulk, Arrays.asList(new SocksPostRequest(null, 7500, -1)))).isEmpty();
+    }
+
+    @Test
+    void testCountSocks_ListSizeAndNullItems() throws Exception {
+        Method countSocks = SocksController.class.getMethod("countSocks", List.class);
+        SocksCountRequest request = SocksCountRequest.builder().color("Red").operator("equal").cottonBasisPoints(7500).build();
+
+        assertThat(violations(countSocks, Collections.nCopies(SocksController.MAX_LIST_SIZE + 1, request)))
+            .containsExactly("В списке может быть не больше 1000 условий");
+        assertThat(violations(countSocks, Arrays.asList(null, request)))
+            .containsExactly("Условие списка не может быть пустым");
+        assertThat(violations(countSocks, Collections.singletonList(request))).isEmpty();
+    }
+
+    @Test
+    void testFilterSocks_PageAndSizeRange() throws Exception {
+        Method filterSocks = SocksController.class.getMethod("filterSocks", Double.class, Double.class, String.class,
+            int.class, int.class, String.class, String.class, LocalDateTime.class);
+
+        assertThat(violations(filterSocks, null, null, null, 0, 0, "id", "asc", null)).containsExactly("Размер страницы должен быть не меньше 1");
+        assertThat(violations(filterSocks, null, null, null, 0, 1001, "id", "asc", null)).containsExactly("Размер страницы должен быть не больше 1000");
+        assertThat(violations(filterSocks, null, null, null, -1, 10, "id", "asc", null)).containsExactly("Номер страницы не может быть отрицательным");
+        assertThat(violations(filterSocks, null, null, null, 0, 1000, "id", "asc", null)).isEmpty();
+    }
+
+    @Test
+    void testFilterSocksByCursor_SizeRange() throws Exception {
+        Method filterSocksByCursor = SocksController.class.getMethod("filterSocksByCursor", Double.class, Double.class, String.class,
+            String.class, int.class, String.class, String.class, LocalDateTime.class);
+
+        assertThat(violations(filterSocksByCursor, null, null, null, "", -5, "id", "asc", null)).containsExactly("Размер страницы должен быть не меньше 1");
+        assertThat(violations(filterSocksByCursor, null, null, null, "", 10, "id", "asc", null)).isEmpty();
+    }
+
+    @Test
+    void testIncomeSocks_RequiresColorAndCotton() throws Exception {
+        Method incomeSocks = SocksController.class.getMethod("incomeSocks", SocksPostRequest.class);
+
+        assertThat(violations(incomeSocks, new SocksPostRequest("Red", null, 1))).containsExactly("Процент хлопка должен быть указан");
+        assertThat(violations(incomeSocks, new SocksPostRequest(" ", 7500, 1))).containsExactly("Цвет носков должен быть указан");
+        assertThat(violations(incomeSocks, new SocksPostRequest(null, 7500, 1))).containsExactly("Цвет носков должен быть указан");
+        assertThat(violations(incomeSocks, new SocksPostRequest("Red", 7500, 1))).isEmpty();
+    }
+
+    @Test
+    void testOutcomeSocks_RequiresColorAndCotton() throws Exception {
+        Method outcomeSocks = SocksController.class.getMethod("outcomeSocks", SocksPostRequest.class);
+
+        assertThat(violations(outcomeSocks, new SocksPostRequest("Red", null, 1))).containsExactly("Процент хлопка должен быть указан");
+        assertThat(violations(outcomeSocks, new SocksPostRequest("", 7500, 1))).containsExactly("Цвет носков должен быть указан");
+        assertThat(violations(outcomeSocks, new SocksPostRequest("Red", 7500, null))).containsExactly("Количество носков должно быть указано");
+    }
+
+    @Test
+    void testGetAmountOfSocks_UnknownOperator() throws Exception {
+        Method getAmountOfSocks = SocksController.class.getMethod("getAmountOfSocks", String.class, Double.class, String.class,
+            LocalDateTime.class);
+
+        assertThat(violations(getAmountOfSocks, "Red", 75.0, "between", null))
+            .containsExactly("Оператор сравнения должен быть moreThan, lessThan или equal");
+        assertThat(violations(getAmountOfSocks, "Red", 75.0, "equal", null)).isEmpty();
+    }
+
+    private List<String> violations(Method method, Object... args) {
+        return validator.validateParameters(socksController, method, args).stream()
+            .map(ConstraintViolation::getMessage)
+            .collect(Collectors.toList());
+    }
+
+}
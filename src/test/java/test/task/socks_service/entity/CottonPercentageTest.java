@@ -0,0 +1,57 @@
+package test.task.socks_service.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+
+import test.task.socks_service.entity.dto.SocksPostRequest;
+import test.task.socks_service.exception.InvalidCottonPercentageException;
+
+class CottonPercentageTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testToBasisPoints() {
+        assertThat(CottonPercentage.toBasisPoints(75.5)).isEqualTo(7550);
+        assertThat(CottonPercentage.toBasisPoints(0.1)).isEqualTo(10);
+        assertThat(CottonPercentage.toBasisPoints(100.0)).isEqualTo(10000);
+        assertThat(CottonPercentage.parse(" 12.340 ")).isEqualTo(1234);
+        assertThat(CottonPercentage.toPercent(3333)).isEqualTo(33.33);
+    }
+
+    @Test
+    void testFormat() {
+        assertThat(CottonPercentage.format(7550)).isEqualTo("75.5");
+        assertThat(CottonPercentage.format(8000)).isEqualTo("80");
+        assertThat(CottonPercentage.format(3333)).isEqualTo("33.33");
+        assertThat(CottonPercentage.format(5)).isEqualTo("0.05");
+        assertThat(CottonPercentage.format(0)).isEqualTo("0");
+        assertThat(CottonPercentage.format(10000)).isEqualTo("100");
+    }
+
+    @Test
+    void testToBasisPoints_RejectsThirdDecimal() {
+        Exception exception = assertThrows(InvalidCottonPercentageException.class, () -> CottonPercentage.toBasisPoints(33.333));
+
+        assertThat(exception.getMessage()).isEqualTo("Процент хлопка указывается не более чем с двумя знаками после запятой: 33.333");
+    }
+
+    @Test
+    void testJson_KeepsPercentInApi() throws Exception {
+        SocksPostRequest request = objectMapper.readValue("{\"color\":\"Red\",\"cottonPercentage\":75.5,\"amount\":1}", SocksPostRequest.class);
+
+        assertThat(request.getCottonBasisPoints()).isEqualTo(7550);
+        assertThat(objectMapper.writeValueAsString(new Sock(1L, "Red", 7550, 1))).contains("\"cottonPercentage\":75.5");
+    }
+
+    @Test
+    void testJson_RejectsThirdDecimal() {
+        assertThrows(InvalidFormatException.class, () ->
+            objectMapper.readValue("{\"color\":\"Red\",\"cottonPercentage\":75.555,\"amount\":1}", SocksPostRequest.class));
+    }
+}
@@ -0,0 +1,131 @@
+package test.task.socks_service.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Optional;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import test.task.socks_service.EmbeddedPostgresDatabase;
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.service.color.ColorDictionary;
+
+/**
+ * Изменение остатков запросами on conflict ... returning и update ... returning,
+ * которые H2 не выполняет.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ColorDictionary.class, SocksRepositoryPostgresTest.PostgresConfig.class})
+class SocksRepositoryPostgresTest {
+
+    @Autowired
+    private SocksRepository socksRepository;
+
+    @Autowired
+    private ColorDictionary colorDictionary;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private short red;
+
+    @BeforeAll
+    static void cleanDatabase() {
+        EmbeddedPostgresDatabase.truncate();
+    }
+
+    @BeforeEach
+    void setUp() {
+        red = colorDictionary.intern("Red");
+    }
+
+    @Test
+    void testIncreaseAmount_InsertsNewRow() {
+        Sock sock = socksRepository.increaseAmount(red, 3000, 10);
+
+        assertThat(sock.getId()).isNotNull();
+        assertThat(sock.getColor()).isEqualTo("red");
+        assertThat(sock.getCottonBasisPoints()).isEqualTo(3000);
+        assertThat(sock.getAmount()).isEqualTo(10);
+    }
+
+    @Test
+    void testIncreaseAmount_AddsToExistingRow() {
+        Sock created = socksRepository.increaseAmount(red, 3000, 10);
+
+        Sock merged = socksRepository.increaseAmount(red, 3000, 5);
+
+        assertThat(merged.getId()).isEqualTo(created.getId());
+        assertThat(merged.getAmount()).isEqualTo(15);
+        assertThat(socksRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void testIncreaseAmount_NotShadowedByLoadedEntity() {
+        Long id = socksRepository.increaseAmount(red, 3000, 10).getId();
+        assertThat(socksRepository.findById(id)).get().extracting(Sock::getAmount).isEqualTo(10);
+
+        Sock merged = socksRepository.increaseAmount(red, 3000, 5);
+
+        assertThat(merged.getAmount()).isEqualTo(15);
+        assertThat(socksRepository.findById(id)).get().extracting(Sock::getAmount).isEqualTo(15);
+    }
+
+    @Test
+    void testIncreaseAmount_FlushesPendingChanges() {
+        Sock sock = socksRepository.increaseAmount(red, 3000, 10);
+        socksRepository.findById(sock.getId()).get().setAmount(20);
+
+        Sock merged = socksRepository.increaseAmount(red, 3000, 5);
+
+        assertThat(merged.getAmount()).isEqualTo(25);
+    }
+
+    @Test
+    void testDecreaseAmount_Success() {
+        socksRepository.increaseAmount(red, 3000, 10);
+
+        Optional<Sock> sock = socksRepository.decreaseAmount(red, 3000, 4);
+
+        assertThat(sock).get().extracting(Sock::getAmount).isEqualTo(6);
+    }
+
+    @Test
+    void testDecreaseAmount_NotEnoughLeavesRowUnchanged() {
+        Long id = socksRepository.increaseAmount(red, 3000, 10).getId();
+
+        Optional<Sock> sock = socksRepository.decreaseAmount(red, 3000, 11);
+
+        assertThat(sock).isEmpty();
+        entityManager.clear();
+        assertThat(socksRepository.findById(id)).get().extracting(Sock::getAmount).isEqualTo(10);
+    }
+
+    @Test
+    void testDecreaseAmount_UnknownKey() {
+        assertThat(socksRepository.decreaseAmount(red, 5000, 1)).isEmpty();
+    }
+
+    @TestConfiguration
+    static class PostgresConfig {
+
+        @Bean
+        DataSource dataSource() {
+            return EmbeddedPostgresDatabase.dataSource();
+        }
+
+    }
+
+}
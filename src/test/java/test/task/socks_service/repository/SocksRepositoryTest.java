@@ -3,6 +3,8 @@ package test.task.socks_service.repository;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.AfterEach;
@@ -10,23 +12,43 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import test.task.socks_service.entity.Sock;
+import test.task.socks_service.service.color.ColorDictionary;
+import test.task.socks_service.specification.SockCursor;
+import test.task.socks_service.specification.SockSpecification;
 
 @DataJpaTest
+@Import(ColorDictionary.class)
 class SocksRepositoryTest {
 
     @Autowired
     private SocksRepository socksRepository;
 
+    @Autowired
+    private ColorDictionary colorDictionary;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private Sock testSock;
 
+    private Short red;
+
     @BeforeEach
     public void setup() {
+        // intern пишет через on conflict, которого нет в H2
+        jdbcTemplate.update("insert into colors (name) values ('red')");
+        red = colorDictionary.idOf("Red");
         testSock = new Sock();
         testSock.setAmount(10);
         testSock.setColor("Red");
-        testSock.setCottonPercentage(30.0);
+        testSock.setCottonBasisPoints(3000);
         socksRepository.save(testSock);
     }
 
@@ -36,34 +58,87 @@ class SocksRepositoryTest {
     }
 
     @Test
-    void testFindByColorAndCottonPercentage() {
-        Optional<Sock> foundSock = socksRepository.findByColorAndCottonPercentage(testSock.getColor(), testSock.getCottonPercentage());
+    void testFindByColorAndCottonBasisPoints() {
+        Optional<Sock> foundSock = socksRepository.findByColorIdAndCottonBasisPoints(red, testSock.getCottonBasisPoints());
         assertThat(foundSock).isPresent();
         assertThat(foundSock.get().getAmount()).isEqualTo(10);
     }
 
     @Test
-    void testCountSocksByColorAndCottonPercentageGreaterThan() {
-        Integer testCountNull = socksRepository.countSocksByColorAndCottonPercentageGreaterThan(testSock.getColor(), testSock.getCottonPercentage());
+    void testColorFilterIgnoresCase() {
+        assertThat(socksRepository.existsByColorAndCottonBasisPoints(" RED", 3000)).isTrue();
+        assertThat(socksRepository.existsByColorAndCottonBasisPoints("Magenta", 3000)).isFalse();
+    }
+
+    @Test
+    void testCountSocksByColorAndCottonBasisPointsGreaterThan() {
+        Integer testCountNull = socksRepository.countSocksByColorIdAndCottonBasisPointsGreaterThan(red, testSock.getCottonBasisPoints());
         assertThat(testCountNull).isNull();
-        Integer testCountPositive = socksRepository.countSocksByColorAndCottonPercentageGreaterThan(testSock.getColor(), testSock.getCottonPercentage() - 2);
+        Integer testCountPositive = socksRepository.countSocksByColorIdAndCottonBasisPointsGreaterThan(red, testSock.getCottonBasisPoints() - 200);
         assertThat(testCountPositive).isEqualTo(10);
     }
 
     @Test
-    void testCountSocksByColorAndCottonPercentageLessThan() {
-        Integer testCountNull = socksRepository.countSocksByColorAndCottonPercentageLessThan(testSock.getColor(), testSock.getCottonPercentage());
+    void testCountSocksByColorAndCottonBasisPointsLessThan() {
+        Integer testCountNull = socksRepository.countSocksByColorIdAndCottonBasisPointsLessThan(red, testSock.getCottonBasisPoints());
         assertThat(testCountNull).isNull();
-        Integer testCountPositive = socksRepository.countSocksByColorAndCottonPercentageLessThan(testSock.getColor(), testSock.getCottonPercentage() + 2);
+        Integer testCountPositive = socksRepository.countSocksByColorIdAndCottonBasisPointsLessThan(red, testSock.getCottonBasisPoints() + 200);
         assertThat(testCountPositive).isEqualTo(10);
     }
 
     @Test
-    void testCountSocksByColorAndCottonPercentageEqual() {
-        Integer testCountNull = socksRepository.countSocksByColorAndCottonPercentageEqual(testSock.getColor(), testSock.getCottonPercentage() + 2);
+    void testCountSocksByColorAndCottonBasisPointsEqual() {
+        Integer testCountNull = socksRepository.countSocksByColorIdAndCottonBasisPointsEqual(red, testSock.getCottonBasisPoints() + 200);
         assertThat(testCountNull).isNull();
-        Integer testCountPositive = socksRepository.countSocksByColorAndCottonPercentageEqual(testSock.getColor(), testSock.getCottonPercentage());
+        Integer testCountPositive = socksRepository.countSocksByColorIdAndCottonBasisPointsEqual(red, testSock.getCottonBasisPoints());
         assertThat(testCountPositive).isEqualTo(10);
     }
 
-}
\ No newline at end of file
+    @Test
+    void testCountSocks_AddsUnfoldedMovements() {
+        jdbcTemplate.update("insert into stock_movements (color_id, cotton_basis_points, delta, source) values (?, ?, ?, ?)", red, 3000, -4, "outcome");
+        jdbcTemplate.update("insert into stock_movements (color_id, cotton_basis_points, delta, source, folded) values (?, ?, ?, ?, true)", red, 3000, 100, "income");
+        jdbcTemplate.update("insert into stock_movements (color_id, cotton_basis_points, delta, source) values (?, ?, ?, ?)", red, 5000, 7, "import");
+
+        assertThat(socksRepository.countSocksByColorIdAndCottonBasisPointsEqual(red, 3000)).isEqualTo(6);
+        assertThat(socksRepository.countSocksByColorIdAndCottonBasisPointsGreaterThan(red, 3000)).isEqualTo(7);
+        assertThat(socksRepository.countSocksByColorIdAndCottonBasisPointsLessThan(red, 6000)).isEqualTo(13);
+    }
+
+    @Test
+    void testFindSlice_SeeksPastCursorWithoutCount() throws Exception {
+        List<Sock> extra = socksRepository.saveAll(Arrays.asList(
+            new Sock(null, "Red", 4000, 1), new Sock(null, "Red", 5000, 1), new Sock(null, "Red", 6000, 1)));
+        Sort sort = Sort.by(Sort.Direction.ASC, "cottonBasisPoints").and(Sort.by(Sort.Direction.ASC, "id"));
+        Specification<Sock> red = SockSpecification.filterByColor("Red");
+
+        Slice<Sock> first = socksRepository.findSlice(red, sort, 2);
+        assertThat(first.getContent()).extracting(Sock::getCottonBasisPoints).containsExactly(3000, 4000);
+        assertThat(first.hasNext()).isTrue();
+
+        SockCursor cursor = SockCursor.after(first.getContent().get(1), "cottonPercentage", Sort.Direction.ASC);
+        Slice<Sock> second = socksRepository.findSlice(red.and(SockSpecification.after(cursor)), sort, 2);
+        assertThat(second.getContent()).extracting(Sock::getCottonBasisPoints).containsExactly(5000, 6000);
+        assertThat(second.hasNext()).isFalse();
+
+        socksRepository.deleteAll(extra);
+    }
+
+    @Test
+    void testFindSlice_ColorSortsByNameNotId() throws Exception {
+        jdbcTemplate.update("insert into colors (name) values ('green'), ('blue')");
+        List<Sock> extra = socksRepository.saveAll(Arrays.asList(
+            new Sock(null, "green", 3000, 1), new Sock(null, "blue", 3000, 1)));
+        Sort sort = Sort.by(Sort.Direction.ASC, SockSpecification.attributeOf("color")).and(Sort.by(Sort.Direction.ASC, "id"));
+
+        Slice<Sock> first = socksRepository.findSlice(Specification.where(null), sort, 2);
+        assertThat(first.getContent()).extracting(Sock::getColor).containsExactly("blue", "green");
+
+        SockCursor cursor = SockCursor.after(first.getContent().get(1), "color", Sort.Direction.ASC);
+        Slice<Sock> second = socksRepository.findSlice(SockSpecification.after(cursor), sort, 2);
+        assertThat(second.getContent()).extracting(Sock::getId).containsExactly(testSock.getId());
+
+        socksRepository.deleteAll(extra);
+    }
+
+}
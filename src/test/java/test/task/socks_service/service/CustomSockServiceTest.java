@@ -2,28 +2,69 @@ package test.task.socks_service.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
+import javax.validation.Validation;
+import javax.validation.Validator;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.web.multipart.MultipartFile;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import test.task.socks_service.config.ImportProperties;
+import test.task.socks_service.config.StockProperties;
 import test.task.socks_service.entity.Sock;
+import test.task.socks_service.entity.SockKey;
+import test.task.socks_service.entity.dto.BulkMovementResult;
+import test.task.socks_service.entity.dto.SocksCountRequest;
+import test.task.socks_service.entity.dto.SocksCountResult;
+import test.task.socks_service.entity.dto.SocksPostRequest;
+import test.task.socks_service.entity.dto.SocksSliceResponse;
+import test.task.socks_service.exception.InvalidCursorException;
 import test.task.socks_service.exception.NoEnoughSocksException;
 import test.task.socks_service.exception.NoSocksFoundException;
+import test.task.socks_service.exception.StockHistoryException;
 import test.task.socks_service.repository.SocksRepository;
+import test.task.socks_service.service.color.ColorDictionary;
+import test.task.socks_service.service.importer.CsvSockReader;
+import test.task.socks_service.service.importer.ImportProgressListener;
+import test.task.socks_service.service.importer.SockImportBatch;
+import test.task.socks_service.service.importer.SockImportWriter;
+import test.task.socks_service.service.importer.XlsxSockReader;
+import test.task.socks_service.service.stock.StockCountCache;
+import test.task.socks_service.service.stock.StockHistory;
+import test.task.socks_service.service.stock.StockIndex;
+import test.task.socks_service.service.stock.StockStatistics;
+import test.task.socks_service.service.stock.StockWriter;
+import test.task.socks_service.specification.SockCursor;
 
 import java.util.Arrays;
 
@@ -32,6 +73,44 @@ class CustomSockServiceTest {
     @Mock
     private SocksRepository socksRepository;
 
+    @Spy
+    private XlsxSockReader xlsxSockReader = new XlsxSockReader();
+
+    @Spy
+    private CsvSockReader csvSockReader = new CsvSockReader(new ImportProperties());
+
+    @Mock
+    private SockImportWriter sockImportWriter;
+
+    @Mock
+    private SockImportBatch sockImportBatch;
+
+    @Mock
+    private StockIndex stockIndex;
+
+    @Mock
+    private StockWriter stockWriter;
+
+    @Mock
+    private ColorDictionary colorDictionary;
+
+    @Mock
+    private StockHistory stockHistory;
+
+    @Mock
+    private StockStatistics stockStatistics;
+
+    private ColorDictionary cachedColors = mock(ColorDictionary.class);
+
+    @Spy
+    private StockCountCache stockCountCache = new StockCountCache(new StockProperties(), new SimpleMeterRegistry(), cachedColors);
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private CustomSockService customSockService;
 
@@ -42,113 +121,214 @@ class CustomSockServiceTest {
         MockitoAnnotations.openMocks(this);
         testSock = new Sock();
         testSock.setColor("Red");
-        testSock.setCottonPercentage(30.0);
+        testSock.setCottonBasisPoints(3000);
         testSock.setAmount(10);
+        when(colorDictionary.idOf(anyString())).thenReturn((short) 1);
+        when(cachedColors.idOf(anyString())).thenReturn((short) 1);
     }
 
     @Test
-    void testIncomeSock_NewSock() {
-        when(socksRepository.findByColorAndCottonPercentage(anyString(), any(Double.class))).thenReturn(Optional.empty());
-        when(socksRepository.save(any(Sock.class))).thenReturn(testSock);
+    void testIncomeSock_DelegatesToStockWriter() {
+        when(stockWriter.income(testSock)).thenReturn(testSock);
 
         Sock result = customSockService.incomeSock(testSock);
 
-        assertThat(result.getAmount()).isEqualTo(10);
-        verify(socksRepository).save(testSock);
+        assertThat(result).isSameAs(testSock);
+        verify(stockWriter).income(testSock);
     }
 
     @Test
-    void testOutcomeSock_Success() throws Exception {
-        when(socksRepository.findByColorAndCottonPercentage(anyString(), any(Double.class))).thenReturn(Optional.of(testSock));
+    void testOutcomeSock_DelegatesToStockWriter() throws Exception {
+        when(stockWriter.outcome(testSock)).thenThrow(new NoEnoughSocksException("На складе недостаточно носков данного типа"));
 
-        Sock result = customSockService.outcomeSock(testSock);
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(NoEnoughSocksException.class, () -> {
+            customSockService.outcomeSock(testSock);
+        });
 
-        assertThat(result.getAmount()).isZero();
-        verify(socksRepository).findByColorAndCottonPercentage(testSock.getColor(), testSock.getCottonPercentage());
+        assertThat(exception.getMessage()).isEqualTo("На складе недостаточно носков данного типа");
     }
 
     @Test
-    void testOutcomeSock_NoSocksFound() {
-        when(socksRepository.findByColorAndCottonPercentage(anyString(), any(Double.class))).thenReturn(Optional.empty());
-
-        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(NoSocksFoundException.class, () -> {
-            customSockService.outcomeSock(testSock);
+    void testOutcomeSocks_RejectsInvalidItemsAndKeepsOrder() {
+        List<SocksPostRequest> requests = Arrays.asList(
+            new SocksPostRequest("Red", 3000, 5),
+            new SocksPostRequest("Red", 13000, 5),
+            new SocksPostRequest("Blue", 4000, 7));
+        when(stockWriter.outcomeAll(anyList())).thenAnswer(invocation -> {
+            List<Sock> socks = invocation.getArgument(0);
+            assertThat(socks).extracting(Sock::getColor).containsExactly("red", "blue");
+            return Arrays.asList(
+                BulkMovementResult.applied(0, socks.get(0)),
+                BulkMovementResult.rejected(1, socks.get(1), "На складе недостаточно носков данного типа"));
         });
 
-        assertThat(exception.getMessage()).isEqualTo("На складе не найдено носков данного типа");
+        List<BulkMovementResult> results = customSockService.outcomeSocks(requests);
+
+        assertThat(results).extracting(BulkMovementResult::getIndex).containsExactly(0, 1, 2);
+        assertThat(results).extracting(BulkMovementResult::getStatus).containsExactly(
+            BulkMovementResult.Status.APPLIED, BulkMovementResult.Status.REJECTED, BulkMovementResult.Status.REJECTED);
+        assertThat(results.get(1).getError()).isEqualTo("Процент хлопка не может быть  больше 100");
+        assertThat(results.get(2).getError()).isEqualTo("На складе недостаточно носков данного типа");
     }
 
     @Test
-    void testOutcomeSock_NotEnoughSocks() {
-        testSock.setAmount(1);
-        when(socksRepository.findByColorAndCottonPercentage(anyString(), any(Double.class))).thenReturn(Optional.of(testSock));
-        
-        Sock requestedSock = new Sock();
-        requestedSock.setColor("Red");
-        requestedSock.setCottonPercentage(30.0);
-        requestedSock.setAmount(2);
-    
-        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(NoEnoughSocksException.class, () -> {
-            customSockService.outcomeSock(requestedSock);
-        });
-    
-        assertThat(exception.getMessage()).isEqualTo("На складе недостаточно носков данного типа");
+    void testIncomeSocks_AllInvalidSkipsWriter() {
+        List<BulkMovementResult> results = customSockService.incomeSocks(Arrays.asList(new SocksPostRequest(null, 3000, 5)));
+
+        assertThat(results.get(0).getStatus()).isEqualTo(BulkMovementResult.Status.REJECTED);
+        verifyNoInteractions(stockWriter);
     }
 
     @Test
     void testGetAmountOfSocks_MoreThan() throws NoSocksFoundException {
-        when(socksRepository.countSocksByColorAndCottonPercentageGreaterThan(anyString(), any(Double.class))).thenReturn(5);
+        when(socksRepository.countSocksByColorIdAndCottonBasisPointsGreaterThan(anyShort(), anyInt())).thenReturn(5);
 
-        Integer amount = customSockService.getAmountOfSocks("Red", 20.0, "moreThan");
+        Integer amount = customSockService.getAmountOfSocks("Red", 2000, "moreThan");
 
         assertThat(amount).isEqualTo(5);
     }
 
     @Test
     void testGetAmountOfSocks_LessThan() throws NoSocksFoundException {
-        when(socksRepository.countSocksByColorAndCottonPercentageLessThan(anyString(), any(Double.class))).thenReturn(3);
+        when(socksRepository.countSocksByColorIdAndCottonBasisPointsLessThan(anyShort(), anyInt())).thenReturn(3);
 
-        Integer amount = customSockService.getAmountOfSocks("Red", 40.0, "lessThan");
+        Integer amount = customSockService.getAmountOfSocks("Red", 4000, "lessThan");
 
         assertThat(amount).isEqualTo(3);
     }
 
     @Test
     void testGetAmountOfSocks_Equal() throws NoSocksFoundException {
-        when(socksRepository.countSocksByColorAndCottonPercentageEqual(anyString(), any(Double.class))).thenReturn(2);
+        when(socksRepository.countSocksByColorIdAndCottonBasisPointsEqual(anyShort(), anyInt())).thenReturn(2);
 
-        Integer amount = customSockService.getAmountOfSocks("Red", 30.0, "equal");
+        Integer amount = customSockService.getAmountOfSocks("Red", 3000, "equal");
 
         assertThat(amount).isEqualTo(2);
     }
 
     @Test
     void testGetAmountOfSocks_NoSocksFound() {
-        when(socksRepository.countSocksByColorAndCottonPercentageGreaterThan(anyString(), any(Double.class))).thenReturn(0);
+        when(socksRepository.countSocksByColorIdAndCottonBasisPointsGreaterThan(anyShort(), anyInt())).thenReturn(0);
 
         Exception exception = org.junit.jupiter.api.Assertions.assertThrows(NoSocksFoundException.class, () -> {
-            customSockService.getAmountOfSocks("Red", 20.0, "moreThan");
+            customSockService.getAmountOfSocks("Red", 2000, "moreThan");
         });
 
         assertThat(exception.getMessage()).isEqualTo("На складе не найдено носков по вашему фильтру");
     }
 
+    @Test
+    void testGetAmountOfSocks_Cached() throws NoSocksFoundException {
+        when(socksRepository.countSocksByColorIdAndCottonBasisPointsEqual((short) 1, 3000)).thenReturn(2);
+
+        customSockService.getAmountOfSocks("Red", 3000, "equal");
+        Integer amount = customSockService.getAmountOfSocks("Red", 3000, "equal");
+
+        assertThat(amount).isEqualTo(2);
+        verify(socksRepository, times(1)).countSocksByColorIdAndCottonBasisPointsEqual((short) 1, 3000);
+    }
+
+    @Test
+    void testGetAmountOfSocks_UnknownColor() {
+        when(colorDictionary.idOf("magenta")).thenReturn(null);
+
+        org.junit.jupiter.api.Assertions.assertThrows(NoSocksFoundException.class, () -> {
+            customSockService.getAmountOfSocks(" Magenta", 2000, "equal");
+        });
+
+        verifyNoInteractions(socksRepository);
+    }
+
+    @Test
+    void testGetAmountOfSocks_FromIndex() throws NoSocksFoundException {
+        when(stockIndex.isReady()).thenReturn(true);
+        when(stockIndex.lessThan("red", 4000)).thenReturn(7L);
+
+        Integer amount = customSockService.getAmountOfSocks("Red", 4000, "lessThan");
+
+        assertThat(amount).isEqualTo(7);
+        verifyNoInteractions(socksRepository);
+    }
+
+    @Test
+    void testGetAmountOfSocks_AsOf() throws Exception {
+        LocalDateTime asOf = LocalDateTime.of(2024, 3, 1, 0, 0);
+        when(stockHistory.amountAsOf("red", 8000, "equal", asOf)).thenReturn(40L);
+
+        Integer amount = customSockService.getAmountOfSocks("Red", 8000, "equal", asOf);
+
+        assertThat(amount).isEqualTo(40);
+        verifyNoInteractions(socksRepository, stockIndex);
+    }
+
+    @Test
+    void testGetAmountOfSocks_AsOfWithoutHistory() throws Exception {
+        LocalDateTime asOf = LocalDateTime.of(2024, 3, 1, 0, 0);
+        when(stockHistory.amountAsOf("red", 8000, "equal", asOf)).thenReturn(0L);
+
+        org.junit.jupiter.api.Assertions.assertThrows(NoSocksFoundException.class, () -> {
+            customSockService.getAmountOfSocks("Red", 8000, "equal", asOf);
+        });
+    }
+
+    @Test
+    void testCountSocks_ZeroIsResultNotError() {
+        when(stockStatistics.countAll(any())).thenReturn(new long[] {5, 0});
+
+        List<SocksCountResult> results = customSockService.countSocks(Arrays.asList(
+            new SocksCountRequest(" Red", "moreThan", 2000),
+            new SocksCountRequest("Blue", "equal", 3000)));
+
+        assertThat(results).extracting(SocksCountResult::getAmount).containsExactly(5L, 0L);
+        assertThat(results).extracting(SocksCountResult::getError).containsOnlyNulls();
+        verify(stockStatistics).countAll(argThat(predicates -> predicates.size() == 2 && predicates.get(0).getColor().equals("red")));
+    }
+
+    @Test
+    void testCountSocks_RejectsInvalidIndividually() {
+        when(stockStatistics.countAll(any())).thenReturn(new long[] {7});
+
+        List<SocksCountResult> results = customSockService.countSocks(Arrays.asList(
+            new SocksCountRequest("Red", "between", 2000),
+            new SocksCountRequest("Red", "lessThan", 4000),
+            new SocksCountRequest(null, "equal", 3000)));
+
+        assertThat(results.get(0).getError()).isEqualTo("Неверный оператор сравнения: between");
+        assertThat(results.get(1).getAmount()).isEqualTo(7);
+        assertThat(results.get(1).getIndex()).isEqualTo(1);
+        assertThat(results.get(2).getError()).isEqualTo("Не заполнены цвет или процент хлопка");
+        assertThat(results.get(2).getAmount()).isNull();
+    }
+
+    @Test
+    void testCountSocks_FromIndex() {
+        when(stockIndex.isReady()).thenReturn(true);
+        when(stockIndex.moreThan("red", 2000)).thenReturn(9L);
+
+        List<SocksCountResult> results = customSockService.countSocks(Arrays.asList(new SocksCountRequest("Red", "moreThan", 2000)));
+
+        assertThat(results.get(0).getAmount()).isEqualTo(9);
+        verifyNoInteractions(stockStatistics, socksRepository);
+    }
+
     @Test
     void testUpdateSock_Success() throws NoSocksFoundException {
-        when(socksRepository.findById(any(Long.class))).thenReturn(Optional.of(testSock));
+        when(stockWriter.relabel(1L, "blue", 5000)).thenReturn(Optional.of(new Sock(1L, "blue", 5000, 10)));
 
-        Sock updatedSock = customSockService.updateSock("Blue", 50.0, 1L);
+        Sock updatedSock = customSockService.updateSock("Blue", 5000, 1L);
 
-        assertThat(updatedSock.getColor()).isEqualTo("Blue");
-        assertThat(updatedSock.getCottonPercentage()).isEqualTo(50.0);
+        assertThat(updatedSock.getColor()).isEqualTo("blue");
+        assertThat(updatedSock.getCottonBasisPoints()).isEqualTo(5000);
+        verify(colorDictionary).intern("blue");
+        verify(stockWriter, never()).flush();
     }
 
     @Test
     void testUpdateSock_NotFound() {
-        when(socksRepository.findById(any(Long.class))).thenReturn(Optional.empty());
+        when(stockWriter.relabel(anyLong(), anyString(), anyInt())).thenReturn(Optional.empty());
 
         Exception exception = org.junit.jupiter.api.Assertions.assertThrows(NoSocksFoundException.class, () -> {
-            customSockService.updateSock("Blue", 50.0, 1L);
+            customSockService.updateSock("Blue", 5000, 1L);
         });
 
         assertThat(exception.getMessage()).isEqualTo("На складе не найдено носков с ID: 1");
@@ -158,11 +338,58 @@ class CustomSockServiceTest {
     void testProcessSocksFile_Csv() throws IOException {
         MultipartFile file = mock(MultipartFile.class);
         when(file.getOriginalFilename()).thenReturn("socks.csv");
-        when(file.getInputStream()).thenReturn(getClass().getResourceAsStream("../resources/test_socks.csv"));
+        doAnswer(invocation -> {
+            Files.copy(getClass().getResourceAsStream("../resources/test_socks.csv"), invocation.<Path>getArgument(0),
+                StandardCopyOption.REPLACE_EXISTING);
+            return null;
+        }).when(file).transferTo(any(Path.class));
+        when(sockImportWriter.begin(anyString(), any())).thenReturn(sockImportBatch);
+
+        when(sockImportBatch.getParsed()).thenReturn(3L);
+
+        customSockService.processSocksFile(file);
+
+        verify(sockImportBatch).onRow("Red", 7500, 100);
+        verify(sockImportBatch, times(3)).onRow(anyString(), anyInt(), anyInt());
+        verify(sockImportBatch).finish();
+        assertThat(meterRegistry.get("socks.import.stage").tags("stage", "parse", "format", "csv", "outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("socks.import.stage").tags("stage", "persist", "format", "csv", "outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("socks.import.rows").tag("format", "csv").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void testProcessSocksFile_RecordsFailedParse() throws IOException {
+        Path file = Files.createTempFile("socks-", ".csv");
+        try {
+            Files.write(file, "color,cottonPercentage,amount\nRed,-1,10\n".getBytes());
+            when(sockImportWriter.begin(anyString(), any())).thenReturn(sockImportBatch);
+
+            org.junit.jupiter.api.Assertions.assertThrows(IOException.class, () -> {
+                customSockService.processSocksFile(file, "socks.csv", ImportProgressListener.NONE);
+            });
+
+            assertThat(meterRegistry.get("socks.import.stage").tags("stage", "parse", "outcome", "failure").timer().count()).isEqualTo(1);
+            assertThat(meterRegistry.find("socks.import.stage").tag("stage", "persist").timer()).isNull();
+            verify(sockImportBatch, never()).finish();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testProcessSocksFile_Xlsx() throws IOException {
+        MultipartFile file = mock(MultipartFile.class);
+        when(file.getOriginalFilename()).thenReturn("socks.xlsx");
+        doAnswer(invocation -> {
+            writeWorkbook(invocation.getArgument(0), 3);
+            return null;
+        }).when(file).transferTo(any(Path.class));
+        when(sockImportWriter.begin(anyString(), any())).thenReturn(sockImportBatch);
 
         customSockService.processSocksFile(file);
 
-        verify(socksRepository, atLeastOnce()).saveAll(anyList());
+        verify(sockImportBatch, times(3)).onRow(anyString(), anyInt(), anyInt());
+        verify(sockImportBatch).finish();
     }
 
     @Test
@@ -182,9 +409,77 @@ class CustomSockServiceTest {
     Page<Sock> page = new PageImpl<>(Arrays.asList(testSock));
     when(socksRepository.findAll(any(Specification.class), any(PageRequest.class))).thenReturn(page);
 
-    Page<Sock> result = customSockService.getFilteredAndSortedSocks(20.0, 40.0, "Red", 0, 10, "color", "ASC");
+    Page<Sock> result = customSockService.getFilteredAndSortedSocks(2000, 4000, "Red", 0, 10, "color", "ASC");
 
     assertThat(result.getContent()).hasSize(1);
     assertThat(result.getContent().get(0).getColor()).isEqualTo("Red");
 }
+
+    @Test
+    void testGetFilteredAndSortedSocks_AsOf() throws Exception {
+        LocalDateTime asOf = LocalDateTime.of(2024, 3, 1, 0, 0);
+        Sock current = new Sock(7L, "red", 8000, 3);
+        when(socksRepository.findAll(any(Specification.class), any(PageRequest.class)))
+            .thenReturn(new PageImpl<>(Arrays.asList(current), PageRequest.of(0, 10), 21));
+        when(stockHistory.amountsAsOf(any(), eq(asOf))).thenReturn(Collections.singletonMap(new SockKey("red", 8000), 40L));
+
+        Page<Sock> result = customSockService.getFilteredAndSortedSocks(null, null, "red", 0, 10, "cottonPercentage", "asc", asOf);
+
+        assertThat(result.getTotalElements()).isEqualTo(21);
+        assertThat(result.getContent().get(0).getId()).isEqualTo(7L);
+        assertThat(result.getContent().get(0).getAmount()).isEqualTo(40);
+        assertThat(current.getAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void testGetFilteredAndSortedSocks_AsOfSortedByAmount() throws Exception {
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(StockHistoryException.class, () -> {
+            customSockService.getFilteredAndSortedSocks(null, null, "red", 0, 10, "amount", "asc", LocalDateTime.now());
+        });
+
+        assertThat(exception.getMessage()).isEqualTo("Сортировка по количеству на дату не поддерживается");
+        verifyNoInteractions(socksRepository);
+    }
+
+    @Test
+    void testGetFilteredAndSortedSocks_ByCursor() throws Exception {
+        Sock last = new Sock(7L, "Red", 4550, 3);
+        when(socksRepository.findSlice(any(Specification.class), any(Sort.class), eq(2)))
+            .thenReturn(new SliceImpl<>(Arrays.asList(testSock, last), PageRequest.of(0, 2), true));
+
+        SocksSliceResponse result = customSockService.getFilteredAndSortedSocks(null, null, "Red", "", 2, "cottonPercentage", "asc");
+
+        assertThat(result.isHasNext()).isTrue();
+        SockCursor cursor = SockCursor.decode(result.getNextCursor());
+        assertThat(cursor.getValue()).isEqualTo(4550);
+        assertThat(cursor.getId()).isEqualTo(7L);
+        verify(socksRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void testGetFilteredAndSortedSocks_CursorForOtherSort() throws Exception {
+        String cursor = SockCursor.after(new Sock(7L, "Red", 4550, 3), "amount", Sort.Direction.ASC).encode();
+
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(InvalidCursorException.class, () -> {
+            customSockService.getFilteredAndSortedSocks(null, null, "Red", cursor, 2, "cottonPercentage", "asc");
+        });
+
+        assertThat(exception.getMessage()).isEqualTo("Курсор получен для другой сортировки");
+    }
+
+    private void writeWorkbook(Path path, int rows) throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(path)) {
+            Row header = workbook.createSheet().createRow(0);
+            header.createCell(0).setCellValue("color");
+            header.createCell(1).setCellValue("cottonPercentage");
+            header.createCell(2).setCellValue("amount");
+            for (int i = 1; i <= rows; i++) {
+                Row row = workbook.getSheetAt(0).createRow(i);
+                row.createCell(0).setCellValue("Red");
+                row.createCell(1).setCellValue(30.0 + i);
+                row.createCell(2).setCellValue(10);
+            }
+            workbook.write(out);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package test.task.socks_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.multipart.MultipartFile;
+
+import test.task.socks_service.config.ImportProperties;
+import test.task.socks_service.config.ThreadProperties;
+import test.task.socks_service.exception.NoImportJobFoundException;
+import test.task.socks_service.service.importer.ImportJob;
+
+class ImportJobServiceTest {
+
+    @TempDir
+    Path spoolDir;
+
+    private SocksService socksService;
+    private ImportJobService importJobService;
+
+    @BeforeEach
+    void setUp() {
+        socksService = mock(SocksService.class);
+        ImportProperties properties = new ImportProperties();
+        properties.setSpoolDir(spoolDir);
+        properties.setThreads(1);
+        importJobService = new ImportJobService(socksService, properties, new ThreadProperties());
+        importJobService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        importJobService.stop();
+    }
+
+    @Test
+    void testSubmit_ProcessesSpooledFile() throws Exception {
+        MultipartFile file = mock(MultipartFile.class);
+        when(file.getOriginalFilename()).thenReturn("socks.csv");
+
+        ImportJob job = importJobService.submit(file);
+
+        verify(socksService, timeout(5000)).processSocksFile(any(Path.class), eq("socks.csv"), eq(job));
+        assertThat(importJobService.getJob(job.getId())).isSameAs(job);
+        verify(file).transferTo(any(Path.class));
+    }
+
+    @Test
+    void testSubmit_FailedJobReportsError() throws Exception {
+        MultipartFile file = mock(MultipartFile.class);
+        when(file.getOriginalFilename()).thenReturn("socks.csv");
+        doThrow(new IOException("Некорректные данные в строке 2"))
+            .when(socksService).processSocksFile(any(Path.class), anyString(), any());
+
+        ImportJob job = importJobService.submit(file);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(job.getStatus()).isEqualTo(ImportJob.Status.FAILED);
+        assertThat(job.getErrors()).containsExactly("Некорректные данные в строке 2");
+        try (var files = Files.list(spoolDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void testStop_FailsQueuedJobsAndDeletesTheirFiles() throws Exception {
+        MultipartFile file = mock(MultipartFile.class);
+        when(file.getOriginalFilename()).thenReturn("socks.csv");
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            new CountDownLatch(1).await();
+            return null;
+        }).when(socksService).processSocksFile(any(Path.class), anyString(), any());
+
+        ImportJob running = importJobService.submit(file);
+        started.await();
+        ImportJob queued = importJobService.submit(file);
+        importJobService.stop();
+
+        assertThat(queued.getStatus()).isEqualTo(ImportJob.Status.FAILED);
+        assertThat(queued.getErrors()).containsExactly("Сервис остановлен до начала загрузки");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!running.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        try (var files = Files.list(spoolDir)) {
+            assertThat(files).isEmpty();
+        }
+        verify(socksService, times(1)).processSocksFile(any(Path.class), anyString(), any());
+    }
+
+    @Test
+    void testSubmit_UnsupportedFormat() {
+        MultipartFile file = mock(MultipartFile.class);
+        when(file.getOriginalFilename()).thenReturn("socks.txt");
+
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(IOException.class, () -> {
+            importJobService.submit(file);
+        });
+
+        assertThat(exception.getMessage()).isEqualTo("Неподдерживаемый формат файла. Поддерживаются только .xlsx и .csv");
+    }
+
+    @Test
+    void testGetJob_NotFound() {
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(NoImportJobFoundException.class, () -> {
+            importJobService.getJob("missing");
+        });
+
+        assertThat(exception.getMessage()).isEqualTo("Задача загрузки не найдена: missing");
+    }
+}
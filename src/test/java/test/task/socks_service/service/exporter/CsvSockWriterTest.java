@@ -0,0 +1,56 @@
+package test.task.socks_service.service.exporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class CsvSockWriterTest {
+
+    @Test
+    void testOnRow_WritesImportFormat() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (CsvSockWriter writer = new CsvSockWriter(out)) {
+            writer.onRow("red", 7550, 100);
+            writer.onRow("blue", 8000, 0);
+        }
+
+        assertThat(out.toString(StandardCharsets.UTF_8.name()))
+            .isEqualTo("color,cottonPercentage,amount\nred,75.5,100\nblue,80,0\n");
+    }
+
+    @Test
+    void testOnRow_QuotesColorWithSeparator() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (CsvSockWriter writer = new CsvSockWriter(out)) {
+            writer.onRow("red, \"dark\"", 5, 1);
+        }
+
+        assertThat(out.toString(StandardCharsets.UTF_8.name())).endsWith("\"red, \"\"dark\"\"\",0.05,1\n");
+    }
+
+    @Test
+    void testOnRow_RejectsLineBreakInColor() throws IOException {
+        CsvSockWriter writer = new CsvSockWriter(new ByteArrayOutputStream());
+
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(IOException.class, () -> {
+            writer.onRow("red\nblue", 5, 1);
+        });
+
+        assertThat(exception.getMessage()).isEqualTo("Цвет с переводом строки нельзя выгрузить в CSV: red\\nblue");
+    }
+
+    @Test
+    void testClose_OnlyHeaderWithoutRows() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new CsvSockWriter(out).close();
+
+        assertThat(out.toString(StandardCharsets.UTF_8.name())).isEqualTo(CsvSockWriter.HEADER);
+    }
+}
@@ -0,0 +1,112 @@
+package test.task.socks_service.service.exporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import test.task.socks_service.config.ExportProperties;
+import test.task.socks_service.exception.InvalidSortException;
+import test.task.socks_service.service.color.ColorDictionary;
+import test.task.socks_service.service.importer.SockFileFormat;
+
+class SockExporterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SockExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        ColorDictionary colorDictionary = mock(ColorDictionary.class);
+        when(colorDictionary.idOf("red")).thenReturn((short) 1);
+        ExportProperties exportProperties = new ExportProperties();
+        exportProperties.setFetchSize(500);
+        exporter = new SockExporter(jdbcTemplate, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+            colorDictionary, exportProperties);
+    }
+
+    @Test
+    void testPrepare_StreamsRowsFromForwardOnlyCursor() throws Exception {
+        doAnswer(invocation -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getString(1)).thenReturn("red");
+            when(rs.getInt(2)).thenReturn(7550);
+            when(rs.getInt(3)).thenReturn(100);
+            invocation.<RowCallbackHandler>getArgument(1).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.prepare(7000, 8000, "red", "amount", "desc", SockFileFormat.CSV).writeTo(out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8.name())).isEqualTo("color,cottonPercentage,amount\nred,75.5,100\n");
+        ArgumentCaptor<PreparedStatementCreator> creator = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        verify(jdbcTemplate).query(creator.capture(), any(RowCallbackHandler.class));
+        Connection connection = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        when(connection.prepareStatement(sql.capture(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY))).thenReturn(ps);
+        creator.getValue().createPreparedStatement(connection);
+        assertThat(sql.getValue()).endsWith("and s.color_id = ? and s.cotton_basis_points >= ? and s.cotton_basis_points <= ? "
+            + "order by s.amount DESC, s.id DESC");
+        verify(ps).setFetchSize(500);
+        verify(ps).setObject(1, (short) 1);
+        verify(ps).setObject(3, 8000);
+    }
+
+    @Test
+    void testPrepare_UnknownColorWritesOnlyHeader() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.prepare(null, null, "magenta", "id", "asc", SockFileFormat.CSV).writeTo(out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8.name())).isEqualTo(CsvSockWriter.HEADER);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testPrepare_UnsupportedSortField() {
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(InvalidSortException.class, () -> {
+            exporter.prepare(null, null, null, "weight", "asc", SockFileFormat.CSV);
+        });
+
+        assertThat(exception.getMessage()).isEqualTo("Сортировка по полю не поддерживается: weight");
+    }
+
+    @Test
+    void testPrepare_UnsupportedSortDirection() {
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(InvalidSortException.class, () -> {
+            exporter.prepare(null, null, null, "id", "sideways", SockFileFormat.CSV);
+        });
+
+        assertThat(exception.getMessage()).isEqualTo("Неверное направление сортировки: sideways");
+    }
+
+    @Test
+    void testPrepare_XlsxWritesNothingWhenQueryFails() throws Exception {
+        doThrow(new QueryTimeoutException("timeout")).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SockExport export = exporter.prepare(null, null, null, "id", "asc", SockFileFormat.XLSX);
+
+        org.junit.jupiter.api.Assertions.assertThrows(QueryTimeoutException.class, () -> export.writeTo(out));
+
+        assertThat(out.size()).isZero();
+    }
+}
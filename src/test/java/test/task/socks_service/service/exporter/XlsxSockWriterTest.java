@@ -0,0 +1,63 @@
+package test.task.socks_service.service.exporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+class XlsxSockWriterTest {
+
+    @Test
+    void testOnRow_WritesHeaderAndRows() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (XlsxSockWriter writer = new XlsxSockWriter(out, 2)) {
+            writer.onRow("red", 7550, 100);
+            writer.onRow("blue", 8000, 150);
+            writer.onRow("green", 0, 1);
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertThat(sheet.getRow(0).getCell(1).getStringCellValue()).isEqualTo("cottonPercentage");
+            assertThat(sheet.getRow(1).getCell(0).getStringCellValue()).isEqualTo("red");
+            assertThat(sheet.getRow(1).getCell(1).getNumericCellValue()).isEqualTo(75.5);
+            assertThat(sheet.getRow(3).getCell(2).getNumericCellValue()).isEqualTo(1);
+            assertThat(sheet.getLastRowNum()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void testAbort_WritesNothing() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XlsxSockWriter writer = new XlsxSockWriter(out, 2);
+        writer.onRow("red", 7550, 100);
+
+        writer.abort();
+
+        assertThat(out.size()).isZero();
+    }
+
+    @Test
+    void testOnRow_ContinuesOnNextSheetWhenFull() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (XlsxSockWriter writer = new XlsxSockWriter(out, 2, 3)) {
+            for (int i = 0; i < 5; i++) {
+                writer.onRow("red", i * 100, i);
+            }
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertThat(workbook.getNumberOfSheets()).isEqualTo(3);
+            assertThat(workbook.getSheetAt(1).getRow(0).getCell(0).getStringCellValue()).isEqualTo("color");
+            assertThat(workbook.getSheetAt(1).getRow(1).getCell(2).getNumericCellValue()).isEqualTo(2);
+            assertThat(workbook.getSheetAt(2).getLastRowNum()).isEqualTo(1);
+        }
+    }
+}
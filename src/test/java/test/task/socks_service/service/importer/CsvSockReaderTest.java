@@ -0,0 +1,151 @@
+package test.task.socks_service.service.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import test.task.socks_service.config.ImportProperties;
+import test.task.socks_service.service.exporter.CsvSockWriter;
+
+class CsvSockReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private CsvSockReader reader;
+
+    @BeforeEach
+    void setUp() {
+        ImportProperties properties = new ImportProperties();
+        properties.setParseThreads(4);
+        properties.setCsvRangeSize(64);
+        reader = new CsvSockReader(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reader.stop();
+    }
+
+    @Test
+    void testRead_KeepsFileOrderAcrossRanges() throws IOException {
+        StringBuilder csv = new StringBuilder("color,cottonPercentage,amount\n");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            csv.append("Color").append(i).append(',').append(i % 100).append(".5,").append(i).append(i % 2 == 0 ? "\r\n" : "\n");
+            expected.add("Color" + i + ";" + ((i % 100) * 100 + 50) + ";" + i);
+        }
+        Path file = write(csv.toString());
+        List<String> rows = new ArrayList<>();
+
+        reader.read(file, (color, cottonBasisPoints, amount) -> rows.add(color + ";" + cottonBasisPoints + ";" + amount));
+
+        assertThat(rows).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void testRead_QuotedColorsWrittenByExport() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CsvSockWriter writer = new CsvSockWriter(out)) {
+            writer.onRow("red, \"dark\"", 7550, 100);
+            writer.onRow("\"", 5, 1);
+            writer.onRow("blue", 8000, 2);
+        }
+        Path file = write(out.toString(StandardCharsets.UTF_8.name()));
+        List<String> rows = new ArrayList<>();
+
+        reader.read(file, (color, cottonBasisPoints, amount) -> rows.add(color + ";" + cottonBasisPoints + ";" + amount));
+
+        assertThat(rows).containsExactly("red, \"dark\";7550;100", "\";5;1", "blue;8000;2");
+    }
+
+    @Test
+    void testRead_UnterminatedQuote() throws IOException {
+        Path file = write("color,cottonPercentage,amount\n\"red,75.0,100\n");
+
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(IOException.class, () -> {
+            reader.read(file, (color, cottonBasisPoints, amount) -> { });
+        });
+
+        assertThat(exception.getMessage()).isEqualTo("Некорректные данные в строке 2");
+    }
+
+    @Test
+    void testRead_LastLineWithoutNewline() throws IOException {
+        Path file = write("color,cottonPercentage,amount\nRed,75.0,100\nBlue,80.0,150");
+        List<String> rows = new ArrayList<>();
+
+        reader.read(file, (color, cottonBasisPoints, amount) -> rows.add(color + ";" + cottonBasisPoints + ";" + amount));
+
+        assertThat(rows).containsExactly("Red;7500;100", "Blue;8000;150");
+    }
+
+    @Test
+    void testRead_ParsesNumbersFromBytes() throws IOException {
+        Path file = write("color,cottonPercentage,amount\nКрасный,33.33,7\nRed,1e1,+5\nRed,100,2147483647\nRed,0.5,1\nRed,12.340,1\n");
+        List<String> rows = new ArrayList<>();
+
+        reader.read(file, (color, cottonBasisPoints, amount) -> rows.add(color + ";" + cottonBasisPoints + ";" + amount));
+
+        assertThat(rows).containsExactly("Красный;3333;7", "Red;1000;5", "Red;10000;2147483647", "Red;50;1", "Red;1234;1");
+    }
+
+    @Test
+    void testRead_InvalidLineReportsLineNumber() throws IOException {
+        StringBuilder csv = new StringBuilder("color,cottonPercentage,amount\n");
+        for (int i = 0; i < 50; i++) {
+            csv.append("Red,30.0,10\n");
+        }
+        csv.append("Red,много,10\n");
+        Path file = write(csv.toString());
+
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(IOException.class, () -> {
+            reader.read(file, (color, cottonBasisPoints, amount) -> { });
+        });
+
+        assertThat(exception.getMessage()).isEqualTo("Некорректные данные в строке 52");
+    }
+
+    @Test
+    void testRead_RejectsCottonBeyondHundredthsOrRange() throws IOException {
+        for (String cotton : new String[] {"33.333", "100.01", "-1"}) {
+            Path file = write("color,cottonPercentage,amount\nRed,30.0,10\nRed," + cotton + ",10\n");
+
+            Exception exception = org.junit.jupiter.api.Assertions.assertThrows(IOException.class, () -> {
+                reader.read(file, (color, cottonBasisPoints, amount) -> { });
+            });
+
+            assertThat(exception.getMessage()).isEqualTo("Некорректные данные в строке 3");
+        }
+    }
+
+    @Test
+    void testRead_RejectsNonPositiveAmount() throws IOException {
+        for (String amount : new String[] {"-5", "0"}) {
+            Path file = write("color,cottonPercentage,amount\nRed,30.0,10\nRed,30.0," + amount + "\n");
+
+            Exception exception = org.junit.jupiter.api.Assertions.assertThrows(IOException.class, () -> {
+                reader.read(file, (color, cottonBasisPoints, count) -> { });
+            });
+
+            assertThat(exception.getMessage()).isEqualTo("Некорректные данные в строке 3");
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = tempDir.resolve("socks.csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
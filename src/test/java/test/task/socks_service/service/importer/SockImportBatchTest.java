@@ -0,0 +1,137 @@
+package test.task.socks_service.service.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import test.task.socks_service.service.color.ColorDictionary;
+import test.task.socks_service.service.stock.StockCountCache;
+import test.task.socks_service.service.stock.StockIndex;
+import test.task.socks_service.service.stock.StockWriter;
+
+class SockImportBatchTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private PlatformTransactionManager transactionManager;
+    private StockIndex stockIndex;
+    private SockImportBatch batch;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        stockIndex = mock(StockIndex.class);
+        batch = new SockImportBatch(jdbcTemplate, new TransactionTemplate(transactionManager), stockIndex, mock(StockWriter.class), mock(StockCountCache.class), mock(ColorDictionary.class), SockImportBatch.UPSERT_SQL, "socks.csv", 2, ImportProgressListener.NONE);
+    }
+
+    @Test
+    void testOnRow_AggregatesByKey() throws Exception {
+        batch.onRow("Red", 3000, 10);
+        batch.onRow("Red", 3000, 5);
+
+        verifyNoInteractions(jdbcTemplate);
+        assertThat(batch.getParsed()).isEqualTo(2);
+
+        long committed = batch.finish();
+
+        ArgumentCaptor<BatchPreparedStatementSetter> setter = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), setter.capture());
+        assertThat(setter.getValue().getBatchSize()).isEqualTo(1);
+        assertThat(committed).isEqualTo(2);
+        verify(stockIndex).applyAfterCommit("red", 3000, 15);
+    }
+
+    @Test
+    void testOnRow_MergesColorsDifferingInCase() throws Exception {
+        batch.onRow("Red", 3000, 10);
+        batch.onRow(" red ", 3000, 5);
+        batch.onRow("RED", 4000, 1);
+
+        batch.finish();
+
+        ArgumentCaptor<BatchPreparedStatementSetter> setter = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), setter.capture());
+        assertThat(setter.getValue().getBatchSize()).isEqualTo(2);
+        verify(stockIndex).applyAfterCommit("red", 3000, 15);
+        verify(stockIndex).applyAfterCommit("red", 4000, 1);
+    }
+
+    @Test
+    void testFinish_WritesKeysInChunks() throws Exception {
+        batch.onRow("Red", 3000, 10);
+        batch.onRow("Blue", 4000, 20);
+        batch.onRow("Green", 5000, 30);
+
+        long committed = batch.finish();
+
+        assertThat(committed).isEqualTo(3);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void testOnRow_AggregatesManyCottonValues() throws Exception {
+        for (int i = 0; i < 300; i++) {
+            batch.onRow("Red", (i % 100) * 50, 1);
+        }
+
+        long committed = batch.finish();
+
+        assertThat(batch.getParsed()).isEqualTo(300);
+        assertThat(committed).isEqualTo(300);
+        verify(jdbcTemplate, times(50)).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+    }
+
+    @Test
+    void testFinish_AppendsToLedger() throws Exception {
+        batch = new SockImportBatch(jdbcTemplate, new TransactionTemplate(transactionManager), stockIndex, mock(StockWriter.class), mock(StockCountCache.class), mock(ColorDictionary.class), SockImportBatch.APPEND_SQL, "socks.csv", 2, ImportProgressListener.NONE);
+        batch.onRow("Red", 3000, 10);
+
+        batch.finish();
+
+        verify(jdbcTemplate).batchUpdate(eq(SockImportBatch.APPEND_SQL), any(BatchPreparedStatementSetter.class));
+        verify(stockIndex).applyAfterCommit("red", 3000, 10);
+    }
+
+    @Test
+    void testFinish_EmptyBatch() throws Exception {
+        assertThat(batch.finish()).isZero();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testFinish_RejectsOverflowingTotalBeforeWriting() {
+        batch.onRow("Blue", 3000, 1);
+        batch.onRow("Red", 3000, Integer.MAX_VALUE);
+        batch.onRow("Red", 3000, 1);
+
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(IOException.class, () -> batch.finish());
+
+        assertThat(exception.getMessage()).isEqualTo("Сумма количества по артикулу red, 30% в файле вне допустимого диапазона: 2147483648");
+        verifyNoInteractions(jdbcTemplate, transactionManager);
+    }
+
+    @Test
+    void testFinish_RejectsNonPositiveTotalBeforeWriting() {
+        batch.onRow("Blue", 3000, 1);
+        batch.onRow("Red", 3000, 5);
+        batch.onRow("Red", 3000, -5);
+
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(IOException.class, () -> batch.finish());
+
+        assertThat(exception.getMessage()).isEqualTo("Сумма количества по артикулу red, 30% в файле вне допустимого диапазона: 0");
+        verifyNoInteractions(jdbcTemplate, transactionManager);
+    }
+}
@@ -0,0 +1,129 @@
+package test.task.socks_service.service.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class XlsxSockReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final XlsxSockReader reader = new XlsxSockReader();
+
+    @Test
+    void testRead_SkipsHeaderAndReadsRows() throws IOException {
+        Path file = writeWorkbook(new Object[][] {
+            {"color", "cottonPercentage", "amount"},
+            {"Red", 75.5, 100},
+            {"Blue", 80.0, 150}
+        });
+        List<String> rows = new ArrayList<>();
+
+        reader.read(file, (color, cottonBasisPoints, amount) -> rows.add(color + ";" + cottonBasisPoints + ";" + amount));
+
+        assertThat(rows).containsExactly("Red;7550;100", "Blue;8000;150");
+    }
+
+    @Test
+    void testRead_InvalidRow() throws IOException {
+        Path file = writeWorkbook(new Object[][] {
+            {"color", "cottonPercentage", "amount"},
+            {"Red", "много", 100}
+        });
+
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(IOException.class, () -> {
+            reader.read(file, (color, cottonBasisPoints, amount) -> { });
+        });
+
+        assertThat(exception.getMessage()).isEqualTo("Некорректные данные в строке 2");
+    }
+
+    @Test
+    void testRead_IgnoresNumberFormats() throws IOException {
+        Path file = tempDir.resolve("socks.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            CellStyle wholePercent = workbook.createCellStyle();
+            wholePercent.setDataFormat(workbook.createDataFormat().getFormat("0"));
+            CellStyle thousands = workbook.createCellStyle();
+            thousands.setDataFormat(workbook.createDataFormat().getFormat("#,##0"));
+            Sheet sheet = workbook.createSheet();
+            sheet.createRow(0).createCell(0).setCellValue("color");
+            Row row = sheet.createRow(1);
+            row.createCell(0).setCellValue("Red");
+            row.createCell(1).setCellValue(75.55);
+            row.getCell(1).setCellStyle(wholePercent);
+            row.createCell(2).setCellValue(1500);
+            row.getCell(2).setCellStyle(thousands);
+            workbook.write(out);
+        }
+        List<String> rows = new ArrayList<>();
+
+        reader.read(file, (color, cottonBasisPoints, amount) -> rows.add(color + ";" + cottonBasisPoints + ";" + amount));
+
+        assertThat(rows).containsExactly("Red;7555;1500");
+    }
+
+    @Test
+    void testRead_FractionalAmount() throws IOException {
+        Path file = writeWorkbook(new Object[][] {
+            {"color", "cottonPercentage", "amount"},
+            {"Red", 75.5, 10.5}
+        });
+
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(IOException.class, () -> {
+            reader.read(file, (color, cottonBasisPoints, amount) -> { });
+        });
+
+        assertThat(exception.getMessage()).isEqualTo("Некорректные данные в строке 2");
+    }
+
+    @Test
+    void testRead_RejectsNonPositiveAmount() throws IOException {
+        for (int amount : new int[] {-5, 0}) {
+            Path file = writeWorkbook(new Object[][] {
+                {"color", "cottonPercentage", "amount"},
+                {"Red", 75.5, 10},
+                {"Red", 75.5, amount}
+            });
+
+            Exception exception = org.junit.jupiter.api.Assertions.assertThrows(IOException.class, () -> {
+                reader.read(file, (color, cottonBasisPoints, count) -> { });
+            });
+
+            assertThat(exception.getMessage()).isEqualTo("Некорректные данные в строке 3");
+        }
+    }
+
+    private Path writeWorkbook(Object[][] data) throws IOException {
+        Path file = tempDir.resolve("socks.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet();
+            for (int i = 0; i < data.length; i++) {
+                Row row = sheet.createRow(i);
+                for (int j = 0; j < data[i].length; j++) {
+                    Object value = data[i][j];
+                    if (value instanceof Number) {
+                        row.createCell(j).setCellValue(((Number) value).doubleValue());
+                    } else {
+                        row.createCell(j).setCellValue((String) value);
+                    }
+                }
+            }
+            workbook.write(out);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,184 @@
+package test.task.socks_service.service.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.entity.dto.BulkMovementResult;
+import test.task.socks_service.exception.NoEnoughSocksException;
+import test.task.socks_service.exception.NoSocksFoundException;
+import test.task.socks_service.repository.SocksRepository;
+import test.task.socks_service.service.color.ColorDictionary;
+
+class DirectStockWriterTest {
+
+    @Mock
+    private SocksRepository socksRepository;
+
+    @Mock
+    private StockIndex stockIndex;
+
+    @Mock
+    private StockCountCache stockCountCache;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ColorDictionary colorDictionary;
+
+    @Mock
+    private SockRelabeler sockRelabeler;
+
+    @InjectMocks
+    private DirectStockWriter directStockWriter;
+
+    private Sock testSock;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        testSock = new Sock();
+        testSock.setColor("Red");
+        testSock.setCottonBasisPoints(3000);
+        testSock.setAmount(10);
+        when(colorDictionary.idOf("Red")).thenReturn((short) 1);
+        when(colorDictionary.intern("Red")).thenReturn((short) 1);
+        when(colorDictionary.nameOf((short) 1)).thenReturn("Red");
+    }
+
+    @Test
+    void testIncome_Upsert() {
+        Sock stored = new Sock(1L, "Red", 3000, 25);
+        when(socksRepository.increaseAmount((short) 1, 3000, 10)).thenReturn(stored);
+
+        Sock result = directStockWriter.income(testSock);
+
+        assertThat(result.getAmount()).isEqualTo(25);
+        verify(socksRepository, never()).findByColorIdAndCottonBasisPoints(anyShort(), anyInt());
+        verify(stockIndex).applyAfterCommit("Red", 3000, 10);
+        verify(stockCountCache).evictAfterCommit("Red", 3000);
+    }
+
+    @Test
+    void testOutcome_Success() throws Exception {
+        when(socksRepository.decreaseAmount((short) 1, 3000, 10)).thenReturn(Optional.of(new Sock(1L, "Red", 3000, 0)));
+
+        Sock result = directStockWriter.outcome(testSock);
+
+        assertThat(result.getAmount()).isZero();
+        verify(socksRepository, never()).existsByColorAndCottonBasisPoints(anyString(), anyInt());
+        verify(stockIndex).applyAfterCommit("Red", 3000, -10);
+    }
+
+    @Test
+    void testOutcome_NoSocksFound() {
+        when(socksRepository.decreaseAmount(anyShort(), anyInt(), any(Integer.class))).thenReturn(Optional.empty());
+        when(socksRepository.existsByColorAndCottonBasisPoints("Red", 3000)).thenReturn(false);
+
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(NoSocksFoundException.class, () -> {
+            directStockWriter.outcome(testSock);
+        });
+
+        assertThat(exception.getMessage()).isEqualTo("На складе не найдено носков данного типа");
+        verifyNoInteractions(stockIndex);
+    }
+
+    @Test
+    void testOutcome_UnknownColor() {
+        testSock.setColor("Magenta");
+
+        org.junit.jupiter.api.Assertions.assertThrows(NoSocksFoundException.class, () -> {
+            directStockWriter.outcome(testSock);
+        });
+
+        verify(socksRepository, never()).decreaseAmount(anyShort(), anyInt(), any(Integer.class));
+    }
+
+    @Test
+    void testOutcome_NotEnoughSocks() {
+        when(socksRepository.decreaseAmount(anyShort(), anyInt(), any(Integer.class))).thenReturn(Optional.empty());
+        when(socksRepository.existsByColorAndCottonBasisPoints("Red", 3000)).thenReturn(true);
+
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(NoEnoughSocksException.class, () -> {
+            directStockWriter.outcome(testSock);
+        });
+
+        assertThat(exception.getMessage()).isEqualTo("На складе недостаточно носков данного типа");
+        verifyNoInteractions(stockIndex);
+    }
+
+    @Test
+    void testIncomeAll_NetsMovementsPerSku() {
+        List<BulkMovementResult> results = directStockWriter.incomeAll(Arrays.asList(
+            new Sock(null, "Red", 3000, 5), new Sock(null, "Blue", 4000, 1), new Sock(null, "Red", 3000, 7)));
+
+        ArgumentCaptor<BatchPreparedStatementSetter> setter = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), setter.capture());
+        assertThat(setter.getValue().getBatchSize()).isEqualTo(2);
+        assertThat(results).extracting(BulkMovementResult::getStatus).containsOnly(BulkMovementResult.Status.APPLIED);
+        verify(stockIndex).applyAfterCommit("Red", 3000, 12);
+        verify(stockIndex).applyAfterCommit("Blue", 4000, 1);
+    }
+
+    @Test
+    void testOutcomeAll_RejectsItemsIndividually() throws Exception {
+        doAnswer(invocation -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getShort(1)).thenReturn((short) 1);
+            when(rs.getInt(2)).thenReturn(3000);
+            when(rs.getLong(3)).thenReturn(10L);
+            invocation.<RowCallbackHandler>getArgument(2).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+
+        List<BulkMovementResult> results = directStockWriter.outcomeAll(Arrays.asList(
+            new Sock(null, "Red", 3000, 6), new Sock(null, "Red", 3000, 6),
+            new Sock(null, "Red", 3000, 4), new Sock(null, "Green", 1000, 1)));
+
+        assertThat(results).extracting(BulkMovementResult::getStatus).containsExactly(
+            BulkMovementResult.Status.APPLIED, BulkMovementResult.Status.REJECTED,
+            BulkMovementResult.Status.APPLIED, BulkMovementResult.Status.REJECTED);
+        assertThat(results.get(1).getError()).isEqualTo("На складе недостаточно носков данного типа");
+        assertThat(results.get(3).getError()).isEqualTo("На складе не найдено носков данного типа");
+        verify(jdbcTemplate).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+        verify(stockIndex).applyAfterCommit("Red", 3000, -10);
+    }
+
+    @Test
+    void testRelabel_MovesLockedRow() {
+        Sock locked = new Sock(1L, "Red", 3000, 10);
+        when(sockRelabeler.lock(1L)).thenReturn(Optional.of(locked));
+        when(sockRelabeler.move(locked, "blue", 5000)).thenReturn(new Sock(1L, "blue", 5000, 10));
+
+        Optional<Sock> result = directStockWriter.relabel(1L, "blue", 5000);
+
+        assertThat(result).map(Sock::getColor).contains("blue");
+    }
+
+    @Test
+    void testRelabel_NotFound() {
+        when(sockRelabeler.lock(1L)).thenReturn(Optional.empty());
+
+        assertThat(directStockWriter.relabel(1L, "blue", 5000)).isEmpty();
+        verify(sockRelabeler, never()).move(any(), anyString(), anyInt());
+    }
+}
@@ -0,0 +1,210 @@
+package test.task.socks_service.service.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+import java.sql.PreparedStatement;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import test.task.socks_service.config.StockProperties;
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.entity.dto.BulkMovementResult;
+import test.task.socks_service.exception.NoEnoughSocksException;
+import test.task.socks_service.exception.NoSocksFoundException;
+import test.task.socks_service.service.color.ColorDictionary;
+
+class LedgerStockWriterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private StockIndex stockIndex;
+    private StockProperties stockProperties;
+    private StockHistory stockHistory;
+    private SockRelabeler sockRelabeler;
+    private LedgerStockWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        stockIndex = mock(StockIndex.class);
+        stockProperties = new StockProperties();
+        stockHistory = mock(StockHistory.class);
+        sockRelabeler = mock(SockRelabeler.class);
+        ColorDictionary colorDictionary = mock(ColorDictionary.class);
+        when(colorDictionary.idOf("Red")).thenReturn((short) 1);
+        when(colorDictionary.intern("Red")).thenReturn((short) 1);
+        when(colorDictionary.nameOf((short) 1)).thenReturn("Red");
+        writer = new LedgerStockWriter(jdbcTemplate, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+            stockIndex, mock(StockCountCache.class), colorDictionary, stockProperties, stockHistory, sockRelabeler);
+    }
+
+    @Test
+    void testIncome_AppendsMovementWithoutTouchingSnapshot() throws Exception {
+        when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class), any(), any(), any(), any()))
+            .thenReturn(new Sock(1L, "Red", 3000, 25));
+
+        Sock result = writer.income(new Sock(null, "Red", 3000, 10));
+
+        assertThat(result.getAmount()).isEqualTo(25);
+        ArgumentCaptor<BatchPreparedStatementSetter> setter = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(contains("stock_movements"), setter.capture());
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, 0);
+        verify(ps).setInt(3, 10);
+        verify(ps).setString(4, "income");
+        verify(jdbcTemplate, never()).update(contains("update socks"), any(PreparedStatementSetter.class));
+        verify(stockIndex).applyAfterCommit("Red", 3000, 10);
+    }
+
+    @Test
+    void testOutcome_UnknownColor() {
+        org.junit.jupiter.api.Assertions.assertThrows(NoSocksFoundException.class, () -> {
+            writer.outcome(new Sock(null, "Magenta", 3000, 1));
+        });
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testOutcome_NotEnoughSnapshotPlusTail() {
+        stubAvailable(5);
+
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(NoEnoughSocksException.class, () -> {
+            writer.outcome(new Sock(null, "Red", 3000, 10));
+        });
+
+        assertThat(exception.getMessage()).isEqualTo("На складе недостаточно носков данного типа");
+        verify(jdbcTemplate).query(contains("for update"), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+        verifyNoInteractions(stockIndex);
+    }
+
+    @Test
+    void testOutcomeAll_RejectsItemsIndividually() throws Exception {
+        stubAvailable(10);
+
+        List<BulkMovementResult> results = writer.outcomeAll(Arrays.asList(
+            new Sock(null, "Red", 3000, 6), new Sock(null, "Red", 3000, 6), new Sock(null, "Red", 3000, 4)));
+
+        assertThat(results).extracting(BulkMovementResult::getStatus).containsExactly(
+            BulkMovementResult.Status.APPLIED, BulkMovementResult.Status.REJECTED, BulkMovementResult.Status.APPLIED);
+        ArgumentCaptor<BatchPreparedStatementSetter> setter = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(contains("stock_movements"), setter.capture());
+        assertThat(setter.getValue().getBatchSize()).isEqualTo(2);
+        verify(stockIndex).applyAfterCommit("Red", 3000, -6);
+        verify(stockIndex).applyAfterCommit("Red", 3000, -4);
+    }
+
+    @Test
+    void testFlush_CompactsUntilTailShorterThanBatch() {
+        stockProperties.getLedger().setCompactBatchSize(2);
+        long[] folded = {2, 2, 1};
+        int[] call = {0};
+        doAnswer(invocation -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getShort(1)).thenReturn((short) 1);
+            when(rs.getInt(2)).thenReturn(3000);
+            when(rs.getDate(3)).thenReturn(Date.valueOf(LocalDate.of(2024, 3, 1)));
+            when(rs.getLong(4)).thenReturn(10L);
+            when(rs.getLong(5)).thenReturn(folded[call[0]++]);
+            invocation.<RowCallbackHandler>getArgument(1).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("with batch as"), any(RowCallbackHandler.class), any());
+
+        writer.flush();
+
+        verify(jdbcTemplate, times(3)).query(startsWith("with batch as"), any(RowCallbackHandler.class), any());
+        verify(stockHistory, times(3)).apply(Collections.singletonList(
+            new StockHistory.DayDelta((short) 1, 3000, LocalDate.of(2024, 3, 1), 10)));
+        verifyNoInteractions(stockIndex);
+    }
+
+    @Test
+    void testFlush_RunsInOwnTransactionUnderCompactionLock() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        writer = new LedgerStockWriter(jdbcTemplate, new TransactionTemplate(transactionManager), stockIndex,
+            mock(StockCountCache.class), mock(ColorDictionary.class), stockProperties, stockHistory, sockRelabeler);
+
+        writer.flush();
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertThat(definition.getValue().getPropagationBehavior()).isEqualTo(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).queryForObject(contains("pg_advisory_xact_lock"), eq(Object.class), any());
+        inOrder.verify(jdbcTemplate).query(startsWith("with batch as"), any(RowCallbackHandler.class), any());
+    }
+
+    @Test
+    void testRelabel_FoldsOldKeyTailBeforeMove() {
+        Sock locked = new Sock(7L, "Red", 3000, 10);
+        when(sockRelabeler.lock(7L)).thenReturn(Optional.of(locked));
+        StockHistory.DayDelta tail = new StockHistory.DayDelta((short) 1, 3000, LocalDate.of(2024, 3, 1), -4);
+        when(jdbcTemplate.query(startsWith("with batch as"), any(RowMapper.class), any(), any())).thenReturn(Collections.singletonList(tail));
+        when(sockRelabeler.move(any(), eq("blue"), eq(5000))).thenAnswer(invocation -> {
+            Sock sock = invocation.getArgument(0);
+            return new Sock(sock.getId(), "blue", 5000, sock.getAmount());
+        });
+
+        Optional<Sock> moved = writer.relabel(7L, "blue", 5000);
+
+        assertThat(moved).map(Sock::getAmount).contains(6);
+        InOrder inOrder = inOrder(jdbcTemplate, sockRelabeler, stockHistory);
+        inOrder.verify(jdbcTemplate).queryForObject(contains("pg_advisory_xact_lock"), eq(Object.class), any());
+        inOrder.verify(sockRelabeler).lock(7L);
+        inOrder.verify(jdbcTemplate).update("update socks set amount = amount + ? where id = ?", -4L, 7L);
+        inOrder.verify(stockHistory).apply(Collections.singletonList(tail));
+        inOrder.verify(sockRelabeler).move(any(), eq("blue"), eq(5000));
+        inOrder.verify(stockHistory).relabel(argThat(sock -> "Red".equals(sock.getColor()) && sock.getAmount() == 6),
+            argThat(sock -> "blue".equals(sock.getColor()) && sock.getAmount() == 6));
+    }
+
+    @Test
+    void testRelabel_NotFound() {
+        when(sockRelabeler.lock(7L)).thenReturn(Optional.empty());
+
+        assertThat(writer.relabel(7L, "blue", 5000)).isEmpty();
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void testAfterSingletonsInstantiated_ReconcilesHistory() {
+        writer.afterSingletonsInstantiated();
+
+        verify(stockHistory).reconcile();
+    }
+
+    private void stubAvailable(long amount) {
+        doAnswer(invocation -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getShort(1)).thenReturn((short) 1);
+            when(rs.getInt(2)).thenReturn(3000);
+            when(rs.getLong(3)).thenReturn(amount);
+            invocation.<RowCallbackHandler>getArgument(2).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("select s.color_id"), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+    }
+}
@@ -0,0 +1,127 @@
+package test.task.socks_service.service.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import test.task.socks_service.config.StockProperties;
+import test.task.socks_service.service.color.ColorDictionary;
+
+class StockCountCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private StockCountCache cache;
+    private AtomicInteger loads;
+    private ColorDictionary colorDictionary;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        colorDictionary = mock(ColorDictionary.class);
+        when(colorDictionary.idOf("Red")).thenReturn((short) 1);
+        when(colorDictionary.idOf("Blue")).thenReturn((short) 2);
+        cache = new StockCountCache(new StockProperties(), meterRegistry, colorDictionary);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void testGet_LoadsOnceAndCachesEmptySums() {
+        assertThat(cache.get("equal", "Red", 3000, this::load)).isEqualTo(5);
+        assertThat(cache.get("equal", "Red", 3000, this::load)).isEqualTo(5);
+        assertThat(cache.get("equal", "Blue", 3000, () -> null)).isZero();
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "socks.stock.counts").tag("result", "hit")
+            .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testEvict_ColorRangeSumsAndOwnEqualSum() {
+        cache.get("moreThan", "Red", 2000, this::load);
+        cache.get("lessThan", "Red", 2000, this::load);
+        cache.get("equal", "Red", 3000, this::load);
+        cache.get("equal", "Red", 2000, this::load);
+        cache.get("equal", "Blue", 3000, this::load);
+
+        cache.evictAfterCommit("Red", 3000);
+
+        cache.get("moreThan", "Red", 2000, this::load);
+        cache.get("lessThan", "Red", 2000, this::load);
+        cache.get("equal", "Red", 3000, this::load);
+        cache.get("equal", "Red", 2000, this::load);
+        cache.get("equal", "Blue", 3000, this::load);
+        assertThat(loads.get()).isEqualTo(8);
+    }
+
+    @Test
+    void testEvict_LoadStartedBeforeEvictionIsNotServed() {
+        assertThat(cache.get("equal", "Red", 3000, () -> {
+            cache.evictAfterCommit("Red", 3000);
+            return 5;
+        })).isEqualTo(5);
+
+        assertThat(cache.get("equal", "Red", 3000, () -> 7)).isEqualTo(7);
+        assertThat(cache.get("equal", "Red", 3000, () -> 9)).isEqualTo(7);
+    }
+
+    @Test
+    void testEvictAll_AllSums() {
+        cache.get("equal", "Red", 3000, this::load);
+        cache.get("moreThan", "Blue", 2000, this::load);
+
+        cache.evictAllAfterCommit();
+
+        cache.get("equal", "Red", 3000, this::load);
+        cache.get("moreThan", "Blue", 2000, this::load);
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    void testDisabled_AlwaysLoads() {
+        StockProperties properties = new StockProperties();
+        properties.getCache().setEnabled(false);
+        cache = new StockCountCache(properties, meterRegistry, colorDictionary);
+
+        cache.get("equal", "Red", 3000, this::load);
+        cache.get("equal", "Red", 3000, this::load);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testGet_UnknownColorIsNotCached() {
+        cache.get("equal", "Magenta", 3000, this::load);
+        cache.get("moreThan", "Magenta", 3000, this::load);
+        cache.get("equal", "Magenta", 3000, this::load);
+
+        assertThat(loads.get()).isEqualTo(3);
+        assertThat(meterRegistry.get("cache.size").tag("cache", "socks.stock.counts").gauge().value()).isZero();
+    }
+
+    @Test
+    void testEvict_ManyKeysWithBoundedGenerations() {
+        StockProperties properties = new StockProperties();
+        properties.getCache().setMaximumSize(2);
+        cache = new StockCountCache(properties, meterRegistry, colorDictionary);
+        cache.get("equal", "Red", 3000, this::load);
+
+        for (int cotton = 0; cotton < 1000; cotton++) {
+            cache.evictAfterCommit("Red", cotton);
+        }
+        cache.evictAfterCommit("Red", 3000);
+
+        cache.get("equal", "Red", 3000, this::load);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private Integer load() {
+        loads.incrementAndGet();
+        return 5;
+    }
+}
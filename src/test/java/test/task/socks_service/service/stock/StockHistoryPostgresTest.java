@@ -0,0 +1,128 @@
+package test.task.socks_service.service.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import test.task.socks_service.EmbeddedPostgresDatabase;
+import test.task.socks_service.config.StockProperties;
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.service.color.ColorDictionary;
+
+/**
+ * Дневные итоги на настоящем PostgreSQL: сдвиг существующих итогов и открытие новых
+ * в {@link StockHistory#apply}, остаток на дату и перенос артикула.
+ */
+class StockHistoryPostgresTest {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2024, 3, 1);
+    private static final LocalDate DAY_2 = LocalDate.of(2024, 3, 2);
+    private static final LocalDate DAY_3 = LocalDate.of(2024, 3, 3);
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private StockHistory stockHistory;
+    private short red;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = EmbeddedPostgresDatabase.dataSource();
+        EmbeddedPostgresDatabase.truncate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        ColorDictionary colorDictionary = new ColorDictionary(jdbcTemplate);
+        StockProperties stockProperties = new StockProperties();
+        stockProperties.setWriteMode("ledger");
+        stockHistory = new StockHistory(jdbcTemplate, colorDictionary, stockProperties);
+        red = colorDictionary.intern("red");
+    }
+
+    @Test
+    void testApply_OpensBucketsFromPreviousDay() {
+        apply(delta(DAY_3, 5), delta(DAY_1, 10));
+
+        assertThat(balances(8000)).containsExactly(10L, 15L);
+    }
+
+    @Test
+    void testApply_LateMovementShiftsLaterBuckets() {
+        apply(delta(DAY_1, 10), delta(DAY_3, 5));
+
+        apply(delta(DAY_2, -3));
+
+        assertThat(balances(8000)).containsExactly(10L, 7L, 12L);
+    }
+
+    @Test
+    void testApply_SameBatchOpensAndShifts() {
+        apply(delta(DAY_1, 10));
+
+        apply(delta(DAY_3, 1), delta(DAY_2, 4), delta(DAY_1, -2));
+
+        assertThat(balances(8000)).containsExactly(8L, 12L, 13L);
+    }
+
+    @Test
+    void testAmountAsOf_BucketBeforeDayPlusSameDayMovements() throws Exception {
+        movement(DAY_1.atTime(9, 0), 10, true);
+        movement(DAY_2.atTime(9, 0), 4, true);
+        movement(DAY_2.atTime(18, 0), 100, true);
+        apply(delta(DAY_1, 10), delta(DAY_2, 104));
+        movement(DAY_2.atTime(10, 0), -3, false);
+
+        assertThat(stockHistory.amountAsOf("red", 8000, "equal", DAY_2.atTime(12, 0))).isEqualTo(11);
+        assertThat(stockHistory.amountAsOf("red", 8000, "equal", DAY_3.atTime(0, 0))).isEqualTo(111);
+        assertThat(stockHistory.amountAsOf("red", 7000, "moreThan", DAY_1.atTime(12, 0))).isEqualTo(10);
+        assertThat(stockHistory.amountAsOf("red", 8000, "lessThan", DAY_1.atTime(12, 0))).isZero();
+    }
+
+    @Test
+    void testRelabel_MovesTodayBucketsBetweenKeys() throws Exception {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        apply(new StockHistory.DayDelta(red, 8000, yesterday, 10));
+
+        transactionTemplate.executeWithoutResult(status ->
+            stockHistory.relabel(new Sock(1L, "red", 8000, 10), new Sock(1L, "red", 5000, 10)));
+
+        assertThat(balances(8000)).containsExactly(10L, 0L);
+        assertThat(balances(5000)).containsExactly(10L);
+        LocalDateTime later = LocalDateTime.now().plusSeconds(1);
+        assertThat(stockHistory.amountAsOf("red", 8000, "equal", later)).isZero();
+        assertThat(stockHistory.amountAsOf("red", 5000, "equal", later)).isEqualTo(10);
+        assertThat(stockHistory.amountAsOf("red", 5000, "equal", yesterday.atTime(12, 0))).isZero();
+    }
+
+    private StockHistory.DayDelta delta(LocalDate day, long delta) {
+        return new StockHistory.DayDelta(red, 8000, day, delta);
+    }
+
+    private void apply(StockHistory.DayDelta... deltas) {
+        transactionTemplate.executeWithoutResult(status -> stockHistory.apply(Arrays.asList(deltas)));
+    }
+
+    private void movement(LocalDateTime at, int delta, boolean folded) {
+        jdbcTemplate.update("insert into stock_movements (color_id, cotton_basis_points, delta, source, created_at, folded) "
+            + "values (?, ?, ?, 'income', ?, ?)", red, 8000, delta, Timestamp.valueOf(at), folded);
+    }
+
+    private List<Long> balances(int cottonBasisPoints) {
+        List<Long> balances = jdbcTemplate.queryForList("select balance from stock_balance_buckets "
+            + "where color_id = ? and cotton_basis_points = ? order by bucket_day", Long.class, red, cottonBasisPoints);
+        return balances == null ? Collections.emptyList() : balances;
+    }
+
+}
@@ -0,0 +1,178 @@
+package test.task.socks_service.service.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalMatchers.and;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import test.task.socks_service.config.StockProperties;
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.entity.SockKey;
+import test.task.socks_service.exception.StockHistoryException;
+import test.task.socks_service.service.color.ColorDictionary;
+
+class StockHistoryTest {
+
+    private static final LocalDateTime AS_OF = LocalDateTime.of(2024, 3, 1, 12, 30);
+
+    private JdbcTemplate jdbcTemplate;
+    private StockProperties stockProperties;
+    private ColorDictionary colorDictionary;
+    private StockHistory stockHistory;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        stockProperties = new StockProperties();
+        stockProperties.setWriteMode("ledger");
+        colorDictionary = mock(ColorDictionary.class);
+        when(colorDictionary.idOf("red")).thenReturn((short) 1);
+        when(colorDictionary.nameOf((short) 1)).thenReturn("red");
+        stockHistory = new StockHistory(jdbcTemplate, colorDictionary, stockProperties);
+    }
+
+    @Test
+    void testAmountAsOf_LatestBucketPlusSameDayMovements() throws Exception {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(), any(), any(), any(), any(), any(), any())).thenReturn(25L);
+
+        long amount = stockHistory.amountAsOf("red", 8000, "equal", AS_OF);
+
+        assertThat(amount).isEqualTo(25);
+        verify(jdbcTemplate).queryForObject(and(contains("cotton_basis_points = ? and bucket_day < ?"),
+                contains("union all select delta from stock_movements")), eq(Long.class),
+            eq((short) 1), eq(8000), eq(Date.valueOf(LocalDate.of(2024, 3, 1))),
+            eq((short) 1), eq(8000), eq(Timestamp.valueOf(AS_OF)), eq(Timestamp.valueOf(LocalDate.of(2024, 3, 1).atStartOfDay())));
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testRelabel_MovesAmountBetweenKeysInHistory() {
+        when(colorDictionary.idOf("blue")).thenReturn((short) 2);
+        StockHistory.DayDelta out = new StockHistory.DayDelta((short) 1, 8000, LocalDate.of(2024, 3, 1), -10);
+        StockHistory.DayDelta in = new StockHistory.DayDelta((short) 2, 5000, LocalDate.of(2024, 3, 1), 10);
+        when(jdbcTemplate.query(contains("'relabel'"), any(RowMapper.class), any(), any(), any(), any(), any(), any()))
+            .thenReturn(Arrays.asList(out, in));
+
+        stockHistory.relabel(new Sock(7L, "red", 8000, 10), new Sock(7L, "blue", 5000, 10));
+
+        verify(jdbcTemplate).query(contains("'relabel'"), any(RowMapper.class),
+            eq((short) 1), eq(8000), eq(-10L), eq((short) 2), eq(5000), eq(10L));
+        verify(jdbcTemplate).batchUpdate(startsWith("update stock_balance_buckets"), any(BatchPreparedStatementSetter.class));
+        verify(jdbcTemplate).batchUpdate(startsWith("insert into stock_balance_buckets"), any(BatchPreparedStatementSetter.class));
+    }
+
+    @Test
+    void testRelabel_EmptyRowKeepsHistory() {
+        stockHistory.relabel(new Sock(7L, "red", 8000, 0), new Sock(7L, "blue", 5000, 0));
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testAmountAsOf_UnknownColor() throws Exception {
+        assertThat(stockHistory.amountAsOf("magenta", 8000, "moreThan", AS_OF)).isZero();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testAmountAsOf_NotLedger() {
+        stockProperties.setWriteMode("direct");
+
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(StockHistoryException.class, () -> {
+            stockHistory.amountAsOf("red", 8000, "equal", AS_OF);
+        });
+
+        assertThat(exception.getMessage()).isEqualTo("История остатков ведется только в режиме socks.stock.write-mode=ledger");
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testAmountsAsOf_MergesBucketAndTail() throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            for (long amount : new long[] {30, -5}) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getShort(1)).thenReturn((short) 1);
+                when(rs.getInt(2)).thenReturn(8000);
+                when(rs.getLong(3)).thenReturn(amount);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+
+        Map<SockKey, Long> amounts = stockHistory.amountsAsOf(
+            Arrays.asList(new SockKey("red", 8000), new SockKey("magenta", 8000)), AS_OF);
+
+        assertThat(amounts).containsExactly(org.assertj.core.api.Assertions.entry(new SockKey("red", 8000), 25L));
+        ArgumentCaptor<PreparedStatementSetter> params = ArgumentCaptor.forClass(PreparedStatementSetter.class);
+        verify(jdbcTemplate).query(anyString(), params.capture(), any(RowCallbackHandler.class));
+        PreparedStatement ps = mock(PreparedStatement.class);
+        params.getValue().setValues(ps);
+        verify(ps).setDate(3, Date.valueOf(LocalDate.of(2024, 3, 1)));
+        verify(ps).setTimestamp(6, Timestamp.valueOf(AS_OF));
+    }
+
+    @Test
+    void testApply_ShiftsLaterBucketsBeforeOpeningMissingDays() throws Exception {
+        StockHistory.DayDelta later = new StockHistory.DayDelta((short) 1, 8000, LocalDate.of(2024, 3, 2), 7);
+        StockHistory.DayDelta earlier = new StockHistory.DayDelta((short) 1, 8000, LocalDate.of(2024, 3, 1), 5);
+
+        stockHistory.apply(Arrays.asList(later, earlier));
+
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).queryForObject(contains("pg_advisory_xact_lock"), eq(Object.class), any());
+        ArgumentCaptor<BatchPreparedStatementSetter> shift = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        inOrder.verify(jdbcTemplate).batchUpdate(startsWith("update stock_balance_buckets"), shift.capture());
+        ArgumentCaptor<BatchPreparedStatementSetter> open = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        inOrder.verify(jdbcTemplate).batchUpdate(startsWith("insert into stock_balance_buckets"), open.capture());
+        PreparedStatement ps = mock(PreparedStatement.class);
+        open.getValue().setValues(ps, 0);
+        verify(ps).setDate(3, Date.valueOf(LocalDate.of(2024, 3, 1)));
+        verify(ps).setLong(7, 5);
+        assertThat(shift.getValue().getBatchSize()).isEqualTo(2);
+    }
+
+    @Test
+    void testApply_Empty() {
+        stockHistory.apply(Collections.emptyList());
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testReconcile_AppliesDifferences() {
+        StockHistory.DayDelta opening = new StockHistory.DayDelta((short) 1, 8000, LocalDate.of(2024, 3, 1), 120);
+        when(jdbcTemplate.query(contains("'reconcile'"), any(RowMapper.class))).thenReturn(Collections.singletonList(opening));
+
+        stockHistory.reconcile();
+
+        verify(jdbcTemplate, times(2)).queryForObject(contains("pg_advisory_xact_lock"), eq(Object.class), any());
+        verify(jdbcTemplate).batchUpdate(startsWith("update stock_balance_buckets"), any(BatchPreparedStatementSetter.class));
+        verify(jdbcTemplate).batchUpdate(startsWith("insert into stock_balance_buckets"), any(BatchPreparedStatementSetter.class));
+    }
+}
@@ -0,0 +1,72 @@
+package test.task.socks_service.service.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import test.task.socks_service.config.StockProperties;
+
+class StockIndexTest {
+
+    private StockIndex stockIndex;
+
+    @BeforeEach
+    void setUp() {
+        stockIndex = new StockIndex(mock(JdbcTemplate.class), new StockProperties());
+        stockIndex.rebuild();
+    }
+
+    @Test
+    void testRangeSums() {
+        stockIndex.applyAfterCommit("Red", 3000, 10);
+        stockIndex.applyAfterCommit("Red", 5000, 20);
+        stockIndex.applyAfterCommit("Red", 4000, 5);
+        stockIndex.applyAfterCommit("Blue", 4000, 100);
+
+        assertThat(stockIndex.lessThan("Red", 4000)).isEqualTo(10);
+        assertThat(stockIndex.lessThan("Red", 4050)).isEqualTo(15);
+        assertThat(stockIndex.moreThan("Red", 4000)).isEqualTo(20);
+        assertThat(stockIndex.moreThan("Red", 2900)).isEqualTo(35);
+        assertThat(stockIndex.equal("Red", 4000)).isEqualTo(5);
+        assertThat(stockIndex.equal("Red", 4500)).isZero();
+        assertThat(stockIndex.equal("Green", 4000)).isZero();
+    }
+
+    @Test
+    void testNegativeDeltas() {
+        stockIndex.applyAfterCommit("Red", 3000, 10);
+        stockIndex.applyAfterCommit("Red", 6000, 10);
+        stockIndex.applyAfterCommit("Red", 3000, -4);
+
+        assertThat(stockIndex.lessThan("Red", 5000)).isEqualTo(6);
+        assertThat(stockIndex.moreThan("Red", 0)).isEqualTo(16);
+    }
+
+    @Test
+    void testManyKeysMatchNaiveSums() {
+        long[] amounts = new long[101];
+        for (int i = 0; i < 500; i++) {
+            int cotton = (i * 37) % 101;
+            stockIndex.applyAfterCommit("Red", cotton, i);
+            amounts[cotton] += i;
+        }
+
+        for (int threshold = 0; threshold <= 100; threshold++) {
+            long less = 0;
+            long more = 0;
+            for (int cotton = 0; cotton <= 100; cotton++) {
+                if (cotton < threshold) {
+                    less += amounts[cotton];
+                } else if (cotton > threshold) {
+                    more += amounts[cotton];
+                }
+            }
+            assertThat(stockIndex.lessThan("Red", threshold)).isEqualTo(less);
+            assertThat(stockIndex.moreThan("Red", threshold)).isEqualTo(more);
+            assertThat(stockIndex.equal("Red", threshold)).isEqualTo(amounts[threshold]);
+        }
+    }
+}
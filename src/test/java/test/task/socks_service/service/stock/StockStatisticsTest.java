@@ -0,0 +1,129 @@
+package test.task.socks_service.service.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import test.task.socks_service.entity.dto.SocksCountRequest;
+import test.task.socks_service.entity.dto.SocksStatsResponse;
+import test.task.socks_service.service.color.ColorDictionary;
+
+class StockStatisticsTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private StockStatistics stockStatistics;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        ColorDictionary colorDictionary = mock(ColorDictionary.class);
+        when(colorDictionary.idOf("red")).thenReturn((short) 1);
+        when(colorDictionary.nameOf((short) 1)).thenReturn("red");
+        when(colorDictionary.nameOf((short) 2)).thenReturn("blue");
+        stockStatistics = new StockStatistics(jdbcTemplate, colorDictionary);
+    }
+
+    @Test
+    void testCollect_GroupsByColorAndBucket() throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            long[][] rows = {{1, 7, 30}, {1, 8, 20}, {2, 7, 5}};
+            for (long[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getShort(1)).thenReturn((short) row[0]);
+                when(rs.getInt(2)).thenReturn((int) row[1]);
+                when(rs.getLong(3)).thenReturn(row[2]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+        SocksStatsResponse stats = stockStatistics.collect(null, null, null, 1000);
+
+        assertThat(stats.getTotalAmount()).isEqualTo(55);
+        assertThat(stats.getColors()).extracting(SocksStatsResponse.ColorStats::getColor).containsExactly("blue", "red");
+        SocksStatsResponse.ColorStats red = stats.getColors().get(1);
+        assertThat(red.getAmount()).isEqualTo(50);
+        assertThat(red.getBuckets()).extracting(SocksStatsResponse.CottonBucket::getCottonFromBasisPoints).containsExactly(7000, 8000);
+    }
+
+    @Test
+    void testCollect_SingleQueryWithFilters() {
+        List<Object> params = new ArrayList<>();
+        doAnswer(invocation -> {
+            Object[] arguments = invocation.getArguments();
+            params.addAll(Arrays.asList(arguments).subList(2, arguments.length));
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+        stockStatistics.collect(2000, 8000, "Red", 500);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(1)).query(sql.capture(), any(RowCallbackHandler.class), any(Object[].class));
+        assertThat(sql.getValue()).contains("group by color_id, bucket").contains("where not folded and color_id = ?");
+        assertThat(params).containsExactly(500, (short) 1, 2000, 8000, 500, (short) 1, 2000, 8000);
+    }
+
+    @Test
+    void testCollect_UnknownColor() {
+        SocksStatsResponse stats = stockStatistics.collect(null, null, "magenta", 1000);
+
+        assertThat(stats.getColors()).isEmpty();
+        assertThat(stats.getTotalAmount()).isZero();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testCollect_RejectsZeroWidth() {
+        org.junit.jupiter.api.Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            stockStatistics.collect(null, null, null, 0);
+        });
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testCountAll_OneConditionalAggregationPass() throws Exception {
+        List<Object> params = new ArrayList<>();
+        doAnswer(invocation -> {
+            Object[] arguments = invocation.getArguments();
+            params.addAll(Arrays.asList(arguments).subList(2, arguments.length));
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong(1)).thenReturn(12L);
+            when(rs.getLong(2)).thenReturn(0L);
+            invocation.<RowCallbackHandler>getArgument(1).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+        long[] amounts = stockStatistics.countAll(Arrays.asList(
+            new SocksCountRequest("red", "moreThan", 2000),
+            new SocksCountRequest("magenta", "equal", 3000),
+            new SocksCountRequest("red", "equal", 3000)));
+
+        assertThat(amounts).containsExactly(12, 0, 0);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(1)).query(sql.capture(), any(RowCallbackHandler.class), any(Object[].class));
+        assertThat(sql.getValue()).startsWith("select sum(case when color_id = ? and cotton_basis_points > ? then amount else 0 end), "
+            + "sum(case when color_id = ? and cotton_basis_points = ? then amount else 0 end) from");
+        assertThat(params).containsExactly((short) 1, 2000, (short) 1, 3000, (short) 1, (short) 1);
+    }
+
+    @Test
+    void testCountAll_OnlyUnknownColors() {
+        assertThat(stockStatistics.countAll(Arrays.asList(new SocksCountRequest("magenta", "equal", 3000)))).containsExactly(0);
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
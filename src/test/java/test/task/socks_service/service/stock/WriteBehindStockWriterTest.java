@@ -0,0 +1,180 @@
+package test.task.socks_service.service.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import test.task.socks_service.entity.Sock;
+import test.task.socks_service.exception.NoEnoughSocksException;
+import test.task.socks_service.exception.NoSocksFoundException;
+import test.task.socks_service.service.color.ColorDictionary;
+
+class WriteBehindStockWriterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SockRelabeler sockRelabeler;
+    private WriteBehindStockWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        sockRelabeler = mock(SockRelabeler.class);
+        writer = new WriteBehindStockWriter(jdbcTemplate, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+            mock(StockIndex.class), mock(StockCountCache.class), mock(ColorDictionary.class), sockRelabeler);
+    }
+
+    @Test
+    void testOutcome_NoSocksFound() {
+        Exception exception = org.junit.jupiter.api.Assertions.assertThrows(NoSocksFoundException.class, () -> {
+            writer.outcome(new Sock(null, "Red", 3000, 1));
+        });
+
+        assertThat(exception.getMessage()).isEqualTo("На складе не найдено носков данного типа");
+    }
+
+    @Test
+    void testOutcome_ConcurrentRequestsNeverOversell() throws Exception {
+        writer.income(new Sock(null, "Red", 3000, 1000));
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 1500; i++) {
+            executor.execute(() -> {
+                try {
+                    writer.outcome(new Sock(null, "Red", 3000, 1));
+                    sold.incrementAndGet();
+                } catch (NoEnoughSocksException e) {
+                    rejected.incrementAndGet();
+                } catch (NoSocksFoundException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(sold.get()).isEqualTo(1000);
+        assertThat(rejected.get()).isEqualTo(500);
+    }
+
+    @Test
+    void testFlush_WritesNetDeltasOnce() throws Exception {
+        writer.income(new Sock(null, "Red", 3000, 10));
+        writer.outcome(new Sock(null, "Red", 3000, 4));
+        writer.income(new Sock(null, "Blue", 4000, 5));
+
+        writer.flush();
+        writer.flush();
+
+        ArgumentCaptor<BatchPreparedStatementSetter> setter = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), setter.capture());
+        assertThat(setter.getValue().getBatchSize()).isEqualTo(2);
+    }
+
+    @Test
+    void testFlush_RetriesFailedDeltas() {
+        writer.income(new Sock(null, "Red", 3000, 10));
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class)))
+            .thenThrow(new IllegalStateException("БД недоступна"))
+            .thenReturn(new int[] {1});
+
+        writer.flush();
+        writer.flush();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+    }
+
+    @Test
+    void testFlush_RemembersIdOfNewRow() {
+        assertThat(writer.income(new Sock(null, "Red", 3000, 10)).getId()).isNull();
+        when(jdbcTemplate.queryForList(contains("select id from socks"), eq(Long.class), any(), any()))
+            .thenReturn(Collections.singletonList(42L));
+
+        writer.flush();
+
+        assertThat(writer.income(new Sock(null, "Red", 3000, 1)).getId()).isEqualTo(42L);
+    }
+
+    @Test
+    void testRelabel_FlushesPendingThenMovesCounter() throws Exception {
+        writer.income(new Sock(null, "Red", 3000, 10));
+        when(sockRelabeler.find(7L)).thenReturn(Optional.of(new Sock(7L, "Red", 3000, 10)));
+        when(sockRelabeler.lock(7L)).thenReturn(Optional.of(new Sock(7L, "Red", 3000, 10)));
+        when(sockRelabeler.move(any(), eq("Blue"), eq(5000))).thenReturn(new Sock(7L, "Blue", 5000, 10));
+
+        assertThat(writer.relabel(7L, "Blue", 5000)).map(Sock::getAmount).contains(10);
+
+        InOrder inOrder = inOrder(jdbcTemplate, sockRelabeler);
+        inOrder.verify(jdbcTemplate).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+        inOrder.verify(sockRelabeler).lock(7L);
+        inOrder.verify(sockRelabeler).move(any(), eq("Blue"), eq(5000));
+        org.junit.jupiter.api.Assertions.assertThrows(NoSocksFoundException.class, () -> writer.outcome(new Sock(null, "Red", 3000, 1)));
+        Sock rest = writer.outcome(new Sock(null, "Blue", 5000, 4));
+        assertThat(rest.getId()).isEqualTo(7L);
+        assertThat(rest.getAmount()).isEqualTo(6);
+    }
+
+    @Test
+    void testRelabel_DoesNotBlockOtherKeys() throws Exception {
+        writer.income(new Sock(null, "Red", 3000, 10));
+        CountDownLatch moving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(sockRelabeler.find(7L)).thenReturn(Optional.of(new Sock(7L, "Red", 3000, 10)));
+        when(sockRelabeler.lock(7L)).thenReturn(Optional.of(new Sock(7L, "Red", 3000, 10)));
+        when(sockRelabeler.move(any(), eq("Blue"), eq(5000))).thenAnswer(invocation -> {
+            moving.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new Sock(7L, "Blue", 5000, 10);
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<Optional<Sock>> relabel = executor.submit(() -> writer.relabel(7L, "Blue", 5000));
+            assertThat(moving.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(writer.income(new Sock(null, "Green", 4000, 3)).getAmount()).isEqualTo(3);
+            release.countDown();
+            assertThat(relabel.get(5, TimeUnit.SECONDS)).map(Sock::getColor).contains("Blue");
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRelabel_RetriesWhenRowMovedConcurrently() {
+        when(sockRelabeler.find(7L))
+            .thenReturn(Optional.of(new Sock(7L, "Red", 3000, 10)))
+            .thenReturn(Optional.of(new Sock(7L, "Green", 4000, 10)));
+        when(sockRelabeler.lock(7L))
+            .thenReturn(Optional.of(new Sock(7L, "Green", 4000, 10)));
+        when(sockRelabeler.move(any(), eq("Blue"), eq(5000))).thenReturn(new Sock(7L, "Blue", 5000, 10));
+
+        assertThat(writer.relabel(7L, "Blue", 5000)).map(Sock::getAmount).contains(10);
+
+        verify(sockRelabeler, times(2)).lock(7L);
+        verify(sockRelabeler, times(1)).move(any(), eq("Blue"), eq(5000));
+    }
+}
@@ -13,62 +13,62 @@ import test.task.socks_service.entity.Sock;
 class SockSpecificationTest {
 
     @Test
-    void testFilterByCottonPercentageRange_BothValuesProvided() {
-        Double minCotton = 50.0;
-        Double maxCotton = 80.0;
-        Specification<Sock> specification = SockSpecification.filterByCottonPercentageRange(minCotton, maxCotton);
+    void testFilterByCottonRange_BothValuesProvided() {
+        Integer minCotton = 5000;
+        Integer maxCotton = 8000;
+        Specification<Sock> specification = SockSpecification.filterByCottonRange(minCotton, maxCotton);
 
         CriteriaBuilder criteriaBuilder = mock(CriteriaBuilder.class);
         CriteriaQuery<Sock> criteriaQuery = mock(CriteriaQuery.class);
         Root<Sock> root = mock(Root.class);
         
-        when(criteriaBuilder.between(root.get("cottonPercentage"), minCotton, maxCotton)).thenReturn(null);
+        when(criteriaBuilder.between(root.get("cottonBasisPoints"), minCotton, maxCotton)).thenReturn(null);
         specification.toPredicate(root, criteriaQuery, criteriaBuilder);
 
-        verify(criteriaBuilder, times(1)).between(root.get("cottonPercentage"), minCotton, maxCotton);
+        verify(criteriaBuilder, times(1)).between(root.get("cottonBasisPoints"), minCotton, maxCotton);
     }
 
     @Test
-    void testFilterByCottonPercentageRange_MinValueProvided() {
+    void testFilterByCottonRange_MinValueProvided() {
 
-        Double minCotton = 50.0;
-        Double maxCotton = null;
-        Specification<Sock> specification = SockSpecification.filterByCottonPercentageRange(minCotton, maxCotton);
+        Integer minCotton = 5000;
+        Integer maxCotton = null;
+        Specification<Sock> specification = SockSpecification.filterByCottonRange(minCotton, maxCotton);
 
         CriteriaBuilder criteriaBuilder = mock(CriteriaBuilder.class);
         CriteriaQuery<Sock> criteriaQuery = mock(CriteriaQuery.class);
         Root<Sock> root = mock(Root.class);
         
-        when(criteriaBuilder.greaterThanOrEqualTo(root.get("cottonPercentage"), minCotton)).thenReturn(null);
+        when(criteriaBuilder.greaterThanOrEqualTo(root.get("cottonBasisPoints"), minCotton)).thenReturn(null);
 
         specification.toPredicate(root, criteriaQuery, criteriaBuilder);
 
-        verify(criteriaBuilder, times(1)).greaterThanOrEqualTo(root.get("cottonPercentage"), minCotton);
+        verify(criteriaBuilder, times(1)).greaterThanOrEqualTo(root.get("cottonBasisPoints"), minCotton);
     }
 
     @Test
-    void testFilterByCottonPercentageRange_MaxValueProvided() {
-        Double minCotton = null;
-        Double maxCotton = 80.0;
-        Specification<Sock> specification = SockSpecification.filterByCottonPercentageRange(minCotton, maxCotton);
+    void testFilterByCottonRange_MaxValueProvided() {
+        Integer minCotton = null;
+        Integer maxCotton = 8000;
+        Specification<Sock> specification = SockSpecification.filterByCottonRange(minCotton, maxCotton);
 
         CriteriaBuilder criteriaBuilder = mock(CriteriaBuilder.class);
         CriteriaQuery<Sock> criteriaQuery = mock(CriteriaQuery.class);
         Root<Sock> root = mock(Root.class);
 
-        when(criteriaBuilder.lessThanOrEqualTo(root.get("cottonPercentage"), maxCotton)).thenReturn(null);
+        when(criteriaBuilder.lessThanOrEqualTo(root.get("cottonBasisPoints"), maxCotton)).thenReturn(null);
 
         specification.toPredicate(root, criteriaQuery, criteriaBuilder);
 
-        verify(criteriaBuilder, times(1)).lessThanOrEqualTo(root.get("cottonPercentage"), maxCotton);
+        verify(criteriaBuilder, times(1)).lessThanOrEqualTo(root.get("cottonBasisPoints"), maxCotton);
     }
 
     @Test
-    void testFilterByCottonPercentageRange_NeitherValueProvided() {
+    void testFilterByCottonRange_NeitherValueProvided() {
 
-        Double minCotton = null;
-        Double maxCotton = null;
-        Specification<Sock> specification = SockSpecification.filterByCottonPercentageRange(minCotton, maxCotton);
+        Integer minCotton = null;
+        Integer maxCotton = null;
+        Specification<Sock> specification = SockSpecification.filterByCottonRange(minCotton, maxCotton);
 
         CriteriaBuilder criteriaBuilder = mock(CriteriaBuilder.class);
         CriteriaQuery<Sock> criteriaQuery = mock(CriteriaQuery.class);